@@ -0,0 +1,107 @@
+package com.amazonaws.kinesisvideo.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Representative signaling payloads, shaped like what the Kinesis Video signaling service delivers to a master.
+ */
+public final class SignalingFixtures {
+
+    public static final String VIEWER_CLIENT_ID = "ConsoleViewer-1600000000000";
+
+    public static final String CANDIDATE =
+            "candidate:1966762134 1 udp 2122260223 192.168.1.23 54321 typ host generation 0 ufrag eXb7 network-id 1 network-cost 10";
+
+    public static final String SDP = "v=0\r\n"
+            + "o=- 5512330734373432315 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0 1\r\n"
+            + "a=msid-semantic: WMS\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 102 122 127 121 125 107 108 109 124 120 123 119 114 115 116\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=rtcp:9 IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:eXb7\r\n"
+            + "a=ice-pwd:wKyK0I8wQaDkBPy9b6MGlfkz\r\n"
+            + "a=ice-options:trickle\r\n"
+            + "a=fingerprint:sha-256 4D:5C:3E:19:91:B1:2A:1B:6C:57:35:4B:73:0E:96:A7:8E:57:46:01:21:3A:83:5F:F5:05:87:6A:1B:03:AB:CD\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:0\r\n"
+            + "a=extmap:1 urn:ietf:params:rtp-hdrext:toffset\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:3 urn:3gpp:video-orientation\r\n"
+            + "a=extmap:4 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n"
+            + "a=recvonly\r\n"
+            + "a=rtcp-mux\r\n"
+            + "a=rtcp-rsize\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtcp-fb:96 goog-remb\r\n"
+            + "a=rtcp-fb:96 transport-cc\r\n"
+            + "a=rtcp-fb:96 ccm fir\r\n"
+            + "a=rtcp-fb:96 nack\r\n"
+            + "a=rtcp-fb:96 nack pli\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:98 VP9/90000\r\n"
+            + "a=rtcp-fb:98 goog-remb\r\n"
+            + "a=rtcp-fb:98 transport-cc\r\n"
+            + "a=rtcp-fb:98 ccm fir\r\n"
+            + "a=rtcp-fb:98 nack\r\n"
+            + "a=rtcp-fb:98 nack pli\r\n"
+            + "a=fmtp:98 profile-id=0\r\n"
+            + "a=rtpmap:102 H264/90000\r\n"
+            + "a=rtcp-fb:102 goog-remb\r\n"
+            + "a=rtcp-fb:102 transport-cc\r\n"
+            + "a=rtcp-fb:102 ccm fir\r\n"
+            + "a=rtcp-fb:102 nack\r\n"
+            + "a=rtcp-fb:102 nack pli\r\n"
+            + "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f\r\n"
+            + "a=rtpmap:125 H264/90000\r\n"
+            + "a=fmtp:125 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n"
+            + "a=rtpmap:108 H264/90000\r\n"
+            + "a=fmtp:108 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f\r\n"
+            + "a=rtpmap:114 red/90000\r\n"
+            + "a=rtpmap:115 rtx/90000\r\n"
+            + "a=fmtp:115 apt=114\r\n"
+            + "a=rtpmap:116 ulpfec/90000\r\n"
+            + "m=application 9 UDP/DTLS/SCTP webrtc-datachannel\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:eXb7\r\n"
+            + "a=ice-pwd:wKyK0I8wQaDkBPy9b6MGlfkz\r\n"
+            + "a=ice-options:trickle\r\n"
+            + "a=fingerprint:sha-256 4D:5C:3E:19:91:B1:2A:1B:6C:57:35:4B:73:0E:96:A7:8E:57:46:01:21:3A:83:5F:F5:05:87:6A:1B:03:AB:CD\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:1\r\n"
+            + "a=sctp-port:5000\r\n"
+            + "a=max-message-size:262144\r\n";
+
+    public static final String OFFER_PAYLOAD = base64("{\"type\":\"offer\",\"sdp\":\"" + escape(SDP) + "\"}");
+
+    public static final String ANSWER_PAYLOAD = base64("{\"type\":\"answer\",\"sdp\":\"" + escape(SDP) + "\"}");
+
+    public static final String CANDIDATE_PAYLOAD = base64("{\"candidate\":\"" + CANDIDATE
+            + "\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}");
+
+    public static final String OFFER_MESSAGE = envelope("SDP_OFFER", OFFER_PAYLOAD);
+
+    public static final String ANSWER_MESSAGE = envelope("SDP_ANSWER", ANSWER_PAYLOAD);
+
+    public static final String CANDIDATE_MESSAGE = envelope("ICE_CANDIDATE", CANDIDATE_PAYLOAD);
+
+    private static String envelope(final String messageType, final String payload) {
+        return "{\"messagePayload\":\"" + payload + "\",\"messageType\":\"" + messageType
+                + "\",\"senderClientId\":\"" + VIEWER_CLIENT_ID + "\"}";
+    }
+
+    private static String escape(final String sdp) {
+        return sdp.replace("\r\n", "\\r\\n");
+    }
+
+    private static String base64(final String json) {
+        return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SignalingFixtures() {
+    }
+}
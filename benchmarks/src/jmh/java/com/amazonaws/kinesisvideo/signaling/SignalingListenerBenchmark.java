@@ -0,0 +1,71 @@
+package com.amazonaws.kinesisvideo.signaling;
+
+import com.amazonaws.kinesisvideo.benchmarks.SignalingFixtures;
+import com.amazonaws.kinesisvideo.signaling.model.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.websocket.MessageHandler;
+
+/**
+ * Inbound message handling up to the {@link Signaling} callback, which only hands the event to the blackhole.
+ */
+@State(Scope.Thread)
+public class SignalingListenerBenchmark {
+
+    private MessageHandler.Whole<String> messageHandler;
+
+    private Blackhole blackhole;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp(final Blackhole blackhole) {
+        this.blackhole = blackhole;
+        final SignalingListener listener = new SignalingListener() {
+            @Override
+            public void onSdpOffer(final Event event) {
+                SignalingListenerBenchmark.this.blackhole.consume(event);
+            }
+
+            @Override
+            public void onSdpAnswer(final Event event) {
+                SignalingListenerBenchmark.this.blackhole.consume(event);
+            }
+
+            @Override
+            public void onIceCandidate(final Event event) {
+                SignalingListenerBenchmark.this.blackhole.consume(event);
+            }
+
+            @Override
+            public void onError(final Event event) {
+                SignalingListenerBenchmark.this.blackhole.consume(event);
+            }
+
+            @Override
+            public void onException(final Exception e) {
+                SignalingListenerBenchmark.this.blackhole.consume(e);
+            }
+        };
+        messageHandler = (MessageHandler.Whole<String>) listener.getMessageHandler();
+    }
+
+    @Benchmark
+    public void onOfferMessage() {
+        messageHandler.onMessage(SignalingFixtures.OFFER_MESSAGE);
+    }
+
+    @Benchmark
+    public void onAnswerMessage() {
+        messageHandler.onMessage(SignalingFixtures.ANSWER_MESSAGE);
+    }
+
+    @Benchmark
+    public void onIceCandidateMessage() {
+        messageHandler.onMessage(SignalingFixtures.CANDIDATE_MESSAGE);
+    }
+}
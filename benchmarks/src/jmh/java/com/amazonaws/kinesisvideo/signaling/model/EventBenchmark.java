@@ -0,0 +1,44 @@
+package com.amazonaws.kinesisvideo.signaling.model;
+
+import com.amazonaws.kinesisvideo.benchmarks.SignalingFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.webrtc.IceCandidate;
+
+/**
+ * Decoding of inbound events: the payload alone from an event built in code, and a whole message as received.
+ * Events keep their decoded payload, so each invocation starts from a new one.
+ */
+@State(Scope.Thread)
+public class EventBenchmark {
+
+    @Benchmark
+    public IceCandidate parseIceCandidate() {
+        return Event.parseIceCandidate(new Event(SignalingFixtures.VIEWER_CLIENT_ID, "ICE_CANDIDATE",
+                SignalingFixtures.CANDIDATE_PAYLOAD));
+    }
+
+    @Benchmark
+    public String parseSdpEvent() {
+        return Event.parseSdpEvent(new Event(SignalingFixtures.VIEWER_CLIENT_ID, "SDP_ANSWER",
+                SignalingFixtures.ANSWER_PAYLOAD));
+    }
+
+    @Benchmark
+    public String parseOfferEvent() {
+        return Event.parseOfferEvent(new Event(SignalingFixtures.VIEWER_CLIENT_ID, "SDP_OFFER",
+                SignalingFixtures.OFFER_PAYLOAD));
+    }
+
+    @Benchmark
+    public IceCandidate decodeCandidateMessage() {
+        return Event.parseIceCandidate(EventDecoder.decode(SignalingFixtures.CANDIDATE_MESSAGE));
+    }
+
+    @Benchmark
+    public String decodeOfferMessage() {
+        return Event.parseOfferEvent(EventDecoder.decode(SignalingFixtures.OFFER_MESSAGE));
+    }
+}
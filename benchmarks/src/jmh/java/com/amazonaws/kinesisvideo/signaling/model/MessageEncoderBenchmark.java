@@ -0,0 +1,72 @@
+package com.amazonaws.kinesisvideo.signaling.model;
+
+import com.amazonaws.kinesisvideo.benchmarks.SignalingFixtures;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webrtc.IceCandidate;
+import org.webrtc.SessionDescription;
+
+import android.util.Base64;
+
+/**
+ * Outbound message encoding, from the WebRTC object to the JSON text handed to the WebSocket.
+ *
+ * The gson variants reproduce the previous path, payload built by string concatenation, Base64 encoded from a byte
+ * array and the envelope serialized by reflection. Run with -PjmhProfilers=gc for the allocations per message.
+ */
+@State(Scope.Thread)
+public class MessageEncoderBenchmark {
+
+    private static final int CANDIDATE_BURST = 10;
+
+    private final Gson gson = new Gson();
+
+    private final IceCandidate candidate = new IceCandidate("0", 0, SignalingFixtures.CANDIDATE);
+
+    private final SessionDescription answer = new SessionDescription(SessionDescription.Type.ANSWER,
+            SignalingFixtures.SDP);
+
+    @Benchmark
+    public String iceCandidate() {
+        return MessageEncoder.forCurrentThread().encode(Message.createIceCandidateMessage(candidate, true,
+                SignalingFixtures.VIEWER_CLIENT_ID, null));
+    }
+
+    @Benchmark
+    public String iceCandidateGson() {
+        final String payload = "{\"candidate\":\"" + candidate.sdp + "\",\"sdpMid\":\"" + candidate.sdpMid
+                + "\",\"sdpMLineIndex\":" + candidate.sdpMLineIndex + "}";
+        return gson.toJson(new Message("ICE_CANDIDATE", SignalingFixtures.VIEWER_CLIENT_ID, "",
+                new String(Base64.encode(payload.getBytes(), Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP))));
+    }
+
+    /**
+     * Candidates gathered back to back, as during continual gathering.
+     */
+    @Benchmark
+    public void iceCandidateBurst(final Blackhole blackhole) {
+        final MessageEncoder encoder = MessageEncoder.forCurrentThread();
+        for (int i = 0; i < CANDIDATE_BURST; i++) {
+            blackhole.consume(encoder.encode(Message.createIceCandidateMessage(candidate, true,
+                    SignalingFixtures.VIEWER_CLIENT_ID, null)));
+        }
+    }
+
+    @Benchmark
+    public String sdpAnswer() {
+        return MessageEncoder.forCurrentThread().encode(Message.createAnswerMessage(answer, true,
+                SignalingFixtures.VIEWER_CLIENT_ID));
+    }
+
+    @Benchmark
+    public String sdpAnswerGson() {
+        final String payload = "{\"type\":\"answer\",\"sdp\":\"" + answer.description.replace("\r\n", "\\r\\n")
+                + "\"}";
+        return gson.toJson(new Message("SDP_ANSWER", SignalingFixtures.VIEWER_CLIENT_ID, "",
+                new String(Base64.encode(payload.getBytes(), Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP))));
+    }
+}
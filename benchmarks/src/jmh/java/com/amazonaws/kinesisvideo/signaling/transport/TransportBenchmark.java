@@ -0,0 +1,249 @@
+package com.amazonaws.kinesisvideo.signaling.transport;
+
+import com.amazonaws.kinesisvideo.benchmarks.SignalingFixtures;
+import com.amazonaws.kinesisvideo.signaling.okhttp.OkHttpTransport;
+import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingRuntime;
+import com.amazonaws.kinesisvideo.signaling.tyrus.TyrusTransport;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+/**
+ * Compares {@link WebSocketTransport} implementations against a local echo server, over plain ws and over wss
+ * with a self-signed certificate that the JVM is told to trust.
+ *
+ *   handshake     TCP connect, TLS handshake and HTTP upgrade until the connection is open
+ *   roundTrip     one ICE candidate sized message out and its echo back on an open connection
+ *   idle          threads the transport keeps alive for {@link #CONNECTIONS} open connections, reported as the
+ *                 residentThreads counter, the score itself is meaningless
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransportBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private static final int CONNECTIONS = 4;
+
+    @Param({"tyrus", "okhttp"})
+    public String transportName;
+
+    @Param({"ws", "wss"})
+    public String scheme;
+
+    private MockWebServer server;
+
+    private SignalingRuntime runtime;
+
+    private WebSocketTransport transport;
+
+    private URI uri;
+
+    private WebSocketConnection connection;
+
+    private final BlockingQueue<String> echoes = new LinkedBlockingQueue<>();
+
+    private final String message = SignalingFixtures.CANDIDATE_MESSAGE;
+
+    private final WebSocketConnection.Listener echoListener = new WebSocketConnection.Listener() {
+        @Override
+        public void onMessage(final String message) {
+            echoes.add(message);
+        }
+
+        @Override
+        public void onPong(final byte[] payload) {
+        }
+
+        @Override
+        public void onClosed(final int code, final String reason) {
+        }
+
+        @Override
+        public void onFailure(final Throwable cause) {
+        }
+    };
+
+    private final WebSocketConnection.Listener discardListener = new WebSocketConnection.Listener() {
+        @Override
+        public void onMessage(final String message) {
+        }
+
+        @Override
+        public void onPong(final byte[] payload) {
+        }
+
+        @Override
+        public void onClosed(final int code, final String reason) {
+        }
+
+        @Override
+        public void onFailure(final Throwable cause) {
+        }
+    };
+
+    private final WebSocketConnection.SendCallback sendCallback = new WebSocketConnection.SendCallback() {
+        @Override
+        public void onComplete(final Throwable error) {
+            if (error != null) {
+                throw new IllegalStateException(error);
+            }
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final boolean secure = "wss".equals(scheme);
+        final String host = "localhost";
+
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                    @Override
+                    public void onMessage(final WebSocket webSocket, final String text) {
+                        webSocket.send(text);
+                    }
+
+                    @Override
+                    public void onClosing(final WebSocket webSocket, final int code, final String reason) {
+                        webSocket.close(code, null);
+                    }
+
+                    @Override
+                    public void onFailure(final WebSocket webSocket, final Throwable t, final Response response) {
+                    }
+                });
+            }
+        });
+        if (secure) {
+            final HeldCertificate certificate = new HeldCertificate.Builder().addSubjectAlternativeName(host).build();
+            server.useHttps(new HandshakeCertificates.Builder().heldCertificate(certificate).build()
+                    .sslSocketFactory(), false);
+            trust(certificate);
+        }
+        server.start(InetAddress.getByName(host), 0);
+
+        uri = URI.create(scheme + "://" + host + ":" + server.getPort() + "/");
+
+        runtime = SignalingRuntime.acquire();
+        transport = "tyrus".equals(transportName) ? new TyrusTransport(runtime, false) : new OkHttpTransport();
+
+        connection = open(echoListener);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+        runtime.release();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public void handshake() throws Exception {
+        open(discardListener).close();
+    }
+
+    @Benchmark
+    public String roundTrip() throws Exception {
+        connection.sendText(message, sendCallback);
+        return echoes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Keeps {@link #CONNECTIONS} connections open for an iteration and counts the threads that costs over the
+     * baseline. The count includes the echo server's own threads, which are the same for every transport, so only
+     * the difference between transports matters.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class IdleConnections {
+
+        public int residentThreads;
+
+        // JMH resets the counter after iteration setup, the benchmark method copies this into it
+        private int measuredThreads;
+
+        private final List<WebSocketConnection> open = new ArrayList<>();
+
+        @Setup(Level.Iteration)
+        public void open(final TransportBenchmark benchmark) throws Exception {
+            final int baseline = Thread.activeCount();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                open.add(benchmark.open(benchmark.discardListener));
+            }
+            // Let lazily started reader and writer threads come up
+            Thread.sleep(200);
+            measuredThreads = Thread.activeCount() - baseline;
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() {
+            for (final WebSocketConnection idleConnection : open) {
+                idleConnection.close();
+            }
+            open.clear();
+        }
+    }
+
+    @Benchmark
+    public boolean idle(final IdleConnections idle) {
+        idle.residentThreads = idle.measuredThreads;
+        return idle.open.get(0).isOpen();
+    }
+
+    private WebSocketConnection open(final WebSocketConnection.Listener listener) throws Exception {
+        return transport.connect(uri, listener, TIMEOUT_MILLIS, HeartbeatConfig.DISABLED).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Both transports fall back to the JVM default trust store, point it at the test certificate before either
+    // creates an SSL context
+    private static void trust(final HeldCertificate certificate) throws Exception {
+        final KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("localhost", certificate.certificate());
+
+        final File file = File.createTempFile("signaling-benchmark", ".jks");
+        file.deleteOnExit();
+        final char[] password = "benchmark".toCharArray();
+        try (OutputStream out = new FileOutputStream(file)) {
+            trustStore.store(out, password);
+        }
+        System.setProperty("javax.net.ssl.trustStore", file.getAbsolutePath());
+        System.setProperty("javax.net.ssl.trustStorePassword", new String(password));
+        System.setProperty("javax.net.ssl.trustStoreType", KeyStore.getDefaultType());
+    }
+}
@@ -0,0 +1,109 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import com.amazonaws.kinesisvideo.benchmarks.SignalingFixtures;
+import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.model.Event;
+import com.amazonaws.kinesisvideo.signaling.model.Message;
+
+import org.glassfish.tyrus.server.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.OnMessage;
+import javax.websocket.server.ServerEndpoint;
+
+/**
+ * Outbound {@link Message} serialization and send through {@link SignalingServiceWebSocketClient} against an
+ * in-process WebSocket server that discards everything it receives.
+ */
+@State(Scope.Benchmark)
+public class SignalingSendBenchmark {
+
+    private static final int PORT = Integer.getInteger("benchmark.port", 8025);
+
+    private static final int CANDIDATE_BURST = 10;
+
+    @ServerEndpoint("/discard")
+    public static class DiscardEndpoint {
+
+        @OnMessage
+        public void onMessage(final String message) {
+            // Dropped, only the client side is measured
+        }
+    }
+
+    private Server server;
+
+    private SignalingServiceWebSocketClient client;
+
+    private final Message candidateMessage = new Message("ICE_CANDIDATE", SignalingFixtures.VIEWER_CLIENT_ID, "",
+            SignalingFixtures.CANDIDATE_PAYLOAD);
+
+    private final Message answerMessage = new Message("SDP_ANSWER", SignalingFixtures.VIEWER_CLIENT_ID, "",
+            SignalingFixtures.ANSWER_PAYLOAD);
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new Server("localhost", PORT, "/", null, DiscardEndpoint.class);
+        server.start();
+
+        client = new SignalingServiceWebSocketClient("ws://localhost:" + PORT + "/discard", new SignalingListener() {
+            @Override
+            public void onSdpOffer(final Event event) {
+            }
+
+            @Override
+            public void onSdpAnswer(final Event event) {
+            }
+
+            @Override
+            public void onIceCandidate(final Event event) {
+            }
+
+            @Override
+            public void onError(final Event event) {
+            }
+
+            @Override
+            public void onException(final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, SignalingRuntime.acquire());
+        client.connect().get(SignalingServiceWebSocketClient.DEFAULT_CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.disconnect();
+        server.stop();
+    }
+
+    @Benchmark
+    public void sendIceCandidate() {
+        client.send(candidateMessage).join();
+    }
+
+    @Benchmark
+    public void sendSdpAnswer() {
+        client.send(answerMessage).join();
+    }
+
+    /**
+     * An answer followed by a burst of candidates, as sent right after negotiation, until the last one is written.
+     */
+    @Benchmark
+    public void sendAnswerWithCandidates() {
+        client.send(answerMessage);
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < CANDIDATE_BURST; i++) {
+            last = client.send(candidateMessage);
+        }
+        last.join();
+    }
+}
@@ -0,0 +1,25 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+
+@State(Scope.Thread)
+public class AwsV4SignerBenchmark {
+
+    private final URI wssUri = URI.create("wss://v-1234abcd.kinesisvideo.us-west-2.amazonaws.com");
+
+    private final URI masterUri = URI.create(wssUri
+            + "?X-Amz-ChannelARN=arn:aws:kinesisvideo:us-west-2:123456789012:channel/demo-channel/1234567890123");
+
+    // Cognito session tokens are several hundred characters long and dominate the query string
+    private final String sessionToken = new String(new char[800]).replace('\0', 'T');
+
+    @Benchmark
+    public URI sign() {
+        return AwsV4Signer.sign(masterUri, "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY",
+                sessionToken, wssUri, "us-west-2");
+    }
+}
@@ -0,0 +1,67 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing cost per captured frame of the static screen filter, for a 1280x720 capture.
+ *
+ *   probe      luma of the eighth size thumbnail, hashed for every frame
+ *   thumbnail  all planes of the half size thumbnail, hashed only for frames whose probe did not change
+ *
+ * Only the CPU side, rendering and reading back the thumbnails on the GPU scales with their size the same way but
+ * has to be measured on a device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameContentHashBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    private ByteBuffer probeY;
+
+    private ByteBuffer thumbnailY;
+    private ByteBuffer thumbnailU;
+    private ByteBuffer thumbnailV;
+
+    private static ByteBuffer plane(final Random random, final int width, final int height) {
+        final byte[] samples = new byte[width * height];
+        random.nextBytes(samples);
+        // Direct like the buffers of a frame read back from the GPU
+        final ByteBuffer plane = ByteBuffer.allocateDirect(samples.length);
+        plane.put(samples).clear();
+        return plane;
+    }
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(7);
+        probeY = plane(random, WIDTH / 8, HEIGHT / 8);
+        thumbnailY = plane(random, WIDTH / 2, HEIGHT / 2);
+        thumbnailU = plane(random, WIDTH / 4, HEIGHT / 4);
+        thumbnailV = plane(random, WIDTH / 4, HEIGHT / 4);
+    }
+
+    @Benchmark
+    public long probe() {
+        return FrameContentHash.hashPlane(FrameContentHash.SEED, probeY, WIDTH / 8, WIDTH / 8, HEIGHT / 8);
+    }
+
+    @Benchmark
+    public long thumbnail() {
+        long hash = FrameContentHash.hashPlane(FrameContentHash.SEED, thumbnailY, WIDTH / 2, WIDTH / 2, HEIGHT / 2);
+        hash = FrameContentHash.hashPlane(hash, thumbnailU, WIDTH / 4, WIDTH / 4, HEIGHT / 4);
+        return FrameContentHash.hashPlane(hash, thumbnailV, WIDTH / 4, WIDTH / 4, HEIGHT / 4);
+    }
+}
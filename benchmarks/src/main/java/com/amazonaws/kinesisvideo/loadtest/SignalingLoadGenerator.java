@@ -0,0 +1,281 @@
+package com.amazonaws.kinesisvideo.loadtest;
+
+import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.model.Event;
+import com.amazonaws.kinesisvideo.signaling.model.Message;
+import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingRuntime;
+import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingServiceWebSocketClient;
+import com.amazonaws.kinesisvideo.utils.AwsV4Signer;
+import com.google.gson.Gson;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Drives simulated viewers against one {@link SignalingServiceWebSocketClient} master through a local
+ * {@link SignalingStandInServer}, the way the Kinesis Video signaling service would route them.
+ *
+ * Each viewer sends an offer, waits for the master's answer and its ICE candidates, and repeats for a number of
+ * rounds. Reports offer to answer latency percentiles over all rounds and the messages per second the stand-in
+ * routed. Arguments, all optional:
+ *
+ *   viewers       simulated viewers connected at the same time, default 10
+ *   rounds        offers each viewer sends one after the other, default 5
+ *   candidates    ICE candidates the master trickles after each answer, default 5
+ */
+public class SignalingLoadGenerator {
+
+    private static final String CHANNEL_ARN =
+            "arn:aws:kinesisvideo:us-west-2:123456789012:channel/load-test/1600000000000";
+    private static final String REGION = "us-west-2";
+
+    // The stand-in only checks that the URLs are signed, not by whom
+    private static final String ACCESS_KEY = "AKIDEXAMPLE";
+    private static final String SECRET_KEY = "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY";
+
+    private static final long TIMEOUT_MILLIS = 60000;
+
+    private static final String SDP = "v=0\r\n"
+            + "o=- 5512330734373432315 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:eXb7\r\n"
+            + "a=ice-pwd:wKyK0I8wQaDkBPy9b6MGlfkz\r\n"
+            + "a=ice-options:trickle\r\n"
+            + "a=fingerprint:sha-256 4D:5C:3E:19:91:B1:2A:1B:6C:57:35:4B:73:0E:96:A7:8E:57:46:01:21:3A:83:5F\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:0\r\n"
+            + "a=rtcp-mux\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n";
+
+    private static final String CANDIDATE =
+            "candidate:1966762134 1 udp 2122260223 192.168.1.23 54321 typ host generation 0 ufrag eXb7";
+
+    // Held so the level sticks, MockWebServer logs every upgrade request at INFO
+    private static final Logger SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+    private final int viewers;
+    private final int rounds;
+    private final int candidates;
+
+    private final Gson gson = new Gson();
+
+    private final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<Long>());
+
+    public SignalingLoadGenerator(final int viewers, final int rounds, final int candidates) {
+        this.viewers = viewers;
+        this.rounds = rounds;
+        this.candidates = candidates;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        SERVER_LOGGER.setLevel(Level.WARNING);
+
+        final int viewers = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int candidates = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        new SignalingLoadGenerator(viewers, rounds, candidates).run();
+        // OkHttp's and Tyrus' idle threads would keep the JVM alive for another minute
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        final SignalingStandInServer server = new SignalingStandInServer();
+        server.start(0);
+        final URI wssUri = URI.create(server.getWssEndpoint());
+
+        final MasterListener masterListener = new MasterListener();
+        final SignalingServiceWebSocketClient master = new SignalingServiceWebSocketClient(
+                presign(wssUri, null).toString(), masterListener, SignalingRuntime.acquire());
+        masterListener.master = master;
+        final OkHttpClient viewerClient = new OkHttpClient();
+        final CountDownLatch done = new CountDownLatch(viewers);
+
+        try {
+            master.connect().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+            final long startNanos = System.nanoTime();
+            final long routedBefore = server.getRoutedMessages();
+            for (int i = 0; i < viewers; i++) {
+                final String clientId = "LoadTestViewer-" + i;
+                viewerClient.newWebSocket(new Request.Builder().url(toRequestUrl(presign(wssUri, clientId))).build(),
+                        new ViewerListener(clientId, done));
+            }
+            if (!done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                System.out.println(done.getCount() + " of " + viewers + " viewers did not finish in time");
+            }
+            final long elapsedNanos = System.nanoTime() - startNanos;
+
+            report(server.getRoutedMessages() - routedBefore, server.getDroppedMessages(), elapsedNanos,
+                    master);
+        } finally {
+            master.disconnect();
+            viewerClient.dispatcher().executorService().shutdown();
+            viewerClient.connectionPool().evictAll();
+            server.shutdown();
+        }
+    }
+
+    private void report(final long routed, final long dropped, final long elapsedNanos,
+                        final SignalingServiceWebSocketClient master) {
+        final List<Long> sorted;
+        synchronized (latenciesNanos) {
+            sorted = new ArrayList<>(latenciesNanos);
+        }
+        Collections.sort(sorted);
+
+        System.out.println(String.format(Locale.US, "%d viewers x %d rounds, %d candidates per answer",
+                viewers, rounds, candidates));
+        System.out.println(String.format(Locale.US, "offer to answer   n=%d p50=%.2f ms p90=%.2f ms p99=%.2f ms"
+                        + " max=%.2f ms", sorted.size(), percentileMillis(sorted, 50), percentileMillis(sorted, 90),
+                percentileMillis(sorted, 99), percentileMillis(sorted, 100)));
+        System.out.println(String.format(Locale.US, "routed            %d messages in %.2f s, %.0f msgs/s,"
+                        + " %d dropped", routed, elapsedNanos / 1e9, routed / (elapsedNanos / 1e9), dropped));
+        System.out.println("master outbound   " + master.getOutboundStats());
+    }
+
+    // Nearest rank
+    private static double percentileMillis(final List<Long> sorted, final int percentile) {
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1) / 1e6;
+    }
+
+    private URI presign(final URI wssUri, final String clientId) {
+        final String query = "X-Amz-ChannelARN=" + CHANNEL_ARN + (clientId == null ? "" : "&X-Amz-ClientId=" + clientId);
+        return AwsV4Signer.sign(URI.create(wssUri + "?" + query), ACCESS_KEY, SECRET_KEY, "", wssUri, REGION);
+    }
+
+    // The signer's URI escapes its already encoded query once more in toString(), Tyrus connects with the decoded
+    // components and OkHttp needs the same
+    private static String toRequestUrl(final URI signed) {
+        return signed.getScheme() + "://" + signed.getRawAuthority() + signed.getRawPath() + "?" + signed.getQuery();
+    }
+
+    private static String encode(final String type, final String key, final String value) {
+        final String json = "{\"type\":\"" + type + "\",\"" + key + "\":\"" + value.replace("\r\n", "\\r\\n") + "\"}";
+        return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private final class MasterListener extends SignalingListener {
+
+        private final String answer = encode("answer", "sdp", SDP);
+
+        private final String candidate = Base64.getEncoder().encodeToString(("{\"candidate\":\"" + CANDIDATE
+                + "\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}").getBytes(StandardCharsets.UTF_8));
+
+        private volatile SignalingServiceWebSocketClient master;
+
+        @Override
+        public void onSdpOffer(final Event event) {
+            final SignalingServiceWebSocketClient client = master;
+            if (client == null) {
+                return;
+            }
+            client.sendSdpAnswer(new Message("SDP_ANSWER", event.getSenderClientId(), "", answer));
+            for (int i = 0; i < candidates; i++) {
+                client.sendIceCandidate(new Message("ICE_CANDIDATE", event.getSenderClientId(), "", candidate));
+            }
+        }
+
+        @Override
+        public void onSdpAnswer(final Event event) {
+        }
+
+        @Override
+        public void onIceCandidate(final Event event) {
+        }
+
+        @Override
+        public void onError(final Event event) {
+            System.out.println("Signaling error " + event.getMessagePayload());
+        }
+
+        @Override
+        public void onException(final Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private final class ViewerListener extends WebSocketListener {
+
+        private final String clientId;
+        private final CountDownLatch done;
+
+        private final String offer;
+
+        // Only touched from this viewer's OkHttp reader thread, after onOpen
+        private int round;
+        private int candidatesReceived;
+        private long offerSentNanos;
+        private boolean answered;
+
+        ViewerListener(final String clientId, final CountDownLatch done) {
+            this.clientId = clientId;
+            this.done = done;
+            offer = gson.toJson(new Message("SDP_OFFER", "", clientId, encode("offer", "sdp", SDP)));
+        }
+
+        @Override
+        public void onOpen(final WebSocket webSocket, final Response response) {
+            sendOffer(webSocket);
+        }
+
+        @Override
+        public void onMessage(final WebSocket webSocket, final String text) {
+            final Event event = gson.fromJson(text, Event.class);
+            if ("SDP_ANSWER".equals(event.getMessageType())) {
+                latenciesNanos.add(System.nanoTime() - offerSentNanos);
+                answered = true;
+            } else if ("ICE_CANDIDATE".equals(event.getMessageType())) {
+                candidatesReceived++;
+            }
+            if (!answered || candidatesReceived < candidates) {
+                return;
+            }
+            if (++round < rounds) {
+                sendOffer(webSocket);
+            } else {
+                webSocket.close(1000, null);
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void onFailure(final WebSocket webSocket, final Throwable t, final Response response) {
+            System.out.println(clientId + " failed: " + t);
+            done.countDown();
+        }
+
+        private void sendOffer(final WebSocket webSocket) {
+            answered = false;
+            candidatesReceived = 0;
+            offerSentNanos = System.nanoTime();
+            webSocket.send(offer);
+        }
+    }
+}
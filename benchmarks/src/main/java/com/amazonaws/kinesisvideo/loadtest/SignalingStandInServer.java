@@ -0,0 +1,276 @@
+package com.amazonaws.kinesisvideo.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local stand-in for the Kinesis Video signaling service data plane, for load tests without AWS.
+ *
+ * Accepts presigned connect URLs as produced by {@code AwsV4Signer}: a connection without {@code X-Amz-ClientId}
+ * is the master of the channel named by {@code X-Amz-ChannelARN}, one with it is a viewer. The signature itself
+ * is not verified, only its presence. Messages are routed as the service does:
+ *
+ *   master to viewer    by {@code recipientClientId}, delivered with an empty {@code senderClientId}
+ *   viewer to master    delivered with the viewer's client id as {@code senderClientId}
+ *
+ * Messages for a recipient that is not connected are dropped and counted. Each connection is served by its own
+ * threads, which is fine for the few hundred viewers a load test needs but not a model of the real service.
+ */
+public class SignalingStandInServer {
+
+    private static final int NORMAL_CLOSURE = 1000;
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final Gson gson = new Gson();
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicLong routed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SignalingStandInServer() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                return upgrade(request);
+            }
+        });
+    }
+
+    public void start(final int port) throws IOException {
+        server.start(InetAddress.getByName("localhost"), port);
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * @return endpoint to presign connect URLs for, as returned by GetSignalingChannelEndpoint for WSS
+     */
+    public String getWssEndpoint() {
+        return "ws://localhost:" + server.getPort();
+    }
+
+    /**
+     * @return messages delivered to their recipient so far
+     */
+    public long getRoutedMessages() {
+        return routed.get();
+    }
+
+    /**
+     * @return messages whose recipient was not connected
+     */
+    public long getDroppedMessages() {
+        return dropped.get();
+    }
+
+    private MockResponse upgrade(final RecordedRequest request) {
+        final Map<String, String> query = parseQuery(request.getPath());
+        final String channelArn = query.get("X-Amz-ChannelARN");
+        if (channelArn == null || !query.containsKey("X-Amz-Signature") || !query.containsKey("X-Amz-Credential")) {
+            return new MockResponse().setResponseCode(403);
+        }
+
+        final Channel channel = getChannel(channelArn);
+        final String clientId = query.get("X-Amz-ClientId");
+        return new MockResponse().withWebSocketUpgrade(clientId == null
+                ? new MasterListener(channel) : new ViewerListener(channel, clientId));
+    }
+
+    private Channel getChannel(final String channelArn) {
+        Channel channel = channels.get(channelArn);
+        if (channel == null) {
+            final Channel created = new Channel();
+            channel = channels.putIfAbsent(channelArn, created);
+            if (channel == null) {
+                channel = created;
+            }
+        }
+        return channel;
+    }
+
+    private void deliver(final WebSocket recipient, final String senderClientId, final Inbound inbound) {
+        if (recipient == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        recipient.send(gson.toJson(new Outbound(senderClientId, inbound.action, inbound.messagePayload)));
+        routed.incrementAndGet();
+    }
+
+    private Inbound parse(final WebSocket webSocket, final String text) {
+        try {
+            final Inbound inbound = gson.fromJson(text, Inbound.class);
+            if (inbound != null && inbound.action != null && inbound.messagePayload != null) {
+                return inbound;
+            }
+        } catch (final JsonSyntaxException e) {
+            // Answered below like any other malformed message
+        }
+        webSocket.send(gson.toJson(new Outbound("", "STATUS_RESPONSE", null)));
+        return null;
+    }
+
+    private static Map<String, String> parseQuery(final String path) {
+        final Map<String, String> query = new HashMap<>();
+        final int start = path.indexOf('?');
+        if (start < 0) {
+            return query;
+        }
+        for (final String parameter : path.substring(start + 1).split("&")) {
+            final int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+            }
+        }
+        return query;
+    }
+
+    private static String decode(final String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Channel {
+
+        private volatile WebSocket master;
+
+        private final Map<String, WebSocket> viewers = new ConcurrentHashMap<>();
+    }
+
+    private final class MasterListener extends WebSocketListener {
+
+        private final Channel channel;
+
+        MasterListener(final Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void onOpen(final WebSocket webSocket, final Response response) {
+            final WebSocket previous = channel.master;
+            channel.master = webSocket;
+            if (previous != null) {
+                // The service keeps one master per channel, the newest connection wins
+                previous.close(NORMAL_CLOSURE, "Replaced by a new master connection");
+            }
+        }
+
+        @Override
+        public void onMessage(final WebSocket webSocket, final String text) {
+            final Inbound inbound = parse(webSocket, text);
+            if (inbound != null) {
+                deliver(inbound.recipientClientId == null ? null : channel.viewers.get(inbound.recipientClientId),
+                        "", inbound);
+            }
+        }
+
+        @Override
+        public void onClosing(final WebSocket webSocket, final int code, final String reason) {
+            webSocket.close(NORMAL_CLOSURE, null);
+        }
+
+        @Override
+        public void onClosed(final WebSocket webSocket, final int code, final String reason) {
+            leave(webSocket);
+        }
+
+        @Override
+        public void onFailure(final WebSocket webSocket, final Throwable t, final Response response) {
+            leave(webSocket);
+        }
+
+        private void leave(final WebSocket webSocket) {
+            if (channel.master == webSocket) {
+                channel.master = null;
+            }
+        }
+    }
+
+    private final class ViewerListener extends WebSocketListener {
+
+        private final Channel channel;
+        private final String clientId;
+
+        ViewerListener(final Channel channel, final String clientId) {
+            this.channel = channel;
+            this.clientId = clientId;
+        }
+
+        @Override
+        public void onOpen(final WebSocket webSocket, final Response response) {
+            final WebSocket previous = channel.viewers.put(clientId, webSocket);
+            if (previous != null) {
+                previous.close(NORMAL_CLOSURE, "Replaced by a new connection with the same client id");
+            }
+        }
+
+        @Override
+        public void onMessage(final WebSocket webSocket, final String text) {
+            final Inbound inbound = parse(webSocket, text);
+            if (inbound != null) {
+                deliver(channel.master, clientId, inbound);
+            }
+        }
+
+        @Override
+        public void onClosing(final WebSocket webSocket, final int code, final String reason) {
+            webSocket.close(NORMAL_CLOSURE, null);
+        }
+
+        @Override
+        public void onClosed(final WebSocket webSocket, final int code, final String reason) {
+            channel.viewers.remove(clientId, webSocket);
+        }
+
+        @Override
+        public void onFailure(final WebSocket webSocket, final Throwable t, final Response response) {
+            channel.viewers.remove(clientId, webSocket);
+        }
+    }
+
+    // Shape of Message as sent by the clients
+    private static final class Inbound {
+
+        private String action;
+        private String recipientClientId;
+        private String messagePayload;
+    }
+
+    // Shape of Event as delivered by the service
+    private static final class Outbound {
+
+        private final String senderClientId;
+        private final String messageType;
+        private final String messagePayload;
+
+        Outbound(final String senderClientId, final String messageType, final String messagePayload) {
+            this.senderClientId = senderClientId;
+            this.messageType = messageType;
+            this.messagePayload = messagePayload;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package android.util;
+
+/**
+ * JVM stand-in for android.util.Base64 backed by java.util.Base64, covering the flags used by the signaling code.
+ */
+public final class Base64 {
+
+    public static final int DEFAULT = 0;
+    public static final int NO_PADDING = 1;
+    public static final int NO_WRAP = 2;
+    public static final int CRLF = 4;
+    public static final int URL_SAFE = 8;
+
+    public static byte[] decode(final String str, final int flags) {
+        return decode(str.getBytes(), flags);
+    }
+
+    public static byte[] decode(final byte[] input, final int flags) {
+        if ((flags & URL_SAFE) != 0) {
+            return java.util.Base64.getUrlDecoder().decode(input);
+        }
+        return java.util.Base64.getMimeDecoder().decode(input);
+    }
+
+    public static byte[] encode(final byte[] input, final int flags) {
+        java.util.Base64.Encoder encoder = (flags & URL_SAFE) != 0
+                ? java.util.Base64.getUrlEncoder()
+                : (flags & NO_WRAP) != 0 ? java.util.Base64.getEncoder() : java.util.Base64.getMimeEncoder();
+        if ((flags & NO_PADDING) != 0) {
+            encoder = encoder.withoutPadding();
+        }
+        return encoder.encode(input);
+    }
+
+    public static String encodeToString(final byte[] input, final int flags) {
+        return new String(encode(input, flags));
+    }
+
+    private Base64() {
+    }
+}
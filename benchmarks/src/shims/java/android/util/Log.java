@@ -0,0 +1,46 @@
+package android.util;
+
+/**
+ * JVM stand-in for android.util.Log. Messages are dropped, but callers still pay for building them, as on a device.
+ */
+public final class Log {
+
+    public static int v(final String tag, final String msg) {
+        return 0;
+    }
+
+    public static int d(final String tag, final String msg) {
+        return 0;
+    }
+
+    public static int i(final String tag, final String msg) {
+        return 0;
+    }
+
+    public static int w(final String tag, final String msg) {
+        return 0;
+    }
+
+    public static int w(final String tag, final Throwable tr) {
+        return 0;
+    }
+
+    public static int w(final String tag, final String msg, final Throwable tr) {
+        return 0;
+    }
+
+    public static int e(final String tag, final String msg) {
+        return 0;
+    }
+
+    public static int e(final String tag, final String msg, final Throwable tr) {
+        return 0;
+    }
+
+    public static boolean isLoggable(final String tag, final int level) {
+        return false;
+    }
+
+    private Log() {
+    }
+}
@@ -0,0 +1,24 @@
+package org.webrtc;
+
+/**
+ * JVM stand-in for the org.webrtc.IceCandidate value class.
+ */
+public class IceCandidate {
+
+    public final String sdpMid;
+    public final int sdpMLineIndex;
+    public final String sdp;
+    public final String serverUrl;
+
+    public IceCandidate(final String sdpMid, final int sdpMLineIndex, final String sdp) {
+        this.sdpMid = sdpMid;
+        this.sdpMLineIndex = sdpMLineIndex;
+        this.sdp = sdp;
+        this.serverUrl = "";
+    }
+
+    @Override
+    public String toString() {
+        return sdpMid + ":" + sdpMLineIndex + ":" + sdp + ":" + serverUrl;
+    }
+}
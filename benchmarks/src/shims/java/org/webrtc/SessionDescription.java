@@ -0,0 +1,23 @@
+package org.webrtc;
+
+/**
+ * JVM stand-in for the org.webrtc.SessionDescription value class.
+ */
+public class SessionDescription {
+
+    public enum Type {
+        OFFER, PRANSWER, ANSWER;
+
+        public String canonicalForm() {
+            return name().toLowerCase();
+        }
+    }
+
+    public final Type type;
+    public final String description;
+
+    public SessionDescription(final Type type, final String description) {
+        this.type = type;
+        this.description = description;
+    }
+}
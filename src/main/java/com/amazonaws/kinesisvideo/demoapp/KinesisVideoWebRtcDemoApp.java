@@ -4,12 +4,14 @@ import android.app.Application;
 import android.util.Log;
 
 import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.kinesisvideo.demoapp.util.CastTimeline;
 import com.amazonaws.kinesisvideo.common.logging.LogLevel;
 import com.amazonaws.kinesisvideo.common.logging.OutputChannel;
 import com.amazonaws.mobile.client.AWSMobileClient;
 import com.amazonaws.mobile.client.Callback;
 import com.amazonaws.mobile.client.UserStateDetails;
 import com.amazonaws.mobile.config.AWSConfiguration;
+import com.amazonaws.kinesisvideo.utils.StartupTimeline;
 import com.amazonaws.mobileconnectors.kinesisvideo.util.AndroidLogOutputChannel;
 
 import org.json.JSONException;
@@ -44,16 +46,19 @@ public class KinesisVideoWebRtcDemoApp extends Application {
         super.onCreate();
 
         final CountDownLatch latch = new CountDownLatch(1);
+        CastTimeline.TIMELINE.begin(StartupTimeline.Stage.MOBILE_CLIENT_INIT);
         AWSMobileClient.getInstance().initialize(getApplicationContext(), new Callback<UserStateDetails>() {
             @Override
             public void onResult(UserStateDetails result) {
                 Log.d(TAG, "onResult: user state: " + result.getUserState());
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.MOBILE_CLIENT_INIT);
                 latch.countDown();
             }
 
             @Override
             public void onError(Exception e) {
                 Log.e(TAG, "onError: Initialization error of the mobile client", e);
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.MOBILE_CLIENT_INIT);
                 latch.countDown();
             }
         });
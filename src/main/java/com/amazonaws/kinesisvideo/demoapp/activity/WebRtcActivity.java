@@ -9,7 +9,9 @@ import android.graphics.BitmapFactory;
 import android.media.AudioManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.util.Base64;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.MotionEvent;
@@ -26,17 +28,29 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSSessionCredentials;
 import com.amazonaws.kinesisvideo.demoapp.KinesisVideoWebRtcDemoApp;
 import com.amazonaws.kinesisvideo.demoapp.R;
+import com.amazonaws.kinesisvideo.demoapp.util.CastTimeline;
+import com.amazonaws.kinesisvideo.demoapp.util.CpuLoadSampler;
 import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
 import com.amazonaws.kinesisvideo.signaling.model.Event;
 import com.amazonaws.kinesisvideo.signaling.model.Message;
-import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingServiceWebSocketClient;
-import com.amazonaws.kinesisvideo.utils.AwsV4Signer;
+import com.amazonaws.kinesisvideo.signaling.tyrus.ReconnectingSignalingClient;
+import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingRuntime;
+import com.amazonaws.kinesisvideo.utils.AdmissionController;
+import com.amazonaws.kinesisvideo.utils.PendingIceCandidates;
+import com.amazonaws.kinesisvideo.utils.SdpCodecOrder;
+import com.amazonaws.kinesisvideo.utils.PresignedUriSupplier;
+import com.amazonaws.kinesisvideo.utils.SerialExecutor;
+import com.amazonaws.kinesisvideo.utils.StartupTimeline;
+import com.amazonaws.kinesisvideo.utils.VideoLayerLadder;
+import com.amazonaws.kinesisvideo.webrtc.FirstFrameWatcher;
 import com.amazonaws.kinesisvideo.webrtc.KinesisVideoPeerConnection;
 import com.amazonaws.kinesisvideo.webrtc.KinesisVideoSdpObserver;
+import com.amazonaws.kinesisvideo.webrtc.VideoCodecSupport;
+import com.amazonaws.kinesisvideo.webrtc.EncodingProfile;
+import com.amazonaws.kinesisvideo.webrtc.VideoLayerController;
 
 import org.webrtc.AudioSource;
 import org.webrtc.AudioTrack;
@@ -56,6 +70,7 @@ import org.webrtc.PeerConnectionFactory;
 import org.webrtc.RTCStats;
 import org.webrtc.RTCStatsCollectorCallback;
 import org.webrtc.RTCStatsReport;
+import org.webrtc.RtpSender;
 import org.webrtc.SessionDescription;
 import org.webrtc.SurfaceTextureHelper;
 import org.webrtc.SurfaceViewRenderer;
@@ -72,7 +87,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static com.amazonaws.kinesisvideo.demoapp.fragment.StreamWebRtcConfigurationFragment.KEY_CAMERA_FRONT_FACING;
 import static com.amazonaws.kinesisvideo.demoapp.fragment.StreamWebRtcConfigurationFragment.KEY_CHANNEL_ARN;
@@ -98,8 +117,20 @@ public class WebRtcActivity extends AppCompatActivity {
     private static final String CHANNEL_ID = "WebRtcDataChannel";
     private static final boolean ENABLE_INTEL_VP8_ENCODER = true;
     private static final boolean ENABLE_H264_HIGH_PROFILE = true;
-
-    private static volatile SignalingServiceWebSocketClient client;
+    private static final long SIGNALING_CONNECT_TIMEOUT_MILLIS = 10000;
+    // Viewer admission, see AdmissionController. There is one peer connection, so one viewer at a time.
+    private static final long UPLINK_BUDGET_BPS = 4_000_000;
+    private static final int MAX_VIEWER_BITRATE_BPS = 1_200_000;
+    private static final int MIN_VIEWER_BITRATE_BPS = 150_000;
+    private static final int ENCODER_SLOTS = 1;
+    private static final double MAX_CPU_LOAD = 0.8;
+    // Candidates held, remote ones until the remote description is applied and local ones until the remote side
+    // has been sent our offer or answer
+    private static final int MAX_PENDING_ICE_CANDIDATES = 64;
+    // Candidates gathered by the connection before it negotiates, the master creates it ahead of any viewer
+    private static final int ICE_CANDIDATE_POOL_SIZE = 1;
+
+    private static volatile ReconnectingSignalingClient client;
     private PeerConnectionFactory peerConnectionFactory;
 
     private VideoSource videoSource;
@@ -116,6 +147,41 @@ public class WebRtcActivity extends AppCompatActivity {
 
     private PeerConnection localPeer;
 
+    // localPeer and recipientClientId are only touched from tasks of this loop, signaling and peer connection
+    // callbacks hand their work over instead of running it on the socket or WebRTC threads
+    private final ExecutorService peerEventPool = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "peer-events");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final SerialExecutor peerEvents = new SerialExecutor("localPeer", peerEventPool);
+
+    private final AdmissionController admission = new AdmissionController(UPLINK_BUDGET_BPS,
+            MAX_VIEWER_BITRATE_BPS, MIN_VIEWER_BITRATE_BPS, ENCODER_SLOTS, MAX_CPU_LOAD);
+
+    private final CpuLoadSampler cpuLoadSampler = new CpuLoadSampler();
+
+    // Viewer holding the encoder slot, touched from signaling callbacks only
+    private volatile String admittedViewerId;
+
+    // Caps the video sender to the viewer's share of the uplink, touched from peerEvents only
+    private VideoLayerController videoBitrate;
+
+    // Camera content unless switched with setEncodingProfile
+    private volatile EncodingProfile encodingProfile = EncodingProfile.CAMERA;
+
+    // Touched from peerEvents only, like localPeer
+    private PendingIceCandidates<IceCandidate> remoteCandidates;
+    private PendingIceCandidates<IceCandidate> localCandidates;
+    private long negotiationStartMillis;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private VideoCodecSupport codecSupport;
+
     private EglBase rootEglBase = null;
     private VideoCapturer videoCapturer;
 
@@ -141,77 +207,104 @@ public class WebRtcActivity extends AppCompatActivity {
 
     private boolean mCameraFacingFront = true;
 
-    private AWSCredentials mCreds = null;
+    private PresignedUriSupplier presignedUriSupplier;
 
     private void initWsConnection() {
 
-        final String masterEndpoint = mWssEndpoint + "?X-Amz-ChannelARN=" + mChannelArn;
-
-        final String viewerEndpoint = mWssEndpoint + "?X-Amz-ChannelARN=" + mChannelArn + "&X-Amz-ClientId=" + mClientId;
-
-        URI signedUri;
-
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                mCreds = KinesisVideoWebRtcDemoApp.getCredentialsProvider().getCredentials();
-            }
-        });
-
-        signedUri = getSignedUri(masterEndpoint, viewerEndpoint);
-
         if (master) {
-            createLocalPeerConnection();
+            peerEvents.execute(new Runnable() {
+                @Override
+                public void run() {
+                    createLocalPeerConnection();
+                }
+            });
         }
 
-        final String wsHost = signedUri.toString();
-
         final SignalingListener signalingListener = new SignalingListener() {
 
             @Override
             public void onSdpOffer(final Event offerEvent) {
-                Log.d(TAG, "Received SDP Offer: Setting Remote Description ");
+                CastTimeline.TIMELINE.mark(StartupTimeline.Stage.OFFER_RECEIVED);
+                admission.setCpuLoad(cpuLoadSampler.sample());
+                // There is one peer connection and the offer renegotiates it for the new viewer, so the viewer
+                // served so far gives up its slot. Otherwise a viewer that reloaded with a new client id would be
+                // turned away until ICE notices its previous connection is gone.
+                final String viewerId = offerEvent.getSenderClientId();
+                final String previousViewerId = admittedViewerId;
+                final boolean replacing = previousViewerId != null && !previousViewerId.equals(viewerId);
+                if (replacing) {
+                    admission.release(previousViewerId);
+                }
+                if (admission.admit(viewerId) == AdmissionController.Decision.REJECTED) {
+                    // The viewer is not answered and gives up after its own timeout, the previous one keeps the
+                    // connection
+                    Log.w(TAG, "Viewer " + viewerId + " not admitted");
+                    if (replacing) {
+                        admission.admit(previousViewerId);
+                    }
+                    return;
+                }
+                if (replacing) {
+                    Log.d(TAG, "Viewer " + viewerId + " replaces viewer " + previousViewerId);
+                }
+                admittedViewerId = viewerId;
+
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.d(TAG, "Received SDP Offer: Setting Remote Description ");
+
+                        final String sdp = Event.parseOfferEvent(offerEvent);
 
-                final String sdp = Event.parseOfferEvent(offerEvent);
+                        negotiationStartMillis = SystemClock.elapsedRealtime();
+                        setRemoteDescription(new SessionDescription(SessionDescription.Type.OFFER, sdp));
 
-                localPeer.setRemoteDescription(new KinesisVideoSdpObserver(),
-                        new SessionDescription(SessionDescription.Type.OFFER, sdp));
+                        recipientClientId = offerEvent.getSenderClientId();
 
-                recipientClientId = offerEvent.getSenderClientId();
+                        if (videoBitrate != null) {
+                            videoBitrate.setBitrateCap(admission.getBitrateCapBps(recipientClientId));
+                        }
 
-                Log.d(TAG, "Received SDP offer: Creating answer");
+                        Log.d(TAG, "Received SDP offer: Creating answer");
 
-                createSdpAnswer();
+                        createSdpAnswer();
+                    }
+                });
             }
 
             @Override
             public void onSdpAnswer(final Event answerEvent) {
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.d(TAG, "SDP answer received from signaling");
 
-                Log.d(TAG, "SDP answer received from signaling");
-
-                final String sdp = Event.parseSdpEvent(answerEvent);
-
-                final SessionDescription sdpAnswer = new SessionDescription(SessionDescription.Type.ANSWER, sdp);
+                        final String sdp = Event.parseSdpEvent(answerEvent);
 
-                localPeer.setRemoteDescription(new KinesisVideoSdpObserver(), sdpAnswer);
+                        final SessionDescription sdpAnswer = new SessionDescription(SessionDescription.Type.ANSWER, sdp);
 
+                        setRemoteDescription(sdpAnswer);
+                    }
+                });
             }
 
             @Override
-            public void onIceCandidate(Event message) {
-
-                Log.d(TAG, "Received IceCandidate from remote ");
-
-                final IceCandidate iceCandidate = Event.parseIceCandidate(message);
+            public void onIceCandidate(final Event message) {
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.d(TAG, "Received IceCandidate from remote ");
 
-                if(iceCandidate != null) {
-                    // Remote sent us ICE candidates, add to local peer connection
-                    final boolean addIce = localPeer.addIceCandidate(iceCandidate);
+                        final IceCandidate iceCandidate = Event.parseIceCandidate(message);
 
-                    Log.d(TAG, "Added ice candidate " + iceCandidate + " " + (addIce ? "Successfully" : "Failed"));
-                } else {
-                    Log.e(TAG, "Invalid Ice candidate");
-                }
+                        if(iceCandidate != null) {
+                            // Remote sent us ICE candidates, add to local peer connection
+                            addRemoteCandidate(iceCandidate);
+                        } else {
+                            Log.e(TAG, "Invalid Ice candidate");
+                        }
+                    }
+                });
             }
 
             @Override
@@ -224,41 +317,87 @@ public class WebRtcActivity extends AppCompatActivity {
             @Override
             public void onException(Exception e) {
                 Log.e(TAG, "Signaling client returned exception " + e.getMessage());
+                SignalingTrace.dump();
+                CastTimeline.dump(WebRtcActivity.this);
                 gotException = true;
             }
         };
 
 
-        if (wsHost != null) {
-            try {
-                client = new SignalingServiceWebSocketClient(wsHost, signalingListener, Executors.newFixedThreadPool(10));
-
-                Log.d(TAG, "Client connection " + (client.isOpen() ? "Successful" : "Failed"));
-            } catch (Exception e) {
-                gotException = true;
+        // The URI is signed ahead of time in the background, see onCreate, and signed again for every reconnect
+        client = new ReconnectingSignalingClient(new Supplier<URI>() {
+            @Override
+            public URI get() {
+                CastTimeline.TIMELINE.begin(StartupTimeline.Stage.SIGN_URI);
+                final URI uri = presignedUriSupplier.getSignedUri(master);
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.SIGN_URI);
+                CastTimeline.TIMELINE.begin(StartupTimeline.Stage.WEBSOCKET_OPEN);
+                return uri;
+            }
+        }, signalingListener, SignalingRuntime.acquire(), new ReconnectingSignalingClient.ConnectionListener() {
+            @Override
+            public void onConnected(final boolean reconnected) {
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.WEBSOCKET_OPEN);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onSignalingConnected(reconnected);
+                    }
+                });
             }
 
-            if (isValidClient()) {
-
-                Log.d(TAG, "Client connected to Signaling service " + client.isOpen());
-
-                if (!master) {
-                    Log.d(TAG, "Signaling service is connected: " +
-                            "Sending offer as viewer to remote peer"); // Viewer
+            @Override
+            public void onReconnecting(final int attempt, final long delayMillis, final Throwable cause) {
+                // Peer connections stay up, only signaling is re-established
+                Log.w(TAG, "Signaling disconnected, reconnect attempt " + attempt + " in " + delayMillis + " ms");
+            }
+        }, SIGNALING_CONNECT_TIMEOUT_MILLIS);
 
-                    createSdpOffer();
+        // Returns right away, the session is brought up in the background while local setup continues
+        client.connect().whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable throwable) {
+                if (throwable != null) {
+                    runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Log.e(TAG, "Error in connecting to signaling service " + throwable.getMessage());
+                            gotException = true;
+                            notifySignalingConnectionFailed();
+                        }
+                    });
                 }
-            } else {
-                Log.e(TAG, "Error in connecting to signaling service");
-                gotException = true;
             }
-        }
+        });
     }
 
     private boolean isValidClient() {
         return client != null && client.isOpen();
     }
 
+    private void onSignalingConnected(final boolean reconnected) {
+        if (!isValidClient()) {
+            // Torn down while the connection was being opened
+            return;
+        }
+
+        Log.d(TAG, "Client connected to Signaling service " + client.isOpen());
+        Toast.makeText(this, reconnected ? "Signaling Reconnected" : "Signaling Connected", Toast.LENGTH_LONG).show();
+
+        // After a reconnect the existing peer connection is kept, there is nothing to renegotiate
+        if (!master && !reconnected) {
+            Log.d(TAG, "Signaling service is connected: " +
+                    "Sending offer as viewer to remote peer"); // Viewer
+
+            peerEvents.execute(new Runnable() {
+                @Override
+                public void run() {
+                    createSdpOffer();
+                }
+            });
+        }
+    }
+
     @Override
     protected void onDestroy() {
         Thread.setDefaultUncaughtExceptionHandler(null);
@@ -276,15 +415,23 @@ public class WebRtcActivity extends AppCompatActivity {
             remoteView = null;
         }
 
-        if (localPeer != null) {
-            localPeer.dispose();
-            localPeer = null;
-        }
-
-        if (videoSource != null) {
-            videoSource.dispose();
-            videoSource = null;
-        }
+        // A peer event still running may be using the peer connection, the loop disposes the connection, and the
+        // video source it sends from, right after it instead of the main thread waiting for it
+        peerEvents.shutdown();
+        peerEvents.runWhenTerminated(new Runnable() {
+            @Override
+            public void run() {
+                if (localPeer != null) {
+                    localPeer.dispose();
+                    localPeer = null;
+                }
+                if (videoSource != null) {
+                    videoSource.dispose();
+                    videoSource = null;
+                }
+            }
+        });
+        peerEventPool.shutdown();
 
         if (videoCapturer != null) {
             try {
@@ -305,6 +452,11 @@ public class WebRtcActivity extends AppCompatActivity {
             client = null;
         }
 
+        if (presignedUriSupplier != null) {
+            presignedUriSupplier.stop();
+            presignedUriSupplier = null;
+        }
+
         finish();
 
         super.onDestroy();
@@ -314,14 +466,9 @@ public class WebRtcActivity extends AppCompatActivity {
     protected void onPostCreate(@Nullable Bundle savedInstanceState) {
         super.onPostCreate(savedInstanceState);
 
-        // Start websocket after adding local audio/video tracks
+        // Start websocket after adding local audio/video tracks, the connection result is reported
+        // from onSignalingConnected or notifySignalingConnectionFailed
         initWsConnection();
-
-        if (!gotException && isValidClient()) {
-            Toast.makeText(this, "Signaling Connected", Toast.LENGTH_LONG).show();
-        } else {
-            notifySignalingConnectionFailed();
-        }
     }
 
     private void notifySignalingConnectionFailed() {
@@ -352,6 +499,11 @@ public class WebRtcActivity extends AppCompatActivity {
         mRegion = intent.getStringExtra(KEY_REGION);
         mCameraFacingFront = intent.getBooleanExtra(KEY_CAMERA_FRONT_FACING, true);
 
+        // Fetch credentials and sign the signaling URIs while the camera and views are being set up
+        presignedUriSupplier = new PresignedUriSupplier(KinesisVideoWebRtcDemoApp.getCredentialsProvider(),
+                mWssEndpoint, mChannelArn, mClientId, mRegion);
+        presignedUriSupplier.start();
+
         rootEglBase = EglBase.create();
 
         //TODO: add ui to control TURN only option
@@ -384,10 +536,14 @@ public class WebRtcActivity extends AppCompatActivity {
                 .builder(this)
                 .createInitializationOptions());
 
+        final DefaultVideoEncoderFactory encoderFactory = new DefaultVideoEncoderFactory(
+                rootEglBase.getEglBaseContext(), ENABLE_INTEL_VP8_ENCODER, ENABLE_H264_HIGH_PROFILE);
+        codecSupport = VideoCodecSupport.probe(this, encoderFactory);
+
         peerConnectionFactory =
                 PeerConnectionFactory.builder()
                         .setVideoDecoderFactory(new DefaultVideoDecoderFactory(rootEglBase.getEglBaseContext()))
-                        .setVideoEncoderFactory(new DefaultVideoEncoderFactory(rootEglBase.getEglBaseContext(), ENABLE_INTEL_VP8_ENCODER, ENABLE_H264_HIGH_PROFILE))
+                        .setVideoEncoderFactory(encoderFactory)
                         .createPeerConnectionFactory();
 
         videoCapturer = createVideoCapturer();
@@ -472,18 +628,66 @@ public class WebRtcActivity extends AppCompatActivity {
         rtcConfig.keyType = PeerConnection.KeyType.ECDSA;
         rtcConfig.rtcpMuxPolicy = PeerConnection.RtcpMuxPolicy.REQUIRE;
         rtcConfig.tcpCandidatePolicy = PeerConnection.TcpCandidatePolicy.ENABLED;
+        // Gathers candidates right away instead of after the remote description is applied
+        rtcConfig.iceCandidatePoolSize = ICE_CANDIDATE_POOL_SIZE;
+
+        remoteCandidates = new PendingIceCandidates<>(MAX_PENDING_ICE_CANDIDATES);
+        // Without a viewer there is no recipient for them yet
+        localCandidates = new PendingIceCandidates<>(MAX_PENDING_ICE_CANDIDATES);
 
         localPeer = peerConnectionFactory.createPeerConnection(rtcConfig, new KinesisVideoPeerConnection() {
 
             @Override
-            public void onIceCandidate(IceCandidate iceCandidate) {
+            public void onIceCandidate(final IceCandidate iceCandidate) {
 
                 super.onIceCandidate(iceCandidate);
 
-                Message message = createIceCandidateMessage(iceCandidate);
-                Log.d(TAG, "Sending IceCandidate to remote peer " + iceCandidate.toString());
-                client.sendIceCandidate(message);  /* Send to Peer */
+                CastTimeline.TIMELINE.mark(StartupTimeline.Stage.FIRST_LOCAL_CANDIDATE);
 
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (localCandidates.isReady()) {
+                            sendCandidate(iceCandidate);
+                        } else if (!localCandidates.hold(iceCandidate)) {
+                            Log.w(TAG, "Dropped local ice candidate " + iceCandidate + ", "
+                                    + MAX_PENDING_ICE_CANDIDATES + " already pending");
+                        }
+                    }
+                });
+
+            }
+
+            @Override
+            public void onIceConnectionChange(final PeerConnection.IceConnectionState iceConnectionState) {
+
+                super.onIceConnectionChange(iceConnectionState);
+
+                if (iceConnectionState == PeerConnection.IceConnectionState.CONNECTED) {
+                    CastTimeline.TIMELINE.mark(StartupTimeline.Stage.ICE_CONNECTED);
+                    peerEvents.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            Log.i(TAG, "Connected after " + (SystemClock.elapsedRealtime() - negotiationStartMillis)
+                                    + " ms, " + remoteCandidates.getHeld() + " early candidate(s) held, "
+                                    + remoteCandidates.getDropped() + " dropped");
+                            watchFirstFrame();
+                        }
+                    });
+                }
+
+                if (iceConnectionState == PeerConnection.IceConnectionState.FAILED
+                        || iceConnectionState == PeerConnection.IceConnectionState.CLOSED) {
+                    peerEvents.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            // Lets the next viewer in
+                            if (recipientClientId != null) {
+                                admission.release(recipientClientId);
+                            }
+                        }
+                    });
+                }
             }
 
             @Override
@@ -569,27 +773,6 @@ public class WebRtcActivity extends AppCompatActivity {
         addStreamToLocalPeer();
     }
 
-    private Message createIceCandidateMessage(IceCandidate iceCandidate) {
-        String sdpMid = iceCandidate.sdpMid;
-        int sdpMLineIndex = iceCandidate.sdpMLineIndex;
-        String sdp = iceCandidate.sdp;
-
-        String messagePayload =
-                "{\"candidate\":\""
-                        + sdp
-                        + "\",\"sdpMid\":\""
-                        + sdpMid
-                        + "\",\"sdpMLineIndex\":"
-                        + sdpMLineIndex
-                        + "}";
-
-        String senderClientId = (master) ? "" : mClientId;
-
-        return new Message("ICE_CANDIDATE", recipientClientId, senderClientId,
-                new String(Base64.encode(messagePayload.getBytes(),
-                        Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP)));
-    }
-
     private void addStreamToLocalPeer() {
 
         MediaStream stream = peerConnectionFactory.createLocalMediaStream(LOCAL_MEDIA_STREAM_LABEL);
@@ -599,7 +782,14 @@ public class WebRtcActivity extends AppCompatActivity {
             Log.e(TAG, "Add video track failed");
         }
 
-        localPeer.addTrack(stream.videoTracks.get(0), Collections.singletonList(stream.getId()));
+        final RtpSender videoSender = localPeer.addTrack(stream.videoTracks.get(0),
+                Collections.singletonList(stream.getId()));
+
+        if (videoSender != null) {
+            videoBitrate = new VideoLayerController("viewer", videoSender,
+                    new VideoLayerLadder(new VideoLayerLadder.Layer("camera", 1.0, MAX_VIEWER_BITRATE_BPS)));
+            videoBitrate.setProfile(encodingProfile);
+        }
 
         if(isAudioSent) {
             if (!stream.addTrack(localAudioTrack)) {
@@ -615,6 +805,24 @@ public class WebRtcActivity extends AppCompatActivity {
 
     }
 
+    /**
+     * Switches how the video sender trades quality, for example to {@link EncodingProfile#SCREEN_SHARE} while the
+     * camera films a slide, without renegotiating. The demo has no control for it, it is meant for code building on
+     * this activity. The screen cast switches from its notification instead, see CaptureFGService.
+     */
+    public void setEncodingProfile(final EncodingProfile profile) {
+        Log.d(TAG, "Encoding profile " + profile);
+        encodingProfile = profile;
+        peerEvents.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (videoBitrate != null) {
+                    videoBitrate.setProfile(profile);
+                }
+            }
+        });
+    }
+
     private void addDataChannelToLocalPeer() {
         Log.d(TAG, "Data channel addDataChannelToLocalPeer");
         DataChannel localDataChannel = localPeer.createDataChannel("data-channel-of-" + mClientId, new DataChannel.Init());
@@ -645,17 +853,106 @@ public class WebRtcActivity extends AppCompatActivity {
             }
         });
 
-        sendDataChannelButton.setOnClickListener(new View.OnClickListener() {
+        // Runs on the peer event loop, views are only touched from the UI thread
+        runOnUiThread(new Runnable() {
             @Override
-            public void onClick(View view) {
-                localDataChannel.send(new DataChannel.Buffer(
-                        ByteBuffer.wrap(dataChannelText.getText().toString()
-                                .getBytes(Charset.defaultCharset())), false));
-                dataChannelText.setText("");
+            public void run() {
+                sendDataChannelButton.setOnClickListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View view) {
+                        localDataChannel.send(new DataChannel.Buffer(
+                                ByteBuffer.wrap(dataChannelText.getText().toString()
+                                        .getBytes(Charset.defaultCharset())), false));
+                        dataChannelText.setText("");
+                    }
+                });
             }
         });
     }
 
+    /**
+     * Applies an offer or answer of the remote side, remote candidates are held until it is set.
+     */
+    private void setRemoteDescription(final SessionDescription description) {
+        remoteCandidates.reset();
+        localPeer.setRemoteDescription(new KinesisVideoSdpObserver() {
+
+            @Override
+            public void onSetSuccess() {
+                super.onSetSuccess();
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        addPendingCandidates();
+                    }
+                });
+            }
+        }, description);
+    }
+
+    private void addRemoteCandidate(final IceCandidate iceCandidate) {
+        if (localPeer == null) {
+            Log.w(TAG, "Ignoring ice candidate " + iceCandidate + " without a peer connection");
+        } else if (remoteCandidates.isReady()) {
+            final boolean addIce = localPeer.addIceCandidate(iceCandidate);
+            Log.d(TAG, "Added ice candidate " + iceCandidate + " " + (addIce ? "Successfully" : "Failed"));
+        } else if (remoteCandidates.hold(iceCandidate)) {
+            Log.d(TAG, "Holding ice candidate " + iceCandidate + " until the remote description is set");
+        } else {
+            Log.w(TAG, "Dropped ice candidate " + iceCandidate + ", " + MAX_PENDING_ICE_CANDIDATES
+                    + " already pending");
+        }
+    }
+
+    private void addPendingCandidates() {
+        if (localPeer == null) {
+            return;
+        }
+        for (final IceCandidate iceCandidate : remoteCandidates.release()) {
+            final boolean addIce = localPeer.addIceCandidate(iceCandidate);
+            Log.d(TAG, "Added held ice candidate " + iceCandidate + " " + (addIce ? "Successfully" : "Failed"));
+        }
+    }
+
+    // Completes the bring-up timeline once the local camera is encoded for the remote side
+    private void watchFirstFrame() {
+        if (localPeer == null) {
+            return;
+        }
+        new FirstFrameWatcher(mainHandler, peerEvents, localPeer, new FirstFrameWatcher.Callback() {
+            @Override
+            public void onFirstFrame(final RTCStatsReport report) {
+                codecSupport.reportSendCodec(recipientClientId, report);
+                if (CastTimeline.TIMELINE.mark(StartupTimeline.Stage.FIRST_FRAME_ENCODED)) {
+                    CastTimeline.dump(WebRtcActivity.this);
+                }
+            }
+        }).start();
+    }
+
+    // Puts the codecs this device encodes in hardware first, the remote side sends and expects the first one
+    private SessionDescription preferCodecs(final SessionDescription description) {
+        return new SessionDescription(description.type, SdpCodecOrder.prefer(description.description, "video",
+                codecSupport.getPreferredCodecs()));
+    }
+
+    // Candidates gathered before the remote side had our offer or answer, in the order they were gathered
+    private void sendPendingCandidates() {
+        for (final IceCandidate iceCandidate : localCandidates.release()) {
+            sendCandidate(iceCandidate);
+        }
+    }
+
+    private void sendCandidate(final IceCandidate iceCandidate) {
+        if (!isValidClient()) {
+            Log.w(TAG, "Signaling not connected, dropping ice candidate " + iceCandidate);
+            return;
+        }
+        Message message = Message.createIceCandidateMessage(iceCandidate, master, recipientClientId, mClientId);
+        Log.d(TAG, "Sending IceCandidate to remote peer " + iceCandidate.toString());
+        client.sendIceCandidate(message);  /* Send to Peer */
+    }
+
     // when mobile sdk is viewer
     private void createSdpOffer() {
 
@@ -669,22 +966,36 @@ public class WebRtcActivity extends AppCompatActivity {
             createLocalPeerConnection();
         }
 
+        negotiationStartMillis = SystemClock.elapsedRealtime();
+
         localPeer.createOffer(new KinesisVideoSdpObserver() {
 
             @Override
-            public void onCreateSuccess(SessionDescription sessionDescription) {
+            public void onCreateSuccess(final SessionDescription sessionDescription) {
 
                 super.onCreateSuccess(sessionDescription);
 
-                localPeer.setLocalDescription(new KinesisVideoSdpObserver(), sessionDescription);
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final SessionDescription offer = preferCodecs(sessionDescription);
+                        localPeer.setLocalDescription(new KinesisVideoSdpObserver(), offer);
 
-                Message sdpOfferMessage = Message.createOfferMessage(sessionDescription, mClientId);
+                        Message sdpOfferMessage = Message.createOfferMessage(offer, mClientId);
 
-                if (isValidClient()) {
-                    client.sendSdpOffer(sdpOfferMessage);
-                } else {
-                    notifySignalingConnectionFailed();
-                }
+                        if (isValidClient()) {
+                            client.sendSdpOffer(sdpOfferMessage);
+                            sendPendingCandidates();
+                        } else {
+                            runOnUiThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    notifySignalingConnectionFailed();
+                                }
+                            });
+                        }
+                    }
+                });
             }
         }, sdpMediaConstraints);
     }
@@ -696,12 +1007,24 @@ public class WebRtcActivity extends AppCompatActivity {
         localPeer.createAnswer(new KinesisVideoSdpObserver() {
 
             @Override
-            public void onCreateSuccess(SessionDescription sessionDescription) {
+            public void onCreateSuccess(final SessionDescription sessionDescription) {
                 Log.d(TAG, "Creating answer : success");
                 super.onCreateSuccess(sessionDescription);
-                localPeer.setLocalDescription(new KinesisVideoSdpObserver(), sessionDescription);
-                Message answer = Message.createAnswerMessage(sessionDescription, master, recipientClientId);
-                client.sendSdpAnswer(answer);
+                peerEvents.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final SessionDescription preferred = preferCodecs(sessionDescription);
+                        localPeer.setLocalDescription(new KinesisVideoSdpObserver(), preferred);
+                        Message answer = Message.createAnswerMessage(preferred, master, recipientClientId);
+                        if (!isValidClient()) {
+                            Log.w(TAG, "Signaling closed before answering " + recipientClientId);
+                            return;
+                        }
+                        client.sendSdpAnswer(answer);
+                        CastTimeline.TIMELINE.mark(StartupTimeline.Stage.ANSWER_SENT);
+                        sendPendingCandidates();
+                    }
+                });
             }
         }, new MediaConstraints());
 
@@ -741,18 +1064,6 @@ public class WebRtcActivity extends AppCompatActivity {
     }
 
 
-    private URI getSignedUri(String masterEndpoint, String viewerEndpoint) {
-        URI signedUri;
-
-        if (master) {
-            signedUri = AwsV4Signer.sign(URI.create(masterEndpoint), mCreds.getAWSAccessKeyId(),
-                    mCreds.getAWSSecretKey(), mCreds instanceof AWSSessionCredentials ? ((AWSSessionCredentials) mCreds).getSessionToken() : "", URI.create(mWssEndpoint), mRegion);
-        } else {
-            signedUri = AwsV4Signer.sign(URI.create(viewerEndpoint), mCreds.getAWSAccessKeyId(),
-                    mCreds.getAWSSecretKey(), mCreds instanceof AWSSessionCredentials ? ((AWSSessionCredentials)mCreds).getSessionToken() : "", URI.create(mWssEndpoint), mRegion);
-        }
-        return signedUri;
-    }
 
     @SuppressLint("ClickableViewAccessibility")
     private void resizeLocalView() {
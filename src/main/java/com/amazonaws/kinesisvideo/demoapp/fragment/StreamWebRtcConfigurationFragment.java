@@ -32,6 +32,8 @@ import com.amazonaws.kinesisvideo.demoapp.KinesisVideoWebRtcDemoApp;
 import com.amazonaws.kinesisvideo.demoapp.R;
 import com.amazonaws.kinesisvideo.demoapp.activity.SimpleNavActivity;
 import com.amazonaws.kinesisvideo.demoapp.activity.WebRtcActivity;
+import com.amazonaws.kinesisvideo.demoapp.util.CastTimeline;
+import com.amazonaws.kinesisvideo.utils.StartupTimeline;
 
 import com.amazonaws.regions.Region;
 import com.amazonaws.services.kinesisvideo.AWSKinesisVideoClient;
@@ -384,6 +386,8 @@ public class StreamWebRtcConfigurationFragment extends Fragment {
         mEndpointList.clear();
         mIceServerList.clear();
         mChannelArn = null;
+        // Every cast starts by looking up the channel
+        CastTimeline.TIMELINE.newSession();
         UpdateSignalingChannelInfoTask task = new UpdateSignalingChannelInfoTask(this);
         try {
             task.execute(region, channelName, role).get();
@@ -411,6 +415,7 @@ public class StreamWebRtcConfigurationFragment extends Fragment {
                 return "Create client failed with " + e.getLocalizedMessage();
             }
 
+            CastTimeline.TIMELINE.begin(StartupTimeline.Stage.DESCRIBE_SIGNALING_CHANNEL);
             try {
                 DescribeSignalingChannelResult describeSignalingChannelResult = awsKinesisVideoClient.describeSignalingChannel(
                         new DescribeSignalingChannelRequest()
@@ -434,8 +439,11 @@ public class StreamWebRtcConfigurationFragment extends Fragment {
                 }
             } catch (Exception ex) {
                 return "Describe Signaling Channel failed with Exception " + ex.getLocalizedMessage();
+            } finally {
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.DESCRIBE_SIGNALING_CHANNEL);
             }
 
+            CastTimeline.TIMELINE.begin(StartupTimeline.Stage.GET_SIGNALING_CHANNEL_ENDPOINT);
             try {
                 GetSignalingChannelEndpointResult getSignalingChannelEndpointResult = awsKinesisVideoClient.getSignalingChannelEndpoint(
                         new GetSignalingChannelEndpointRequest()
@@ -449,6 +457,8 @@ public class StreamWebRtcConfigurationFragment extends Fragment {
                 mFragment.get().mEndpointList.addAll(getSignalingChannelEndpointResult.getResourceEndpointList());
             } catch (Exception e) {
                 return "Get Signaling Endpoint failed with Exception " + e.getLocalizedMessage();
+            } finally {
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.GET_SIGNALING_CHANNEL_ENDPOINT);
             }
 
             String dataEndpoint = null;
@@ -458,6 +468,7 @@ public class StreamWebRtcConfigurationFragment extends Fragment {
                 }
             }
 
+            CastTimeline.TIMELINE.begin(StartupTimeline.Stage.GET_ICE_SERVER_CONFIG);
             try {
                 final AWSKinesisVideoSignalingClient awsKinesisVideoSignalingClient = mFragment.get().getAwsKinesisVideoSignalingClient(region, dataEndpoint);
                 GetIceServerConfigResult getIceServerConfigResult = awsKinesisVideoSignalingClient.getIceServerConfig(
@@ -465,6 +476,8 @@ public class StreamWebRtcConfigurationFragment extends Fragment {
                 mFragment.get().mIceServerList.addAll(getIceServerConfigResult.getIceServerList());
             } catch (Exception e) {
                 return "Get Ice Server Config failed with Exception " + e.getLocalizedMessage();
+            } finally {
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.GET_ICE_SERVER_CONFIG);
             }
 
             return null;
@@ -11,26 +11,47 @@ import android.app.Service;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.media.projection.MediaProjection;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
-import android.util.Base64;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.WindowManager;
 import android.widget.Toast;
 
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSSessionCredentials;
 import com.amazonaws.kinesisvideo.demoapp.KinesisVideoWebRtcDemoApp;
 import com.amazonaws.kinesisvideo.demoapp.R;
 import com.amazonaws.kinesisvideo.demoapp.fragment.StreamWebRtcConfigurationFragment;
+import com.amazonaws.kinesisvideo.demoapp.util.CastTimeline;
+import com.amazonaws.kinesisvideo.demoapp.util.CpuLoadSampler;
 import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
 import com.amazonaws.kinesisvideo.signaling.model.Event;
 import com.amazonaws.kinesisvideo.signaling.model.Message;
-import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingServiceWebSocketClient;
-import com.amazonaws.kinesisvideo.utils.AwsV4Signer;
+import com.amazonaws.kinesisvideo.signaling.tyrus.ReconnectingSignalingClient;
+import com.amazonaws.kinesisvideo.signaling.tyrus.SignalingRuntime;
+import com.amazonaws.kinesisvideo.utils.AdmissionController;
+import com.amazonaws.kinesisvideo.utils.CaptureAdaptation;
+import com.amazonaws.kinesisvideo.utils.PendingIceCandidates;
+import com.amazonaws.kinesisvideo.utils.SdpCodecOrder;
+import com.amazonaws.kinesisvideo.utils.PresignedUriSupplier;
+import com.amazonaws.kinesisvideo.utils.SerialExecutor;
+import com.amazonaws.kinesisvideo.utils.StartupTimeline;
+import com.amazonaws.kinesisvideo.utils.VideoLayerLadder;
+import com.amazonaws.kinesisvideo.webrtc.FirstFrameWatcher;
 import com.amazonaws.kinesisvideo.webrtc.KinesisVideoPeerConnection;
 import com.amazonaws.kinesisvideo.webrtc.KinesisVideoSdpObserver;
+import com.amazonaws.kinesisvideo.webrtc.PeerStats;
+import com.amazonaws.kinesisvideo.webrtc.StaticScreenFilter;
+import com.amazonaws.kinesisvideo.webrtc.VideoCodecSupport;
+import com.amazonaws.kinesisvideo.webrtc.EncodingProfile;
+import com.amazonaws.kinesisvideo.webrtc.VideoLayerController;
 
+import org.webrtc.CapturerObserver;
 import org.webrtc.DataChannel;
 import org.webrtc.DefaultVideoDecoderFactory;
 import org.webrtc.DefaultVideoEncoderFactory;
@@ -44,6 +65,7 @@ import org.webrtc.PeerConnectionFactory;
 import org.webrtc.RTCStats;
 import org.webrtc.RTCStatsCollectorCallback;
 import org.webrtc.RTCStatsReport;
+import org.webrtc.RtpSender;
 import org.webrtc.ScreenCapturerAndroid;
 import org.webrtc.SessionDescription;
 import org.webrtc.SurfaceTextureHelper;
@@ -58,7 +80,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import androidx.core.app.NotificationCompat;
 
@@ -67,20 +96,103 @@ public class CaptureFGService extends Service{
     private static final String TAG = "CaptureFGService";
     private static final String VideoTrackID = "KvsVideoTrack";
     private static final String LOCAL_MEDIA_STREAM_LABEL = "KvsLocalMediaStream";
-    private static final int VIDEO_SIZE_WIDTH = 400;
-    private static final int VIDEO_SIZE_HEIGHT = 300;
+    // Capture follows the aspect ratio of the display up to this size, see CaptureAdaptation
+    private static final int MAX_CAPTURE_LONG_SIDE = 1280;
     private static final int VIDEO_FPS = 30;
+    // While the screen does not change one frame per interval is encoded instead of VIDEO_FPS, see StaticScreenFilter
+    private static final boolean ENABLE_STATIC_FRAME_SKIPPING = true;
+    private static final long STATIC_REFRESH_INTERVAL_MILLIS = 1000;
     private static final String CHANNEL_ID = "WebRtcDataChannel";
     private static final boolean ENABLE_INTEL_VP8_ENCODER = true;
     private static final boolean ENABLE_H264_HIGH_PROFILE = true;
-
-    private static volatile SignalingServiceWebSocketClient client;
+    private static final long SIGNALING_CONNECT_TIMEOUT_MILLIS = 10000;
+    // Key of the master in remotePeers when casting as a viewer, its messages carry no sender client id
+    private static final String MASTER_PEER_ID = "";
+    // Simulcast style layers, picked for every viewer from the bandwidth estimate of its own connection. Each viewer
+    // has an encoder of its own, so it is sent the one layer of the ladder that fits instead of all of them.
+    private static final boolean ENABLE_SIMULCAST_LAYERS = true;
+    private static final int MAX_VIEWER_BITRATE_BPS = 1_200_000;
+    private static final VideoLayerLadder VIDEO_LAYERS = ENABLE_SIMULCAST_LAYERS
+            ? VideoLayerLadder.screenCast()
+            : new VideoLayerLadder(new VideoLayerLadder.Layer("full", 1.0, MAX_VIEWER_BITRATE_BPS));
+    // Layers, bitrate caps and the CPU load are updated this often
+    private static final long PEER_UPDATE_INTERVAL_MILLIS = 2000;
+    // Viewer admission, see AdmissionController. Every viewer has an encoder of its own, and the uplink is shared.
+    private static final long UPLINK_BUDGET_BPS = 4_000_000;
+    private static final int MIN_VIEWER_BITRATE_BPS = 150_000;
+    private static final int ENCODER_SLOTS = 4;
+    private static final double MAX_CPU_LOAD = 0.8;
+    // Candidates held per peer, remote ones until its remote description is applied and local ones until it has
+    // been sent our offer or answer
+    private static final int MAX_PENDING_ICE_CANDIDATES = 64;
+    // Candidates gathered by a connection before it negotiates, see sparePeer
+    private static final int ICE_CANDIDATE_POOL_SIZE = 1;
+    // Id of the spare peer until a remote client takes it over
+    private static final String SPARE_PEER_ID = "spare";
+    // Switches the encoding profile of a running cast to the preset named in KEY_ENCODING_PROFILE, see EncodingProfile
+    public static final String ACTION_SET_ENCODING_PROFILE = "com.amazonaws.kinesisvideo.SET_ENCODING_PROFILE";
+    public static final String KEY_ENCODING_PROFILE = "encodingProfile";
+
+    private static volatile ReconnectingSignalingClient client;
     private PeerConnectionFactory peerConnectionFactory;
 
     private VideoSource videoSource;
     private VideoTrack localVideoTrack;
 
-    private PeerConnection localPeer;
+    // Remote peers by client id, see RemotePeer. Signaling and peer connection callbacks hand their work over to
+    // the event loop of the peer instead of running it on the socket or WebRTC threads.
+    private final ConcurrentHashMap<String, RemotePeer> remotePeers = new ConcurrentHashMap<>();
+
+    private final ExecutorService peerEventPool = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "peer-events");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // Connection opened ahead of the next remote client, so its STUN and TURN candidates are already gathered when
+    // the offer arrives. Taken over by openRemotePeer, which then opens the next one. Only kept when casting as
+    // master.
+    private final AtomicReference<RemotePeer> sparePeer = new AtomicReference<>();
+
+    private volatile boolean destroyed;
+
+    // Screen content unless switched with ACTION_SET_ENCODING_PROFILE
+    private volatile EncodingProfile encodingProfile = EncodingProfile.SCREEN_SHARE;
+
+    // Touched from the main thread only
+    private CaptureAdaptation captureAdaptation;
+
+    // Set before any peer is opened
+    private volatile VideoCodecSupport codecSupport;
+
+    private final AdmissionController admission = new AdmissionController(UPLINK_BUDGET_BPS,
+            MAX_VIEWER_BITRATE_BPS, MIN_VIEWER_BITRATE_BPS, ENCODER_SLOTS, MAX_CPU_LOAD);
+
+    private final CpuLoadSampler cpuLoadSampler = new CpuLoadSampler();
+
+    private final Runnable peerUpdate = new Runnable() {
+        @Override
+        public void run() {
+            final double cpuLoad = cpuLoadSampler.sample();
+            Log.d(TAG, "CPU load " + Math.round(cpuLoad * 100) + "%");
+            admission.setCpuLoad(cpuLoad);
+
+            for (final RemotePeer peer : remotePeers.values()) {
+                peer.events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        peer.updateVideoLayer();
+                    }
+                });
+            }
+            // From the stats of the previous round, the ones just requested arrive later
+            adaptCapture();
+            mainHandler.postDelayed(this, PEER_UPDATE_INTERVAL_MILLIS);
+        }
+    };
 
     private EglBase rootEglBase = null;
 
@@ -91,9 +203,6 @@ public class CaptureFGService extends Service{
 
     private boolean gotException = false;
 
-    private String recipientClientId;
-
-
     private boolean master = true;
 
 
@@ -104,75 +213,93 @@ public class CaptureFGService extends Service{
     private String mRegion;
 
 
-    private AWSCredentials mCreds = null;
+    private PresignedUriSupplier presignedUriSupplier;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private void initWsConnection() {
 
         Log.e(TAG,"initWsConnection()" );
 
-        final String masterEndpoint = mWssEndpoint + "?X-Amz-ChannelARN=" + mChannelArn;
-
-        final String viewerEndpoint = mWssEndpoint + "?X-Amz-ChannelARN=" + mChannelArn + "&X-Amz-ClientId=" + mClientId;
-
-        URI signedUri;
-
-        mCreds = KinesisVideoWebRtcDemoApp.getCredentialsProvider().getCredentials();
-
-
-        signedUri = getSignedUri(masterEndpoint, viewerEndpoint);
-
-        if (master) {
-            createLocalPeerConnection();
-        }
-
-        final String wsHost = signedUri.toString();
-
         final SignalingListener signalingListener = new SignalingListener() {
 
             @Override
             public void onSdpOffer(final Event offerEvent) {
-                Log.d(TAG, "Received SDP Offer: Setting Remote Description ");
+                CastTimeline.TIMELINE.mark(StartupTimeline.Stage.OFFER_RECEIVED);
+                final String viewerId = peerId(offerEvent.getSenderClientId());
+                if (admission.admit(viewerId) == AdmissionController.Decision.REJECTED) {
+                    // The viewer is not answered and gives up after its own timeout
+                    Log.w(TAG, "Viewer " + viewerId + " not admitted, serving " + admission.getViewerCount()
+                            + " viewer(s)");
+                    return;
+                }
+
+                final RemotePeer peer = openRemotePeer(viewerId);
+                if (peer == null) {
+                    // Shutting down, the viewer will not be served
+                    admission.release(viewerId);
+                    return;
+                }
 
-                final String sdp = Event.parseOfferEvent(offerEvent);
+                peer.events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.d(TAG, "Received SDP Offer from peer " + peer.id + ": Setting Remote Description ");
 
-                localPeer.setRemoteDescription(new KinesisVideoSdpObserver(),
-                        new SessionDescription(SessionDescription.Type.OFFER, sdp));
+                        final String sdp = Event.parseOfferEvent(offerEvent);
 
-                recipientClientId = offerEvent.getSenderClientId();
+                        peer.setRemoteDescription(new SessionDescription(SessionDescription.Type.OFFER, sdp));
 
-                Log.d(TAG, "Received SDP offer: Creating answer");
+                        Log.d(TAG, "Received SDP offer: Creating answer");
 
-                createSdpAnswer();
+                        peer.createSdpAnswer();
+                    }
+                });
             }
 
             @Override
             public void onSdpAnswer(final Event answerEvent) {
+                final RemotePeer peer = findRemotePeer(answerEvent);
+                if (peer == null) {
+                    return;
+                }
 
-                Log.d(TAG, "SDP answer received from signaling");
-
-                final String sdp = Event.parseSdpEvent(answerEvent);
+                peer.events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.d(TAG, "SDP answer received from signaling");
 
-                final SessionDescription sdpAnswer = new SessionDescription(SessionDescription.Type.ANSWER, sdp);
+                        final String sdp = Event.parseSdpEvent(answerEvent);
 
-                localPeer.setRemoteDescription(new KinesisVideoSdpObserver(), sdpAnswer);
+                        final SessionDescription sdpAnswer = new SessionDescription(SessionDescription.Type.ANSWER, sdp);
 
+                        peer.setRemoteDescription(sdpAnswer);
+                    }
+                });
             }
 
             @Override
-            public void onIceCandidate(Event message) {
-
-                Log.d(TAG, "Received IceCandidate from remote ");
+            public void onIceCandidate(final Event message) {
+                final RemotePeer peer = findRemotePeer(message);
+                if (peer == null) {
+                    return;
+                }
 
-                final IceCandidate iceCandidate = Event.parseIceCandidate(message);
+                peer.events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.d(TAG, "Received IceCandidate from remote peer " + peer.id);
 
-                if(iceCandidate != null) {
-                    // Remote sent us ICE candidates, add to local peer connection
-                    final boolean addIce = localPeer.addIceCandidate(iceCandidate);
+                        final IceCandidate iceCandidate = Event.parseIceCandidate(message);
 
-                    Log.d(TAG, "Added ice candidate " + iceCandidate + " " + (addIce ? "Successfully" : "Failed"));
-                } else {
-                    Log.e(TAG, "Invalid Ice candidate");
-                }
+                        if(iceCandidate != null) {
+                            // Remote sent us ICE candidates, add to its peer connection
+                            peer.addRemoteCandidate(iceCandidate);
+                        } else {
+                            Log.e(TAG, "Invalid Ice candidate");
+                        }
+                    }
+                });
             }
 
             @Override
@@ -185,65 +312,117 @@ public class CaptureFGService extends Service{
             @Override
             public void onException(Exception e) {
                 Log.e(TAG, "Signaling client returned exception " + e.getMessage());
+                SignalingTrace.dump();
+                CastTimeline.dump(CaptureFGService.this);
                 gotException = true;
             }
         };
 
 
-        if (wsHost != null) {
-            try {
-                client = new SignalingServiceWebSocketClient(wsHost, signalingListener, Executors.newFixedThreadPool(10));
-
-                Log.d(TAG, "Client connection " + (client.isOpen() ? "Successful" : "Failed"));
-            } catch (Exception e) {
-                gotException = true;
+        // The URI is signed ahead of time in the background, see onStartCommand, and signed again for every reconnect
+        client = new ReconnectingSignalingClient(new Supplier<URI>() {
+            @Override
+            public URI get() {
+                CastTimeline.TIMELINE.begin(StartupTimeline.Stage.SIGN_URI);
+                final URI uri = presignedUriSupplier.getSignedUri(master);
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.SIGN_URI);
+                CastTimeline.TIMELINE.begin(StartupTimeline.Stage.WEBSOCKET_OPEN);
+                return uri;
+            }
+        }, signalingListener, SignalingRuntime.acquire(), new ReconnectingSignalingClient.ConnectionListener() {
+            @Override
+            public void onConnected(final boolean reconnected) {
+                CastTimeline.TIMELINE.end(StartupTimeline.Stage.WEBSOCKET_OPEN);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onSignalingConnected(reconnected);
+                    }
+                });
             }
 
-            if (isValidClient()) {
-
-                Log.d(TAG, "Client connected to Signaling service " + client.isOpen());
-
-                if (!master) {
-                    Log.d(TAG, "Signaling service is connected: " +
-                            "Sending offer as viewer to remote peer"); // Viewer
+            @Override
+            public void onReconnecting(final int attempt, final long delayMillis, final Throwable cause) {
+                // Peer connections stay up, only signaling is re-established
+                Log.w(TAG, "Signaling disconnected, reconnect attempt " + attempt + " in " + delayMillis + " ms");
+            }
+        }, SIGNALING_CONNECT_TIMEOUT_MILLIS);
 
-                    createSdpOffer();
+        // Returns right away, the session is brought up in the background while local setup continues
+        client.connect().whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable throwable) {
+                if (throwable != null) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            Log.e(TAG, "Error in connecting to signaling service " + throwable.getMessage());
+                            gotException = true;
+                            notifySignalingConnectionFailed();
+                        }
+                    });
                 }
-            } else {
-                Log.e(TAG, "Error in connecting to signaling service");
-                gotException = true;
             }
-        }
-
-
+        });
     }
 
     private boolean isValidClient() {
         return client != null && client.isOpen();
     }
 
+    private void onSignalingConnected(final boolean reconnected) {
+        if (!isValidClient()) {
+            // Torn down while the connection was being opened
+            return;
+        }
+
+        Log.d(TAG, "Client connected to Signaling service " + client.isOpen());
+        Toast.makeText(this, reconnected ? "Signaling Reconnected" : "Signaling Connected", Toast.LENGTH_LONG).show();
+
+        // After a reconnect the existing peer connection is kept, there is nothing to renegotiate
+        if (!master && !reconnected) {
+            Log.d(TAG, "Signaling service is connected: " +
+                    "Sending offer as viewer to remote peer"); // Viewer
+
+            final RemotePeer peer = openRemotePeer(MASTER_PEER_ID);
+            if (peer != null) {
+                peer.events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        peer.createSdpOffer();
+                    }
+                });
+            }
+        }
+    }
+
     @Override
     public void onDestroy() {
         Thread.setDefaultUncaughtExceptionHandler(null);
 
         Log.d(TAG, "onDestroy ");
 
+        closeSession();
+        // Loops still running a task keep their thread until the task and the disposal behind it complete
+        peerEventPool.shutdown();
 
-        if (rootEglBase != null) {
-            rootEglBase.release();
-            rootEglBase = null;
-        }
-
+        super.onDestroy();
+    }
 
+    // Stops signaling, capture and every peer of the current cast. Nothing here waits for the peer loops, the
+    // video source, capture helper, factory and EGL context are released once the last connection is disposed.
+    private void closeSession() {
+        mainHandler.removeCallbacks(peerUpdate);
 
-        if (localPeer != null) {
-            localPeer.dispose();
-            localPeer = null;
+        // No offers for the peers being closed
+        if (client != null) {
+            client.disconnect();
+            client = null;
         }
 
-        if (videoSource != null) {
-            videoSource.dispose();
-            videoSource = null;
+        if (presignedUriSupplier != null) {
+            presignedUriSupplier.stop();
+            presignedUriSupplier = null;
         }
 
         if (videoCapturer != null) {
@@ -252,17 +431,38 @@ public class CaptureFGService extends Service{
             } catch (Exception e) {
                 Log.e(TAG, "Failed to stop webrtc video capture. ", e);
             }
+            videoCapturer.dispose();
             videoCapturer = null;
         }
+        captureAdaptation = null;
+
+        final VideoSource closedVideoSource = videoSource;
+        final SurfaceTextureHelper closedTextureHelper = surfaceTextureHelper;
+        final PeerConnectionFactory closedFactory = peerConnectionFactory;
+        final EglBase closedEglBase = rootEglBase;
+        videoSource = null;
+        localVideoTrack = null;
+        surfaceTextureHelper = null;
+        rootEglBase = null;
+        closeRemotePeers(new Runnable() {
+            @Override
+            public void run() {
+                if (closedVideoSource != null) {
+                    closedVideoSource.dispose();
+                }
+                if (closedTextureHelper != null) {
+                    closedTextureHelper.dispose();
+                }
+                if (closedFactory != null) {
+                    closedFactory.dispose();
+                }
+                if (closedEglBase != null) {
+                    closedEglBase.release();
+                }
+            }
+        });
 
-
-        if (client != null) {
-            client.disconnect();
-            client = null;
-        }
-
-
-        super.onDestroy();
+        peerIceServers.clear();
     }
 
     @androidx.annotation.Nullable
@@ -274,14 +474,8 @@ public class CaptureFGService extends Service{
     private void startWsConnection() {
         Log.d(TAG, "startWsConnection ");
 
-        // Start websocket after adding local audio/video tracks
+        // Connection result is reported from onSignalingConnected or notifySignalingConnectionFailed
         initWsConnection();
-
-        if (!gotException && isValidClient()) {
-            Toast.makeText(this, "Signaling Connected", Toast.LENGTH_LONG).show();
-        } else {
-            notifySignalingConnectionFailed();
-        }
     }
 
     private void notifySignalingConnectionFailed() {
@@ -308,11 +502,22 @@ public class CaptureFGService extends Service{
             manager.createNotificationChannel(channel);
 
         }
+        // Switches between the presets while casting, for example for a video played on the screen
+        final EncodingProfile nextProfile = encodingProfile == EncodingProfile.SCREEN_SHARE
+                ? EncodingProfile.CAMERA : EncodingProfile.SCREEN_SHARE;
+        Intent profileIntent = new Intent(this, CaptureFGService.class)
+                .setAction(ACTION_SET_ENCODING_PROFILE)
+                .putExtra(KEY_ENCODING_PROFILE, nextProfile.getName());
+        PendingIntent profilePendingIntent = PendingIntent.getService(this, 0, profileIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT);
+
         Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
                 .setContentTitle("Kinesis Screen Capturer")
                 .setContentText("Screen Casting.. If you want to stop, please touch this notification")
                 .setSmallIcon(R.mipmap.ic_launcher)
                 .setContentIntent(pendingIntent)
+                .addAction(R.mipmap.ic_launcher, nextProfile == EncodingProfile.CAMERA
+                        ? "Optimize for motion" : "Optimize for text", profilePendingIntent)
                 .build();
 
 
@@ -323,8 +528,44 @@ public class CaptureFGService extends Service{
     public int onStartCommand(Intent intent, int flags, int startId) {
         Log.e(TAG, "onStartCommand()");
 
+        if (intent == null) {
+            // Restarted by the system without the cast's configuration and screen capture permission
+            Log.w(TAG, "Started without an intent, nothing to cast");
+            stopSelf(startId);
+            return START_NOT_STICKY;
+        }
+
+        if (ACTION_SET_ENCODING_PROFILE.equals(intent.getAction())) {
+            if (peerConnectionFactory == null) {
+                // No cast to switch. Going to the foreground first keeps a startForegroundService caller from
+                // crashing the app once its deadline passes.
+                Log.w(TAG, "No cast running, ignoring encoding profile " + intent.getStringExtra(KEY_ENCODING_PROFILE));
+                runAsForeground();
+                stopForeground(true);
+                stopSelf(startId);
+                return START_NOT_STICKY;
+            }
+            final EncodingProfile profile = EncodingProfile.forName(intent.getStringExtra(KEY_ENCODING_PROFILE));
+            if (profile != null) {
+                setEncodingProfile(profile);
+                // Offers the other preset in the notification
+                runAsForeground();
+            } else {
+                Log.w(TAG, "Unknown encoding profile " + intent.getStringExtra(KEY_ENCODING_PROFILE));
+            }
+            return START_NOT_STICKY;
+        }
+
         runAsForeground();
 
+        if (peerConnectionFactory != null) {
+            // Started again while casting, possibly for another channel
+            Log.d(TAG, "Restarting cast, closing the previous session");
+            closeSession();
+            peerConnectionFactory = null;
+            destroyed = false;
+        }
+
         mChannelArn = intent.getStringExtra(StreamWebRtcConfigurationFragment.KEY_CHANNEL_ARN);
         mWssEndpoint = intent.getStringExtra(StreamWebRtcConfigurationFragment.KEY_WSS_ENDPOINT);
 
@@ -333,6 +574,10 @@ public class CaptureFGService extends Service{
             mClientId = UUID.randomUUID().toString();
         }
         master = intent.getBooleanExtra(StreamWebRtcConfigurationFragment.KEY_IS_MASTER, true);
+        final EncodingProfile profile = EncodingProfile.forName(intent.getStringExtra(KEY_ENCODING_PROFILE));
+        if (profile != null) {
+            encodingProfile = profile;
+        }
         ArrayList<String> mUserNames = intent.getStringArrayListExtra(StreamWebRtcConfigurationFragment.KEY_ICE_SERVER_USER_NAME);
         ArrayList<String> mPasswords = intent.getStringArrayListExtra(StreamWebRtcConfigurationFragment.KEY_ICE_SERVER_PASSWORD);
         ArrayList<List<String>> mUrisList = (ArrayList<List<String>>) intent.getSerializableExtra(StreamWebRtcConfigurationFragment.KEY_ICE_SERVER_URI);
@@ -340,6 +585,11 @@ public class CaptureFGService extends Service{
         mPermissionResultData = (Intent) intent.getParcelableExtra("PermissionResultData");
         mRegion = intent.getStringExtra(StreamWebRtcConfigurationFragment.KEY_REGION);
 
+        // Fetch credentials and sign the signaling URIs while the capture pipeline is being set up
+        presignedUriSupplier = new PresignedUriSupplier(KinesisVideoWebRtcDemoApp.getCredentialsProvider(),
+                mWssEndpoint, mChannelArn, mClientId, mRegion);
+        presignedUriSupplier.start();
+
         rootEglBase = EglBase.create();
 
 
@@ -369,29 +619,126 @@ public class CaptureFGService extends Service{
                 .builder(this)
                 .createInitializationOptions());
 
+        final DefaultVideoEncoderFactory encoderFactory = new DefaultVideoEncoderFactory(
+                rootEglBase.getEglBaseContext(), ENABLE_INTEL_VP8_ENCODER, ENABLE_H264_HIGH_PROFILE);
+        codecSupport = VideoCodecSupport.probe(this, encoderFactory);
+
         peerConnectionFactory =
                 PeerConnectionFactory.builder()
                         .setVideoDecoderFactory(new DefaultVideoDecoderFactory(rootEglBase.getEglBaseContext()))
-                        .setVideoEncoderFactory(new DefaultVideoEncoderFactory(rootEglBase.getEglBaseContext(), ENABLE_INTEL_VP8_ENCODER, ENABLE_H264_HIGH_PROFILE))
+                        .setVideoEncoderFactory(encoderFactory)
                         .createPeerConnectionFactory();
 
 
         videoSource = peerConnectionFactory.createVideoSource(true);
         localVideoTrack = peerConnectionFactory.createVideoTrack(VideoTrackID, videoSource);
 
-        startScreenCast();
+        // Starts gathering candidates for the first remote client while signaling connects
+        openSparePeer();
 
+        // Open signaling first so the websocket handshake overlaps with starting the screen capture
         startWsConnection();
 
+        mainHandler.postDelayed(peerUpdate, PEER_UPDATE_INTERVAL_MILLIS);
+
+        startScreenCast();
+
         return START_NOT_STICKY;
     }
     private void startScreenCast() {
         Log.d(TAG, "startScreenCast()");
         surfaceTextureHelper = SurfaceTextureHelper.create(Thread.currentThread().getName(), rootEglBase.getEglBaseContext());
 
+        final DisplayMetrics metrics = displayMetrics();
+        captureAdaptation = new CaptureAdaptation(metrics.widthPixels, metrics.heightPixels, MAX_CAPTURE_LONG_SIDE,
+                VIDEO_FPS);
+        final CaptureAdaptation.Format format = captureAdaptation.getCurrent();
+        Log.d(TAG, "Capturing display of " + metrics.widthPixels + "x" + metrics.heightPixels + " at " + format);
+
+        CapturerObserver capturerObserver = videoSource.getCapturerObserver();
+        if (ENABLE_STATIC_FRAME_SKIPPING) {
+            capturerObserver = new StaticScreenFilter(capturerObserver, STATIC_REFRESH_INTERVAL_MILLIS);
+        }
+
         videoCapturer = createScreenCapturerAndroid();
-        videoCapturer.initialize(surfaceTextureHelper, this.getApplicationContext(), videoSource.getCapturerObserver());
-        videoCapturer.startCapture(VIDEO_SIZE_WIDTH, VIDEO_SIZE_HEIGHT, VIDEO_FPS);
+        videoCapturer.initialize(surfaceTextureHelper, this.getApplicationContext(), capturerObserver);
+        videoCapturer.startCapture(format.getWidth(), format.getHeight(), format.getFps());
+    }
+
+    private DisplayMetrics displayMetrics() {
+        final DisplayMetrics metrics = new DisplayMetrics();
+        ((WindowManager) getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getRealMetrics(metrics);
+        return metrics;
+    }
+
+    @Override
+    public void onConfigurationChanged(final Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+
+        // A rotated display is captured in the new orientation instead of letterboxed into the old one
+        if (captureAdaptation != null && videoCapturer != null) {
+            final DisplayMetrics metrics = displayMetrics();
+            captureAdaptation.setDisplaySize(metrics.widthPixels, metrics.heightPixels);
+            applyCaptureFormat(captureAdaptation.getCurrent());
+        }
+    }
+
+    /**
+     * Applies the profile to the video sender of every peer, and to the ones opened later, without renegotiating.
+     */
+    private void setEncodingProfile(final EncodingProfile profile) {
+        Log.d(TAG, "Encoding profile " + profile);
+        encodingProfile = profile;
+
+        final List<RemotePeer> peers = new ArrayList<>(remotePeers.values());
+        final RemotePeer spare = sparePeer.get();
+        if (spare != null) {
+            peers.add(spare);
+        }
+        for (final RemotePeer peer : peers) {
+            peer.events.execute(new Runnable() {
+                @Override
+                public void run() {
+                    peer.setEncodingProfile(profile);
+                }
+            });
+        }
+    }
+
+    // One capture feeds every viewer, so it is sized for the best link. Viewers on worse links get a scaled down
+    // layer of it, see VideoLayerController, while CPU pressure from any of them lowers it for all.
+    private void adaptCapture() {
+        if (captureAdaptation == null || videoCapturer == null || remotePeers.isEmpty()) {
+            return;
+        }
+
+        double availableBitrateBps = 0;
+        String qualityLimitationReason = null;
+        boolean cpuLimited = false;
+        for (final RemotePeer peer : remotePeers.values()) {
+            cpuLimited |= "cpu".equals(peer.qualityLimitationReason);
+            if (peer.availableBitrateBps > availableBitrateBps) {
+                availableBitrateBps = peer.availableBitrateBps;
+                qualityLimitationReason = peer.qualityLimitationReason;
+            }
+        }
+
+        final CaptureAdaptation.Format previous = captureAdaptation.getCurrent();
+        final CaptureAdaptation.Format format = captureAdaptation.update(availableBitrateBps,
+                cpuLimited ? "cpu" : qualityLimitationReason);
+        if (format != previous) {
+            Log.d(TAG, "Capture adapted from " + previous + " to " + format + " for "
+                    + (long) availableBitrateBps / 1000 + " kbps, limited by " + qualityLimitationReason
+                    + (cpuLimited ? ", cpu" : ""));
+            applyCaptureFormat(format);
+        }
+    }
+
+    private void applyCaptureFormat(final CaptureAdaptation.Format format) {
+        // Resizes the virtual display the screen is mirrored to, no frames are captured above the new size
+        videoCapturer.changeCaptureFormat(format.getWidth(), format.getHeight(), format.getFps());
+        // The screen capturer delivers a frame whenever the screen changes, the source drops those above the rate
+        videoSource.adaptOutputFormat(format.getWidth(), format.getHeight(), format.getFps());
     }
 
     private static Intent mPermissionResultData;
@@ -411,206 +758,552 @@ public class CaptureFGService extends Service{
 
 
 
-    private void createLocalPeerConnection() {
-        Log.d(TAG, "createLocalPeerConnection()");
+    // Peer of a remote client, a new one replaces and closes a previous peer with the same id
+    private RemotePeer openRemotePeer(final String senderClientId) {
+        if (destroyed) {
+            return null;
+        }
 
-        PeerConnection.RTCConfiguration rtcConfig = new PeerConnection.RTCConfiguration(peerIceServers);
+        RemotePeer peer = sparePeer.getAndSet(null);
+        // A spare whose connection failed while waiting is closed already
+        final boolean warm = peer != null && !peer.events.isShutdown();
+        if (warm) {
+            peer.takeOver(peerId(senderClientId));
+        } else {
+            peer = new RemotePeer(peerId(senderClientId));
+        }
 
-        rtcConfig.bundlePolicy = PeerConnection.BundlePolicy.MAXBUNDLE;
-        rtcConfig.sdpSemantics = PeerConnection.SdpSemantics.UNIFIED_PLAN;
-        rtcConfig.continualGatheringPolicy = PeerConnection.ContinualGatheringPolicy.GATHER_CONTINUALLY;
-        rtcConfig.keyType = PeerConnection.KeyType.ECDSA;
-        rtcConfig.rtcpMuxPolicy = PeerConnection.RtcpMuxPolicy.REQUIRE;
-        rtcConfig.tcpCandidatePolicy = PeerConnection.TcpCandidatePolicy.ENABLED;
+        final RemotePeer previous = remotePeers.put(peer.id, peer);
+        if (previous != null) {
+            Log.d(TAG, "Peer " + peer.id + " connected again, closing its previous connection");
+            previous.close("replaced");
+        }
 
-        localPeer = peerConnectionFactory.createPeerConnection(rtcConfig, new KinesisVideoPeerConnection() {
+        if (destroyed) {
+            // onDestroy may have gone through the registry before this peer was added, and its pool may be shut
+            // down already, so the peer is disposed without going through its loop
+            remotePeers.remove(peer.id, peer);
+            final RemotePeer dropped = peer;
+            dropped.events.shutdown();
+            dropped.events.runWhenTerminated(new Runnable() {
+                @Override
+                public void run() {
+                    dropped.dispose();
+                }
+            });
+            return null;
+        }
 
-            @Override
-            public void onIceCandidate(IceCandidate iceCandidate) {
+        if (!warm) {
+            final RemotePeer opened = peer;
+            opened.events.execute(new Runnable() {
+                @Override
+                public void run() {
+                    opened.open();
+                }
+            });
+        }
+        // The next remote client finds a warm connection whether or not this one did
+        openSparePeer();
 
-                super.onIceCandidate(iceCandidate);
+        Log.d(TAG, "Serving " + remotePeers.size() + " remote peer(s), " + (warm ? "took over the spare peer"
+                : "no spare peer was ready"));
+        return peer;
+    }
 
-                Message message = createIceCandidateMessage(iceCandidate);
-                Log.d(TAG, "Sending IceCandidate to remote peer " + iceCandidate.toString());
-                client.sendIceCandidate(message);  /* Send to Peer */
+    // Opens a connection for the next remote client, unless one is waiting already. Only a master serves more
+    // than one remote client, a viewer has no use for a spare besides its single connection to the master.
+    private void openSparePeer() {
+        if (destroyed || !master) {
+            return;
+        }
 
-            }
+        final RemotePeer spare = new RemotePeer(SPARE_PEER_ID);
+        if (!sparePeer.compareAndSet(null, spare)) {
+            return;
+        }
+
+        if (destroyed) {
+            // closeRemotePeers may have looked for the spare before it was set
+            sparePeer.compareAndSet(spare, null);
+            return;
+        }
 
+        spare.events.execute(new Runnable() {
             @Override
-            public void onAddStream(MediaStream mediaStream) {
+            public void run() {
+                spare.open();
+            }
+        });
+    }
 
-                super.onAddStream(mediaStream);
+    private RemotePeer findRemotePeer(final Event event) {
+        final RemotePeer peer = remotePeers.get(peerId(event.getSenderClientId()));
+        if (peer == null) {
+            Log.w(TAG, "Dropping " + event.getMessageType() + " from unknown peer " + event.getSenderClientId());
+        }
+        return peer;
+    }
 
-                Log.d(TAG, "Adding remote video stream (and audio) to the view");
+    private static String peerId(final String senderClientId) {
+        return senderClientId == null ? MASTER_PEER_ID : senderClientId;
+    }
 
+    // Stops every peer loop and disposes the connections without waiting for them. A connection whose loop is
+    // still running a task is disposed by that loop once the task completes. onClosed runs after the last
+    // connection is disposed, on the calling thread or the loop that disposed it.
+    private void closeRemotePeers(final Runnable onClosed) {
+        destroyed = true;
+
+        final List<RemotePeer> peers = new ArrayList<>();
+        for (final RemotePeer peer : remotePeers.values()) {
+            if (remotePeers.remove(peer.id, peer)) {
+                admission.release(peer.id);
+                peers.add(peer);
             }
+        }
+        final RemotePeer spare = sparePeer.getAndSet(null);
+        if (spare != null) {
+            peers.add(spare);
+        }
 
-            @Override
-            public void onDataChannel(DataChannel dataChannel) {
-                super.onDataChannel(dataChannel);
+        for (final RemotePeer peer : peers) {
+            peer.events.shutdown();
+        }
 
-            }
-        });
+        final AtomicInteger open = new AtomicInteger(peers.size());
+        if (peers.isEmpty()) {
+            onClosed.run();
+        }
+        for (final RemotePeer peer : peers) {
+            peer.events.runWhenTerminated(new Runnable() {
+                @Override
+                public void run() {
+                    peer.dispose();
+                    if (open.decrementAndGet() == 0) {
+                        onClosed.run();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * One remote client and its own peer connection, a viewer when casting as master or the master otherwise.
+     *
+     * Every connection sends the same local video track, so the screen is captured and fed to the video source
+     * once however many viewers are connected. The connection is only touched from tasks of {@link #events}.
+     */
+    private final class RemotePeer {
+
+        // Final once the peer is taken over by a remote client, see takeOver
+        volatile String id;
+
+        final SerialExecutor events;
+
+        PeerConnection connection;
+
+        VideoLayerController videoLayers;
+
+        // Latest stats of the connection, read by adaptCapture on the main thread
+        volatile double availableBitrateBps;
+        volatile String qualityLimitationReason;
+
+        final PendingIceCandidates<IceCandidate> remoteCandidates =
+                new PendingIceCandidates<>(MAX_PENDING_ICE_CANDIDATES);
+
+        // Our candidates, sent once the remote client has our offer or answer
+        final PendingIceCandidates<IceCandidate> localCandidates =
+                new PendingIceCandidates<>(MAX_PENDING_ICE_CANDIDATES);
 
-        if (localPeer != null) {
+        // Start of the negotiation, for the time it takes to connect
+        volatile long openedAtMillis = SystemClock.elapsedRealtime();
 
-            localPeer.getStats(new RTCStatsCollectorCallback() {
+        RemotePeer(final String id) {
+            this.id = id;
+            this.events = new SerialExecutor("peer-" + id, peerEventPool);
+        }
+
+        /**
+         * Hands the spare peer to a remote client, before it is registered or told about the client's offer.
+         */
+        void takeOver(final String id) {
+            this.id = id;
+            this.openedAtMillis = SystemClock.elapsedRealtime();
+        }
+
+        // Recipient of our messages, a viewer sends to the master without one
+        String recipientClientId() {
+            return master ? id : null;
+        }
+
+        void open() {
+            Log.d(TAG, "createLocalPeerConnection() for peer " + id);
+
+            PeerConnection.RTCConfiguration rtcConfig = new PeerConnection.RTCConfiguration(peerIceServers);
+
+            rtcConfig.bundlePolicy = PeerConnection.BundlePolicy.MAXBUNDLE;
+            rtcConfig.sdpSemantics = PeerConnection.SdpSemantics.UNIFIED_PLAN;
+            rtcConfig.continualGatheringPolicy = PeerConnection.ContinualGatheringPolicy.GATHER_CONTINUALLY;
+            rtcConfig.keyType = PeerConnection.KeyType.ECDSA;
+            rtcConfig.rtcpMuxPolicy = PeerConnection.RtcpMuxPolicy.REQUIRE;
+            rtcConfig.tcpCandidatePolicy = PeerConnection.TcpCandidatePolicy.ENABLED;
+            // Gathers candidates right away instead of after the remote description is applied
+            rtcConfig.iceCandidatePoolSize = ICE_CANDIDATE_POOL_SIZE;
+
+            connection = peerConnectionFactory.createPeerConnection(rtcConfig, new KinesisVideoPeerConnection() {
 
                 @Override
-                public void onStatsDelivered(RTCStatsReport rtcStatsReport) {
+                public void onIceCandidate(final IceCandidate iceCandidate) {
 
-                    Map<String, RTCStats> statsMap = rtcStatsReport.getStatsMap();
+                    super.onIceCandidate(iceCandidate);
 
-                    Set<Map.Entry<String, RTCStats>> entries = statsMap.entrySet();
+                    CastTimeline.TIMELINE.mark(StartupTimeline.Stage.FIRST_LOCAL_CANDIDATE);
 
-                    for (Map.Entry<String, RTCStats> entry : entries) {
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (localCandidates.isReady()) {
+                                sendCandidate(iceCandidate);
+                            } else if (!localCandidates.hold(iceCandidate)) {
+                                Log.w(TAG, "Dropped local ice candidate " + iceCandidate + ", "
+                                        + MAX_PENDING_ICE_CANDIDATES + " already pending for peer " + id);
+                            }
+                        }
+                    });
 
-                        Log.d(TAG, "Stats: " + entry.getKey() + " ," + entry.getValue());
+                }
+
+                @Override
+                public void onIceConnectionChange(final PeerConnection.IceConnectionState iceConnectionState) {
+
+                    super.onIceConnectionChange(iceConnectionState);
+
+                    if (iceConnectionState == PeerConnection.IceConnectionState.CONNECTED) {
+                        CastTimeline.TIMELINE.mark(StartupTimeline.Stage.ICE_CONNECTED);
+                        events.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                Log.i(TAG, "Peer " + id + " connected after "
+                                        + (SystemClock.elapsedRealtime() - openedAtMillis) + " ms, "
+                                        + remoteCandidates.getHeld() + " early candidate(s) held, "
+                                        + remoteCandidates.getDropped() + " dropped");
+                                watchFirstFrame();
+                            }
+                        });
+                    }
 
+                    // Runs on a WebRTC thread, which must not dispose the connection itself
+                    if (iceConnectionState == PeerConnection.IceConnectionState.FAILED
+                            || iceConnectionState == PeerConnection.IceConnectionState.CLOSED) {
+                        close("ICE " + iceConnectionState);
                     }
                 }
-            });
-        }
 
-        addDataChannelToLocalPeer();
-        addStreamToLocalPeer();
-    }
+                @Override
+                public void onAddStream(MediaStream mediaStream) {
 
-    private Message createIceCandidateMessage(IceCandidate iceCandidate) {
-        Log.e(TAG, "createIceCandidateMessage()");
+                    super.onAddStream(mediaStream);
 
-        String sdpMid = iceCandidate.sdpMid;
-        int sdpMLineIndex = iceCandidate.sdpMLineIndex;
-        String sdp = iceCandidate.sdp;
+                    Log.d(TAG, "Adding remote video stream (and audio) to the view");
 
-        String messagePayload =
-                "{\"candidate\":\""
-                        + sdp
-                        + "\",\"sdpMid\":\""
-                        + sdpMid
-                        + "\",\"sdpMLineIndex\":"
-                        + sdpMLineIndex
-                        + "}";
+                }
 
-        String senderClientId = (master) ? "" : mClientId;
+                @Override
+                public void onDataChannel(DataChannel dataChannel) {
+                    super.onDataChannel(dataChannel);
 
-        return new Message("ICE_CANDIDATE", recipientClientId, senderClientId,
-                new String(Base64.encode(messagePayload.getBytes(),
-                        Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP)));
-    }
+                }
+            });
 
-    private void addStreamToLocalPeer() {
-        Log.e(TAG, "addStreamToLocalPeer()");
+            if (connection == null) {
+                Log.e(TAG, "Failed to create peer connection for peer " + id);
+                closeNow("not created");
+                return;
+            }
 
-        MediaStream stream = peerConnectionFactory.createLocalMediaStream(LOCAL_MEDIA_STREAM_LABEL);
+            connection.getStats(new RTCStatsCollectorCallback() {
 
-        if (!stream.addTrack(localVideoTrack)) {
+                @Override
+                public void onStatsDelivered(RTCStatsReport rtcStatsReport) {
 
-            Log.e(TAG, "Add video track failed");
-        }
+                    Map<String, RTCStats> statsMap = rtcStatsReport.getStatsMap();
 
-        localPeer.addTrack(stream.videoTracks.get(0), Collections.singletonList(stream.getId()));
+                    Set<Map.Entry<String, RTCStats>> entries = statsMap.entrySet();
 
+                    for (Map.Entry<String, RTCStats> entry : entries) {
 
+                        Log.d(TAG, "Stats: " + entry.getKey() + " ," + entry.getValue());
 
-    }
+                    }
+                }
+            });
 
-    private void addDataChannelToLocalPeer() {
-        Log.d(TAG, "Data channel addDataChannelToLocalPeer");
-        DataChannel localDataChannel = localPeer.createDataChannel("data-channel-of-" + mClientId, new DataChannel.Init());
-        localDataChannel.registerObserver(new DataChannel.Observer() {
-            @Override
-            public void onBufferedAmountChange(long l) {
-                Log.d(TAG, "Local Data Channel onBufferedAmountChange called with amount " + l);
-            }
+            addDataChannel();
+            addStream();
+        }
 
-            @Override
-            public void onStateChange() {
-                Log.d(TAG, "Local Data Channel onStateChange: state: " + localDataChannel.state().toString());
+        private void addStream() {
+            Log.d(TAG, "addStreamToLocalPeer() for peer " + id);
 
+            final RtpSender videoSender = connection.addTrack(localVideoTrack,
+                    Collections.singletonList(LOCAL_MEDIA_STREAM_LABEL));
 
+            if (videoSender != null) {
+                videoLayers = new VideoLayerController(id, videoSender, VIDEO_LAYERS);
+                videoLayers.setProfile(encodingProfile);
+                updateBitrateCap();
             }
+        }
 
-            @Override
-            public void onMessage(DataChannel.Buffer buffer) {
-                // Send out data, no op on sender side
+        void setEncodingProfile(final EncodingProfile profile) {
+            if (videoLayers != null) {
+                videoLayers.setProfile(profile);
             }
-        });
+        }
 
+        void updateVideoLayer() {
+            if (connection == null || videoLayers == null) {
+                return;
+            }
 
-    }
+            updateBitrateCap();
+
+            connection.getStats(new RTCStatsCollectorCallback() {
+                @Override
+                public void onStatsDelivered(final RTCStatsReport rtcStatsReport) {
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            videoLayers.onStats(rtcStatsReport);
+                            availableBitrateBps = PeerStats.availableOutgoingBitrate(rtcStatsReport);
+                            qualityLimitationReason = PeerStats.qualityLimitationReason(rtcStatsReport);
+                        }
+                    });
+                }
+            });
+        }
 
-    // when mobile sdk is viewer
-    private void createSdpOffer() {
-        Log.e(TAG, "createSdpOffer()");
+        private void addDataChannel() {
+            Log.d(TAG, "Data channel addDataChannelToLocalPeer");
+            DataChannel localDataChannel = connection.createDataChannel("data-channel-of-" + mClientId, new DataChannel.Init());
+            localDataChannel.registerObserver(new DataChannel.Observer() {
+                @Override
+                public void onBufferedAmountChange(long l) {
+                    Log.d(TAG, "Local Data Channel onBufferedAmountChange called with amount " + l);
+                }
 
-        MediaConstraints sdpMediaConstraints = new MediaConstraints();
+                @Override
+                public void onStateChange() {
+                    Log.d(TAG, "Local Data Channel onStateChange: state: " + localDataChannel.state().toString());
 
-        sdpMediaConstraints.mandatory.add(new MediaConstraints.KeyValuePair("OfferToReceiveVideo", "true"));
-        sdpMediaConstraints.mandatory.add(new MediaConstraints.KeyValuePair("OfferToReceiveAudio", "true"));
 
-        if (localPeer == null) {
+                }
+
+                @Override
+                public void onMessage(DataChannel.Buffer buffer) {
+                    // Send out data, no op on sender side
+                }
+            });
+
 
-            createLocalPeerConnection();
         }
 
-        localPeer.createOffer(new KinesisVideoSdpObserver() {
+        // when mobile sdk is viewer
+        void createSdpOffer() {
+            Log.e(TAG, "createSdpOffer()");
 
-            @Override
-            public void onCreateSuccess(SessionDescription sessionDescription) {
+            MediaConstraints sdpMediaConstraints = new MediaConstraints();
+
+            sdpMediaConstraints.mandatory.add(new MediaConstraints.KeyValuePair("OfferToReceiveVideo", "true"));
+            sdpMediaConstraints.mandatory.add(new MediaConstraints.KeyValuePair("OfferToReceiveAudio", "true"));
 
-                super.onCreateSuccess(sessionDescription);
+            connection.createOffer(new KinesisVideoSdpObserver() {
 
-                localPeer.setLocalDescription(new KinesisVideoSdpObserver(), sessionDescription);
+                @Override
+                public void onCreateSuccess(final SessionDescription sessionDescription) {
+
+                    super.onCreateSuccess(sessionDescription);
+
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            final SessionDescription offer = preferCodecs(sessionDescription);
+                            connection.setLocalDescription(new KinesisVideoSdpObserver(), offer);
+
+                            Message sdpOfferMessage = Message.createOfferMessage(offer, mClientId);
+
+                            if (isValidClient()) {
+                                client.sendSdpOffer(sdpOfferMessage);
+                                sendPendingCandidates();
+                            } else {
+                                mainHandler.post(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        notifySignalingConnectionFailed();
+                                    }
+                                });
+                            }
+                        }
+                    });
+                }
+            }, sdpMediaConstraints);
+        }
 
-                Message sdpOfferMessage = Message.createOfferMessage(sessionDescription, mClientId);
+        // when local is set to be the master
+        void createSdpAnswer() {
+            Log.e(TAG, "createSdpAnswer() for peer " + id);
 
-                if (isValidClient()) {
-                    client.sendSdpOffer(sdpOfferMessage);
-                } else {
-                    notifySignalingConnectionFailed();
+            connection.createAnswer(new KinesisVideoSdpObserver() {
+
+                @Override
+                public void onCreateSuccess(final SessionDescription sessionDescription) {
+                    Log.d(TAG, "Creating answer : success");
+                    super.onCreateSuccess(sessionDescription);
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            final SessionDescription preferred = preferCodecs(sessionDescription);
+                            connection.setLocalDescription(new KinesisVideoSdpObserver(), preferred);
+                            Message answer = Message.createAnswerMessage(preferred, master, recipientClientId());
+                            if (!isValidClient()) {
+                                Log.w(TAG, "Signaling closed before answering peer " + id);
+                                return;
+                            }
+                            client.sendSdpAnswer(answer);
+                            CastTimeline.TIMELINE.mark(StartupTimeline.Stage.ANSWER_SENT);
+                            sendPendingCandidates();
+                        }
+                    });
                 }
-            }
-        }, sdpMediaConstraints);
-    }
+            }, new MediaConstraints());
 
+        }
 
-    // when local is set to be the master
-    private void createSdpAnswer() {
-        Log.e(TAG, "createSdpAnswer()");
+        /**
+         * Applies an offer or answer of the remote side, remote candidates are held until it is set.
+         */
+        void setRemoteDescription(final SessionDescription description) {
+            remoteCandidates.reset();
+            connection.setRemoteDescription(new KinesisVideoSdpObserver() {
 
-        localPeer.createAnswer(new KinesisVideoSdpObserver() {
+                @Override
+                public void onSetSuccess() {
+                    super.onSetSuccess();
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            addPendingCandidates();
+                        }
+                    });
+                }
+            }, description);
+        }
 
-            @Override
-            public void onCreateSuccess(SessionDescription sessionDescription) {
-                Log.d(TAG, "Creating answer : success");
-                super.onCreateSuccess(sessionDescription);
-                localPeer.setLocalDescription(new KinesisVideoSdpObserver(), sessionDescription);
-                Message answer = Message.createAnswerMessage(sessionDescription, master, recipientClientId);
-                client.sendSdpAnswer(answer);
+        void addRemoteCandidate(final IceCandidate iceCandidate) {
+            if (remoteCandidates.isReady()) {
+                final boolean addIce = connection.addIceCandidate(iceCandidate);
+                Log.d(TAG, "Added ice candidate " + iceCandidate + " " + (addIce ? "Successfully" : "Failed"));
+            } else if (remoteCandidates.hold(iceCandidate)) {
+                Log.d(TAG, "Holding ice candidate " + iceCandidate + " until the remote description is set");
+            } else {
+                Log.w(TAG, "Dropped ice candidate " + iceCandidate + ", " + MAX_PENDING_ICE_CANDIDATES
+                        + " already pending for peer " + id);
             }
-        }, new MediaConstraints());
+        }
 
-    }
+        private void addPendingCandidates() {
+            if (connection == null) {
+                return;
+            }
+            for (final IceCandidate iceCandidate : remoteCandidates.release()) {
+                final boolean addIce = connection.addIceCandidate(iceCandidate);
+                Log.d(TAG, "Added held ice candidate " + iceCandidate + " " + (addIce ? "Successfully" : "Failed"));
+            }
+        }
+
+        // Completes the bring-up timeline of the cast with the first viewer to receive video
+        private void watchFirstFrame() {
+            if (connection == null) {
+                return;
+            }
+            new FirstFrameWatcher(mainHandler, events, connection, new FirstFrameWatcher.Callback() {
+                @Override
+                public void onFirstFrame(final RTCStatsReport report) {
+                    codecSupport.reportSendCodec(id, report);
+                    if (CastTimeline.TIMELINE.mark(StartupTimeline.Stage.FIRST_FRAME_ENCODED)) {
+                        CastTimeline.dump(CaptureFGService.this);
+                    }
+                }
+            }).start();
+        }
+
+        // Puts the codecs this device encodes in hardware first, the remote side sends and expects the first one
+        private SessionDescription preferCodecs(final SessionDescription description) {
+            return new SessionDescription(description.type, SdpCodecOrder.prefer(description.description, "video",
+                    codecSupport.getPreferredCodecs()));
+        }
 
+        // Candidates gathered before the remote client had our offer or answer, in the order they were gathered
+        private void sendPendingCandidates() {
+            for (final IceCandidate iceCandidate : localCandidates.release()) {
+                sendCandidate(iceCandidate);
+            }
+        }
 
+        private void sendCandidate(final IceCandidate iceCandidate) {
+            if (!isValidClient()) {
+                Log.w(TAG, "Signaling not connected, dropping ice candidate for peer " + id);
+                return;
+            }
+            Message message = Message.createIceCandidateMessage(iceCandidate, master, recipientClientId(), mClientId);
+            Log.d(TAG, "Sending IceCandidate to remote peer " + id + " " + iceCandidate.toString());
+            client.sendIceCandidate(message);  /* Send to Peer */
+        }
 
+        // The viewer's share of the uplink changes as other viewers join and leave
+        private void updateBitrateCap() {
+            final int bitrateCapBps = admission.getBitrateCapBps(id);
+            if (bitrateCapBps > 0) {
+                videoLayers.setBitrateCap(bitrateCapBps);
+            }
+        }
 
-    private URI getSignedUri(String masterEndpoint, String viewerEndpoint) {
-        Log.e(TAG, "getSignedUri()");
+        /**
+         * Tears the peer down from any thread, tasks already queued for it run first.
+         */
+        void close(final String reason) {
+            events.execute(new Runnable() {
+                @Override
+                public void run() {
+                    closeNow(reason);
+                }
+            });
+        }
 
-        URI signedUri;
+        private void closeNow(final String reason) {
+            // A peer replaced by a new connection of the same viewer leaves its admission to the new one
+            if (remotePeers.remove(id, this)) {
+                admission.release(id);
+            }
+            sparePeer.compareAndSet(this, null);
+            // Nothing queued behind this task may use the connection anymore
+            events.shutdown();
+            dispose();
+            Log.d(TAG, "Closed peer " + id + " (" + reason + "), " + remotePeers.size() + " remote peer(s) left");
+        }
 
-        if (master) {
-            signedUri = AwsV4Signer.sign(URI.create(masterEndpoint), mCreds.getAWSAccessKeyId(),
-                    mCreds.getAWSSecretKey(), mCreds instanceof AWSSessionCredentials ? ((AWSSessionCredentials) mCreds).getSessionToken() : "", URI.create(mWssEndpoint), mRegion);
-        } else {
-            signedUri = AwsV4Signer.sign(URI.create(viewerEndpoint), mCreds.getAWSAccessKeyId(),
-                    mCreds.getAWSSecretKey(), mCreds instanceof AWSSessionCredentials ? ((AWSSessionCredentials)mCreds).getSessionToken() : "", URI.create(mWssEndpoint), mRegion);
+        void dispose() {
+            if (connection != null) {
+                connection.dispose();
+                connection = null;
+            }
         }
-        return signedUri;
     }
 
+
+
+
     public static class NotificationListener extends BroadcastReceiver {
         @Override
         public void onReceive(Context context, Intent intent) {
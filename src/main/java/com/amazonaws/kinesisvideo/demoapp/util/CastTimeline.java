@@ -0,0 +1,48 @@
+package com.amazonaws.kinesisvideo.demoapp.util;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.utils.StartupTimeline;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Bring-up timeline of the current cast, shared by the application, the configuration screen, the activity and the
+ * capture service.
+ *
+ * Register a {@link StartupTimeline.Listener} on {@link #TIMELINE} to collect the steps, or {@link #dump(Context)}
+ * them to logcat and to {@value #DUMP_FILE_NAME} in the app's files directory, which {@code adb pull} can fetch.
+ */
+public final class CastTimeline {
+
+    private static final String TAG = "CastTimeline";
+
+    public static final String DUMP_FILE_NAME = "cast-timeline.txt";
+
+    public static final StartupTimeline TIMELINE = new StartupTimeline();
+
+    /**
+     * Writes the steps of the session so far, replacing the previous dump. Does file I/O, keep it off the main thread.
+     */
+    public static void dump(final Context context) {
+        for (final String line : TIMELINE.snapshot()) {
+            Log.i(TAG, line);
+        }
+
+        final File file = new File(context.getFilesDir(), DUMP_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            TIMELINE.writeTo(writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write " + file, e);
+        }
+    }
+
+    private CastTimeline() {
+    }
+}
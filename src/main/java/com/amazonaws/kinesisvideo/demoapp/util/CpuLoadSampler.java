@@ -0,0 +1,34 @@
+package com.amazonaws.kinesisvideo.demoapp.util;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * CPU load of this process, from the CPU time it used between two samples.
+ *
+ * Only the own process is measured, system wide counters are not readable by apps on recent Android versions.
+ * Capture, encoding and the network stack of the cast all run in it, which makes it a fair measure of how much
+ * further viewers would cost.
+ */
+public class CpuLoadSampler {
+
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    private long lastCpuMillis = Process.getElapsedCpuTime();
+    private long lastSampleMillis = SystemClock.elapsedRealtime();
+
+    /**
+     * @return share of all cores used since the previous sample, from 0 to 1
+     */
+    public synchronized double sample() {
+        final long cpuMillis = Process.getElapsedCpuTime();
+        final long now = SystemClock.elapsedRealtime();
+
+        final long elapsed = now - lastSampleMillis;
+        final double load = elapsed <= 0 ? 0 : (double) (cpuMillis - lastCpuMillis) / (elapsed * cores);
+
+        lastCpuMillis = cpuMillis;
+        lastSampleMillis = now;
+        return Math.min(1.0, Math.max(0.0, load));
+    }
+}
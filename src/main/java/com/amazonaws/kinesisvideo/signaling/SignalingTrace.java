@@ -0,0 +1,33 @@
+package com.amazonaws.kinesisvideo.signaling;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.utils.TraceLog;
+
+/**
+ * Trace shared by the signaling clients, transports and listeners.
+ *
+ * Per message events are recorded at {@link TraceLog.Level#DEBUG} and raw payloads at
+ * {@link TraceLog.Level#VERBOSE}, so the default level only keeps connection lifecycle and failures. Raise it with
+ * {@code SignalingTrace.LOG.setLevel(...)} while investigating, then {@link #dump()} once something went wrong.
+ */
+public final class SignalingTrace {
+
+    private static final String TAG = "SignalingTrace";
+
+    private static final int CAPACITY = 512;
+
+    public static final TraceLog LOG = new TraceLog(CAPACITY, TraceLog.Level.INFO);
+
+    /**
+     * Writes the buffered entries to logcat, oldest first.
+     */
+    public static void dump() {
+        for (final String line : LOG.snapshot()) {
+            Log.i(TAG, line);
+        }
+    }
+
+    private SignalingTrace() {
+    }
+}
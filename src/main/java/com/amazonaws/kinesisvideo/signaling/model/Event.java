@@ -1,9 +1,8 @@
 package com.amazonaws.kinesisvideo.signaling.model;
 
-import android.util.Base64;
 import android.util.Log;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
 import org.webrtc.IceCandidate;
 
 public class Event {
@@ -20,6 +19,13 @@ public class Event {
 
     private String body;
 
+    // Filled in once from the payload by EventDecoder, transient to keep them out of gson
+    transient MessageType type;
+    transient boolean payloadDecoded;
+    transient String sdpType;
+    transient String sdp;
+    transient IceCandidate iceCandidate;
+
     public String getStatusCode() {
         return statusCode;
     }
@@ -56,54 +62,35 @@ public class Event {
         this.messagePayload = messagePayload;
     }
 
-    public static IceCandidate parseIceCandidate(Event event) {
-
-        byte[] decode = Base64.decode(event.getMessagePayload(), Base64.DEFAULT);
-        String candidateString = new String(decode);
-
-        JsonObject jsonObject = JsonParser.parseString(candidateString).getAsJsonObject();
-
-        String sdpMid = jsonObject.get("sdpMid").toString();
-        if (sdpMid.length() > 2) {
-            sdpMid = sdpMid.substring(1, sdpMid.length() - 1);
-        }
-
-        int sdpMLineIndex = 0;
-        try {
-            sdpMLineIndex = Integer.parseInt(jsonObject.get("sdpMLineIndex").toString());
-        } catch (NumberFormatException e) {
-            Log.e(TAG,  "Invalid sdpMLineIndex");
-            return null;
-        }
-
-        String candidate = jsonObject.get("candidate").toString();
-        if (candidate.length() > 2) {
-            candidate = candidate.substring(1, candidate.length() - 1);
+    /**
+     * @return the message type, {@link MessageType#UNKNOWN} if missing or not one the service documents
+     */
+    public MessageType getType() {
+        if (type == null) {
+            type = MessageType.fromWire(messageType);
         }
+        return type;
+    }
 
-        return new IceCandidate(sdpMid, sdpMLineIndex, candidate);
+    public static IceCandidate parseIceCandidate(Event event) {
+        EventDecoder.decodePayload(event);
+        return event.iceCandidate;
     }
 
     public static String parseSdpEvent(Event answerEvent) {
+        EventDecoder.decodePayload(answerEvent);
 
-        String message = new String(Base64.decode(answerEvent.getMessagePayload().getBytes(), Base64.DEFAULT));
-        JsonObject jsonObject = JsonParser.parseString(message).getAsJsonObject();
-        String type = jsonObject.get("type").toString();
-
-        if (!type.equalsIgnoreCase("\"answer\"")) {
+        if (!"answer".equalsIgnoreCase(answerEvent.sdpType)) {
             Log.e(TAG, "Error in answer message");
         }
 
-        String sdp = jsonObject.get("sdp").getAsString();
-        Log.d(TAG, "SDP answer received from master:" + sdp);
-        return sdp;
+        SignalingTrace.LOG.record(TraceLog.Level.VERBOSE, "SDP answer received from master", answerEvent.sdp);
+        return answerEvent.sdp;
     }
 
     public static String parseOfferEvent(Event offerEvent) {
-        String s = new String(Base64.decode(offerEvent.getMessagePayload(), Base64.DEFAULT));
-
-        JsonObject jsonObject = JsonParser.parseString(s).getAsJsonObject();
-        return jsonObject.get("sdp").getAsString();
+        EventDecoder.decodePayload(offerEvent);
+        return offerEvent.sdp;
     }
 
 }
@@ -0,0 +1,157 @@
+package com.amazonaws.kinesisvideo.signaling.model;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
+import com.amazonaws.kinesisvideo.utils.Base64Utf8Reader;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.webrtc.IceCandidate;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Streaming decoder for the events the signaling service delivers.
+ *
+ * The envelope is read field by field with a {@link JsonReader}. The Base64 payload of offers, answers and ICE
+ * candidates is then read the same way, straight from the Base64 text without an intermediate byte array or string. The resulting SDP or {@link IceCandidate} is kept
+ * on the event, where {@link Event#parseSdpEvent}, {@link Event#parseOfferEvent} and
+ * {@link Event#parseIceCandidate} pick it up.
+ */
+public final class EventDecoder {
+
+    private static final String TAG = "EventDecoder";
+
+    /**
+     * @return the event with its payload decoded, null if the message is not a JSON object
+     */
+    public static Event decode(final String message) {
+        String senderClientId = null;
+        String messageType = null;
+        String messagePayload = null;
+        String statusCode = null;
+        String body = null;
+
+        try (JsonReader reader = new JsonReader(new StringReader(message))) {
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "senderClientId":
+                        senderClientId = nextString(reader);
+                        break;
+                    case "messageType":
+                        messageType = nextString(reader);
+                        break;
+                    case "messagePayload":
+                        messagePayload = nextString(reader);
+                        break;
+                    case "statusCode":
+                        statusCode = nextString(reader);
+                        break;
+                    case "body":
+                        body = nextString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (final IOException | IllegalStateException e) {
+            SignalingTrace.LOG.record(TraceLog.Level.WARN, "Malformed message", e.getMessage());
+            return null;
+        }
+
+        final Event event = new Event(senderClientId, messageType, messagePayload);
+        event.setStatusCode(statusCode);
+        event.setBody(body);
+        switch (event.getType()) {
+            case SDP_OFFER:
+            case SDP_ANSWER:
+            case ICE_CANDIDATE:
+                decodePayload(event);
+                break;
+            default:
+                break;
+        }
+        return event;
+    }
+
+    /**
+     * Reads the SDP or ICE candidate out of the payload, unless that was done already.
+     */
+    static void decodePayload(final Event event) {
+        if (event.payloadDecoded) {
+            return;
+        }
+        event.payloadDecoded = true;
+        if (event.getMessagePayload() == null || event.getMessagePayload().isEmpty()) {
+            return;
+        }
+
+        String sdpType = null;
+        String sdp = null;
+        String candidate = null;
+        String sdpMid = null;
+        int sdpMLineIndex = -1;
+
+        try (JsonReader reader = new JsonReader(new Base64Utf8Reader(event.getMessagePayload()))) {
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "type":
+                        sdpType = nextString(reader);
+                        break;
+                    case "sdp":
+                        sdp = nextString(reader);
+                        break;
+                    case "candidate":
+                        candidate = nextString(reader);
+                        break;
+                    case "sdpMid":
+                        sdpMid = nextString(reader);
+                        break;
+                    case "sdpMLineIndex":
+                        sdpMLineIndex = reader.peek() == JsonToken.NULL ? -1 : reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (final NumberFormatException e) {
+            Log.e(TAG, "Invalid sdpMLineIndex");
+            return;
+        } catch (final IOException | IllegalStateException e) {
+            Log.e(TAG, "Malformed " + event.getMessageType() + " payload " + e.getMessage());
+            return;
+        }
+
+        event.sdpType = sdpType;
+        event.sdp = sdp;
+        if (candidate != null) {
+            if (sdpMLineIndex < 0) {
+                Log.e(TAG, "Invalid sdpMLineIndex");
+            } else {
+                event.iceCandidate = new IceCandidate(sdpMid, sdpMLineIndex, candidate);
+            }
+        }
+    }
+
+    // Strings and numbers as text, anything else is skipped
+    private static String nextString(final JsonReader reader) throws IOException {
+        final JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private EventDecoder() {
+    }
+}
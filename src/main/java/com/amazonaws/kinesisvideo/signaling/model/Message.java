@@ -1,6 +1,6 @@
 package com.amazonaws.kinesisvideo.signaling.model;
 
-import android.util.Base64;
+import org.webrtc.IceCandidate;
 import org.webrtc.SessionDescription;
 
 public class Message {
@@ -66,11 +66,7 @@ public class Message {
      */
     public static  Message createAnswerMessage(SessionDescription sessionDescription, boolean master, String recipientClientId) {
 
-        String description = sessionDescription.description;
-
-        String answerPayload = "{\"type\":\"answer\",\"sdp\":\"" + description.replace("\r\n", "\\r\\n") + "\"}";
-
-        String encodedString = new String(Base64.encode(answerPayload.getBytes(), Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP));
+        String encodedString = MessageEncoder.forCurrentThread().encodeSdpPayload("answer", sessionDescription.description);
 
         // SenderClientId should always be "" for master creating answer case
         return new Message("SDP_ANSWER", recipientClientId, "", encodedString);
@@ -84,13 +80,25 @@ public class Message {
      */
     public static Message createOfferMessage(SessionDescription sessionDescription, String clientId) {
 
-        String description = sessionDescription.description;
+        String encodedString = MessageEncoder.forCurrentThread().encodeSdpPayload("offer", sessionDescription.description);
 
-        String offerPayload = "{\"type\":\"offer\",\"sdp\":\"" + description.replace("\r\n", "\\r\\n") + "\"}";
+        return new Message("SDP_OFFER", "", clientId, encodedString);
+    }
 
-        String encodedString = new String(Base64.encode(offerPayload.getBytes(), Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP));
+    /**
+     * @param iceCandidate local candidate to be sent to the remote peer
+     * @param master true if local is set to be the master
+     * @param recipientClientId client id of the remote viewer, ignored by the service for a viewer's candidates
+     * @param clientId Client Id of this viewer, not sent by a master
+     * @return ICE candidate message to be sent to signaling service
+     */
+    public static Message createIceCandidateMessage(IceCandidate iceCandidate, boolean master, String recipientClientId,
+                                                    String clientId) {
 
-        return new Message("SDP_OFFER", "", clientId, encodedString);
+        String encodedString = MessageEncoder.forCurrentThread().encodeIceCandidatePayload(iceCandidate.sdp,
+                iceCandidate.sdpMid, iceCandidate.sdpMLineIndex);
+
+        return new Message("ICE_CANDIDATE", recipientClientId, master ? "" : clientId, encodedString);
     }
 
 }
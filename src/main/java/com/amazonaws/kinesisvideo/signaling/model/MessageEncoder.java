@@ -0,0 +1,166 @@
+package com.amazonaws.kinesisvideo.signaling.model;
+
+import com.amazonaws.kinesisvideo.utils.Base64Utf8Encoder;
+
+/**
+ * Writes outbound signaling messages and their Base64 payloads by hand, with full JSON string escaping.
+ *
+ * Each thread reuses its own buffers, so encoding a message allocates little beyond the resulting string. The
+ * envelope has the fields of {@link Message} in declaration order and leaves out null ones, as gson did.
+ */
+public final class MessageEncoder {
+
+    // Buffers grown beyond this by an unusually large SDP are dropped again instead of kept per thread
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Valid in JSON strings but not in JavaScript ones, escaped like gson does
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    private static final ThreadLocal<MessageEncoder> threadEncoder = new ThreadLocal<MessageEncoder>() {
+        @Override
+        protected MessageEncoder initialValue() {
+            return new MessageEncoder();
+        }
+    };
+
+    private StringBuilder json = new StringBuilder(1024);
+    private StringBuilder encoded = new StringBuilder(1024);
+
+    public static MessageEncoder forCurrentThread() {
+        return threadEncoder.get();
+    }
+
+    /**
+     * @return the JSON text of the message as sent to the signaling service
+     */
+    public String encode(final Message message) {
+        final StringBuilder out = reset(json);
+        out.append('{');
+        boolean first = appendField(out, true, "action", message.getAction());
+        first = appendField(out, first, "recipientClientId", message.getRecipientClientId());
+        first = appendField(out, first, "senderClientId", message.getSenderClientId());
+        appendField(out, first, "messagePayload", message.getMessagePayload());
+        out.append('}');
+        return release(out);
+    }
+
+    /**
+     * @param type "offer" or "answer"
+     * @return Base64 payload of an SDP offer or answer
+     */
+    public String encodeSdpPayload(final String type, final String sdp) {
+        final StringBuilder out = reset(json);
+        out.append("{\"type\":");
+        appendString(out, type);
+        out.append(",\"sdp\":");
+        appendString(out, sdp);
+        out.append('}');
+        return base64(out);
+    }
+
+    /**
+     * @return Base64 payload of an ICE candidate
+     */
+    public String encodeIceCandidatePayload(final String candidate, final String sdpMid, final int sdpMLineIndex) {
+        final StringBuilder out = reset(json);
+        out.append("{\"candidate\":");
+        appendString(out, candidate);
+        out.append(",\"sdpMid\":");
+        appendString(out, sdpMid);
+        out.append(",\"sdpMLineIndex\":").append(sdpMLineIndex).append('}');
+        return base64(out);
+    }
+
+    private String base64(final StringBuilder text) {
+        final StringBuilder out = reset(encoded);
+        Base64Utf8Encoder.encodeUrlSafe(text, out);
+        trim(text);
+        return release(out);
+    }
+
+    private static boolean appendField(final StringBuilder out, final boolean first, final String name,
+                                       final String value) {
+        if (value == null) {
+            return first;
+        }
+        if (!first) {
+            out.append(',');
+        }
+        out.append('"').append(name).append("\":");
+        appendString(out, value);
+        return false;
+    }
+
+    private static void appendString(final StringBuilder out, final String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        final int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != LINE_SEPARATOR && c != PARAGRAPH_SEPARATOR) {
+                continue;
+            }
+            out.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    out.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                            .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+            }
+        }
+        out.append(value, start, length).append('"');
+    }
+
+    private static StringBuilder reset(final StringBuilder buffer) {
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private String release(final StringBuilder buffer) {
+        final String text = buffer.toString();
+        trim(buffer);
+        return text;
+    }
+
+    // Drops a buffer that grew too large to keep around
+    private void trim(final StringBuilder buffer) {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            if (buffer == json) {
+                json = new StringBuilder(1024);
+            } else {
+                encoded = new StringBuilder(1024);
+            }
+        }
+    }
+
+    private MessageEncoder() {
+    }
+}
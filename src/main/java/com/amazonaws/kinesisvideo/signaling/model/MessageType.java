@@ -0,0 +1,31 @@
+package com.amazonaws.kinesisvideo.signaling.model;
+
+/**
+ * Message types delivered by the signaling service, as spelled on the wire.
+ */
+public enum MessageType {
+
+    SDP_OFFER,
+    SDP_ANSWER,
+    ICE_CANDIDATE,
+    STATUS_RESPONSE,
+    GO_AWAY,
+    RECONNECT_ICE_SERVER,
+    UNKNOWN;
+
+    private static final MessageType[] VALUES = values();
+
+    /**
+     * @return the matching type ignoring case, {@link #UNKNOWN} for anything else including null
+     */
+    public static MessageType fromWire(final String messageType) {
+        if (messageType != null) {
+            for (final MessageType type : VALUES) {
+                if (type.name().equalsIgnoreCase(messageType)) {
+                    return type;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
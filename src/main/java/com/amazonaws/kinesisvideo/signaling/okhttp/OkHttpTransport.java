@@ -0,0 +1,169 @@
+package com.amazonaws.kinesisvideo.signaling.okhttp;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketConnection;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketTransport;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * Transport on the OkHttp WebSocket client.
+ *
+ * Handshakes are asynchronous on OkHttp's own dispatcher, and connections share its connection pool, so nothing
+ * runs on the signaling runtime. OkHttp reads each connection on a dispatcher thread and writes it from a
+ * per-connection writer thread.
+ *
+ * OkHttp does not expose ping frames. Instead each connection is given a client that pings on its own, derived
+ * from the connection's {@link HeartbeatConfig}, and fails the connection when a pong is missing, which reaches the
+ * signaling client as a connection failure. OkHttp does not report pongs either, so no round trip is measured.
+ */
+public class OkHttpTransport implements WebSocketTransport {
+
+    private static final String TAG = "OkHttpTransport";
+
+    private static final int NORMAL_CLOSURE = 1000;
+
+    private static OkHttpClient sharedClient;
+
+    private final OkHttpClient client;
+
+    /**
+     * Uses a client shared by every transport created this way, connections only differ in their timeouts and
+     * pings.
+     */
+    public OkHttpTransport() {
+        this(getSharedClient());
+    }
+
+    public OkHttpTransport(final OkHttpClient client) {
+        this.client = client;
+    }
+
+    private static synchronized OkHttpClient getSharedClient() {
+        if (sharedClient == null) {
+            sharedClient = new OkHttpClient.Builder().build();
+        }
+        return sharedClient;
+    }
+
+    @Override
+    public String getName() {
+        return "okhttp";
+    }
+
+    @Override
+    public CompletableFuture<WebSocketConnection> connect(final URI uri,
+                                                          final WebSocketConnection.Listener listener,
+                                                          final long timeoutMillis,
+                                                          final HeartbeatConfig heartbeatConfig) {
+        final CompletableFuture<WebSocketConnection> opened = new CompletableFuture<>();
+
+        // Shares the pool and dispatcher of the client, the read timeout only covers the upgrade response
+        final OkHttpClient connectingClient = client.newBuilder()
+                .connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .pingInterval(pingIntervalMillis(heartbeatConfig), TimeUnit.MILLISECONDS)
+                .build();
+
+        final Request request = new Request.Builder().url(uri.toString()).build();
+
+        connectingClient.newWebSocket(request, new WebSocketListener() {
+
+            private volatile OkHttpConnection connection;
+
+            @Override
+            public void onOpen(final WebSocket webSocket, final Response response) {
+                connection = new OkHttpConnection(webSocket);
+                opened.complete(connection);
+            }
+
+            @Override
+            public void onMessage(final WebSocket webSocket, final String text) {
+                listener.onMessage(text);
+            }
+
+            @Override
+            public void onClosing(final WebSocket webSocket, final int code, final String reason) {
+                connection.open = false;
+                webSocket.close(NORMAL_CLOSURE, null);
+            }
+
+            @Override
+            public void onClosed(final WebSocket webSocket, final int code, final String reason) {
+                listener.onClosed(code, reason);
+            }
+
+            @Override
+            public void onFailure(final WebSocket webSocket, final Throwable t, final Response response) {
+                Log.w(TAG, t);
+                if (!opened.completeExceptionally(t)) {
+                    connection.open = false;
+                    listener.onFailure(t);
+                }
+            }
+        });
+
+        return opened;
+    }
+
+    /**
+     * OkHttp fails a connection when the previous ping is still unanswered as the next one is due, so a dead
+     * connection is noticed between one and two intervals after its last pong. Pinging every half of the time the
+     * config allows without a pong keeps that within the config.
+     */
+    static long pingIntervalMillis(final HeartbeatConfig heartbeatConfig) {
+        if (!heartbeatConfig.isEnabled()) {
+            return 0;
+        }
+        return Math.max(1, heartbeatConfig.getIntervalMillis() * heartbeatConfig.getMaxMissedPongs() / 2);
+    }
+
+    private static final class OkHttpConnection implements WebSocketConnection {
+
+        private final WebSocket webSocket;
+
+        private volatile boolean open = true;
+
+        OkHttpConnection(final WebSocket webSocket) {
+            this.webSocket = webSocket;
+        }
+
+        /**
+         * OkHttp queues the message for its writer thread, completion means the message was accepted by that queue.
+         */
+        @Override
+        public void sendText(final String message, final SendCallback callback) {
+            if (webSocket.send(message)) {
+                callback.onComplete(null);
+            } else {
+                callback.onComplete(new IllegalStateException("WebSocket closed or send buffer full"));
+            }
+        }
+
+        @Override
+        public boolean sendPing(final byte[] payload) {
+            return false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+            webSocket.close(NORMAL_CLOSURE, null);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.amazonaws.kinesisvideo.signaling.transport;
+
+/**
+ * How often a signaling session is pinged and how many unanswered pings mark it dead.
+ *
+ * With the defaults a half-open connection is given up on after at most 15 seconds, instead of whenever the
+ * operating system times out the TCP connection.
+ */
+public final class HeartbeatConfig {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+
+    public static final int DEFAULT_MAX_MISSED_PONGS = 3;
+
+    public static final HeartbeatConfig DEFAULT = new HeartbeatConfig(DEFAULT_INTERVAL_MILLIS,
+            DEFAULT_MAX_MISSED_PONGS);
+
+    /**
+     * No pings, dead connections are only noticed when a send fails or the transport reports it.
+     */
+    public static final HeartbeatConfig DISABLED = new HeartbeatConfig(0, 0);
+
+    private final long intervalMillis;
+
+    private final int maxMissedPongs;
+
+    /**
+     * @param intervalMillis time between pings, 0 disables the heartbeat
+     * @param maxMissedPongs consecutive pings left unanswered before the session is considered dead
+     */
+    public HeartbeatConfig(final long intervalMillis, final int maxMissedPongs) {
+        if (intervalMillis < 0 || (intervalMillis > 0 && maxMissedPongs < 1)) {
+            throw new IllegalArgumentException("Invalid heartbeat interval " + intervalMillis
+                    + " ms with " + maxMissedPongs + " missed pongs");
+        }
+        this.intervalMillis = intervalMillis;
+        this.maxMissedPongs = maxMissedPongs;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getMaxMissedPongs() {
+        return maxMissedPongs;
+    }
+
+    public boolean isEnabled() {
+        return intervalMillis > 0;
+    }
+}
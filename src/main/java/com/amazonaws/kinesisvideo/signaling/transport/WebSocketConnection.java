@@ -0,0 +1,57 @@
+package com.amazonaws.kinesisvideo.signaling.transport;
+
+/**
+ * An open WebSocket connection created by a {@link WebSocketTransport}.
+ */
+public interface WebSocketConnection {
+
+    /**
+     * Callbacks of a connection, invoked on threads owned by the transport.
+     */
+    interface Listener {
+
+        void onMessage(String message);
+
+        /**
+         * A pong frame arrived, in answer to {@link #sendPing(byte[])} or unsolicited.
+         */
+        void onPong(byte[] payload);
+
+        /**
+         * The connection was closed, by either side.
+         */
+        void onClosed(int code, String reason);
+
+        /**
+         * The connection broke because of an error and is no longer usable.
+         */
+        void onFailure(Throwable cause);
+    }
+
+    /**
+     * Completion of a single {@link #sendText(String, SendCallback)}.
+     */
+    interface SendCallback {
+
+        /**
+         * @param error null if the message was handed to the socket, the reason otherwise
+         */
+        void onComplete(Throwable error);
+    }
+
+    /**
+     * Writes a text message without blocking. Callers issue the next send only after the previous one completed.
+     */
+    void sendText(String message, SendCallback callback);
+
+    /**
+     * Sends a ping control frame, which may overtake queued text messages.
+     *
+     * @return false if the transport does not expose ping frames and detects dead connections by itself
+     */
+    boolean sendPing(byte[] payload);
+
+    boolean isOpen();
+
+    void close();
+}
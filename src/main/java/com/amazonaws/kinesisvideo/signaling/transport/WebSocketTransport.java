@@ -0,0 +1,32 @@
+package com.amazonaws.kinesisvideo.signaling.transport;
+
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Opens WebSocket connections for the signaling client.
+ *
+ * Implementations wrap a particular WebSocket library so the signaling client can run on whichever one performs
+ * best on a device, see the transport benchmark.
+ */
+public interface WebSocketTransport {
+
+    /**
+     * @return short name used in logs and benchmark results
+     */
+    String getName();
+
+    /**
+     * Starts the opening handshake without blocking the caller.
+     *
+     * @param uri           ws or wss URI to connect to
+     * @param listener      receives messages and the end of the connection once it is open
+     * @param timeoutMillis   how long connecting, including TLS and the HTTP upgrade, may take
+     * @param heartbeatConfig pings of the connection, honored by transports that send them on their own, see
+     *                        {@link WebSocketConnection#sendPing(byte[])}
+     * @return future completed with the open connection, or completed exceptionally if it could not be opened
+     */
+    CompletableFuture<WebSocketConnection> connect(URI uri, WebSocketConnection.Listener listener,
+                                                   long timeoutMillis, HeartbeatConfig heartbeatConfig);
+}
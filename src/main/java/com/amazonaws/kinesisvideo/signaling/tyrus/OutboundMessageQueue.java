@@ -0,0 +1,179 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketConnection;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Outbound messages of one websocket session, written one at a time through the connection's async send.
+ *
+ * Messages go on the wire in the order they were queued, so an answer always precedes the candidates sent after
+ * it, for every recipient. No thread is parked on socket I/O: the next message is written from the completion of
+ * the previous one. The queue is bounded, once it is full further messages are rejected instead of piling up
+ * behind a stalled connection.
+ */
+class OutboundMessageQueue {
+
+    private static final String TAG = "OutboundMessageQueue";
+
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private WebSocketConnection remote;
+    private boolean inFlight;
+    private boolean draining;
+
+    private int maxDepth;
+    private long sent;
+    private long failed;
+    private long rejected;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    OutboundMessageQueue(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Starts writing to the given connection, called once it is open.
+     */
+    void open(final WebSocketConnection connection) {
+        synchronized (lock) {
+            remote = connection;
+        }
+    }
+
+    /**
+     * Fails everything still queued and rejects further messages.
+     */
+    void close() {
+        final Pending[] dropped;
+        synchronized (lock) {
+            remote = null;
+            dropped = pending.toArray(new Pending[0]);
+            pending.clear();
+            failed += dropped.length;
+        }
+        for (final Pending message : dropped) {
+            message.future.completeExceptionally(new IllegalStateException("Connection closed"));
+        }
+    }
+
+    /**
+     * @return future completed once the message has been written, or completed exceptionally if the queue is
+     * full, the connection is not open or the write failed
+     */
+    CompletableFuture<Void> enqueue(final String text) {
+        final Pending message = new Pending(text);
+        synchronized (lock) {
+            if (remote == null) {
+                rejected++;
+                message.future.completeExceptionally(new IllegalStateException("Connection is not open"));
+                return message.future;
+            }
+            if (pending.size() >= capacity) {
+                rejected++;
+                message.future.completeExceptionally(
+                        new RejectedExecutionException("Outbound queue full (" + capacity + " messages)"));
+                return message.future;
+            }
+            pending.add(message);
+            maxDepth = Math.max(maxDepth, pending.size());
+            if (draining) {
+                // The thread draining the queue, or the completion of the write in flight, picks it up
+                return message.future;
+            }
+            draining = true;
+        }
+        drain();
+        return message.future;
+    }
+
+    OutboundQueueStats getStats() {
+        synchronized (lock) {
+            return new OutboundQueueStats(pending.size(), maxDepth, sent, failed, rejected,
+                    sent == 0 ? 0 : totalLatencyNanos / sent, maxLatencyNanos);
+        }
+    }
+
+    // Writes queued messages until one is in flight or the queue is empty. Writes that complete inline return
+    // here instead of recursing.
+    private void drain() {
+        while (true) {
+            final Pending next;
+            final WebSocketConnection target;
+            synchronized (lock) {
+                if (inFlight || pending.isEmpty() || remote == null) {
+                    draining = false;
+                    return;
+                }
+                next = pending.poll();
+                target = remote;
+                inFlight = true;
+            }
+            try {
+                target.sendText(next.text, new WebSocketConnection.SendCallback() {
+                    @Override
+                    public void onComplete(final Throwable error) {
+                        onWritten(next, error);
+                    }
+                });
+            } catch (final RuntimeException e) {
+                onWritten(next, e);
+            }
+        }
+    }
+
+    private void onWritten(final Pending message, final Throwable error) {
+        final long latencyNanos = System.nanoTime() - message.enqueuedNanos;
+        final boolean resume;
+        synchronized (lock) {
+            inFlight = false;
+            if (error == null) {
+                sent++;
+                totalLatencyNanos += latencyNanos;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+            } else {
+                failed++;
+            }
+            resume = !draining;
+            if (resume) {
+                draining = true;
+            }
+        }
+
+        if (error == null) {
+            message.future.complete(null);
+        } else {
+            Log.e(TAG, "Failed to send message " + error.getMessage());
+            SignalingTrace.LOG.record(TraceLog.Level.WARN, "Send failed", error);
+            message.future.completeExceptionally(error);
+        }
+
+        if (resume) {
+            drain();
+        }
+    }
+
+    private static final class Pending {
+
+        private final String text;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending(final String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the outbound signaling queue of one connection.
+ *
+ * Send latency is measured from the moment a message is queued until its write completes, so it includes the
+ * time spent waiting behind earlier messages.
+ */
+public final class OutboundQueueStats {
+
+    private final int depth;
+    private final int maxDepth;
+    private final long sent;
+    private final long failed;
+    private final long rejected;
+    private final long meanLatencyNanos;
+    private final long maxLatencyNanos;
+
+    OutboundQueueStats(final int depth, final int maxDepth, final long sent, final long failed,
+                       final long rejected, final long meanLatencyNanos, final long maxLatencyNanos) {
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.sent = sent;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.meanLatencyNanos = meanLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /**
+     * @return messages waiting to be written, not counting the one in flight
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return messages refused because the queue was full or the connection was not open
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getMeanLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(meanLatencyNanos);
+    }
+
+    public long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + depth + " maxDepth=" + maxDepth + " sent=" + sent + " failed=" + failed
+                + " rejected=" + rejected + " meanLatencyUs=" + getMeanLatencyMicros()
+                + " maxLatencyUs=" + getMaxLatencyMicros();
+    }
+}
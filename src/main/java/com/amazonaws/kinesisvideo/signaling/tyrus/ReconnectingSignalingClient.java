@@ -0,0 +1,322 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
+import com.amazonaws.kinesisvideo.signaling.model.Message;
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketTransport;
+import com.amazonaws.kinesisvideo.utils.ExponentialBackoff;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a signaling connection up across session closes and errors.
+ *
+ * Whenever the current {@link SignalingServiceWebSocketClient} closes or fails, a new one is opened on a freshly
+ * signed URI after a jittered exponential backoff, and the same {@link SignalingListener} is registered on it.
+ * Only the signaling session is replaced, peer connections and capture set up by the caller are left alone.
+ */
+public class ReconnectingSignalingClient {
+
+    private static final String TAG = "ReconnectingSignalingClient";
+
+    private static final long BASE_RECONNECT_DELAY_MILLIS = 500;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30000;
+
+    /**
+     * Notified about connection changes, on the supervisor thread.
+     */
+    public interface ConnectionListener {
+
+        void onConnected(boolean reconnected);
+
+        void onReconnecting(int attempt, long delayMillis, Throwable cause);
+    }
+
+    private final Supplier<URI> uriSupplier;
+    private final SignalingListener signalingListener;
+    private final ConnectionListener connectionListener;
+    private final long connectTimeoutMillis;
+    private final HeartbeatConfig heartbeatConfig;
+
+    private final ExponentialBackoff backoff =
+            new ExponentialBackoff(BASE_RECONNECT_DELAY_MILLIS, MAX_RECONNECT_DELAY_MILLIS);
+
+    private final SignalingRuntime runtime;
+
+    private final WebSocketTransport transport;
+
+    // Shared timer thread of the runtime, serializes all connection state changes below
+    private final ScheduledExecutorService supervisor;
+
+    private ScheduledFuture<?> pendingReconnect;
+
+    private final CompletableFuture<Void> firstConnect = new CompletableFuture<>();
+
+    private volatile SignalingServiceWebSocketClient current;
+
+    private volatile boolean closed;
+
+    private boolean everConnected;
+
+    /**
+     * @param uriSupplier          signs the signaling URI, called again for every reconnect attempt
+     * @param signalingListener    registered on every session that gets opened
+     * @param runtime              shared signaling threads from {@link SignalingRuntime#acquire()}, released on
+     *                             {@link #disconnect()}
+     * @param connectionListener   notified when a session opens or a reconnect is scheduled
+     * @param connectTimeoutMillis handshake timeout for each attempt
+     */
+    public ReconnectingSignalingClient(final Supplier<URI> uriSupplier,
+                                       final SignalingListener signalingListener,
+                                       final SignalingRuntime runtime,
+                                       final ConnectionListener connectionListener,
+                                       final long connectTimeoutMillis) {
+        this(uriSupplier, signalingListener, runtime, new TyrusTransport(runtime), connectionListener,
+                connectTimeoutMillis, HeartbeatConfig.DEFAULT);
+    }
+
+    /**
+     * @param transport       WebSocket implementation every session connects with
+     * @param heartbeatConfig pings on every session, a session whose pings go unanswered is reconnected
+     */
+    public ReconnectingSignalingClient(final Supplier<URI> uriSupplier,
+                                       final SignalingListener signalingListener,
+                                       final SignalingRuntime runtime,
+                                       final WebSocketTransport transport,
+                                       final ConnectionListener connectionListener,
+                                       final long connectTimeoutMillis,
+                                       final HeartbeatConfig heartbeatConfig) {
+        this.uriSupplier = uriSupplier;
+        this.signalingListener = signalingListener;
+        this.runtime = runtime;
+        this.transport = transport;
+        this.supervisor = runtime.scheduler();
+        this.connectionListener = connectionListener;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.heartbeatConfig = heartbeatConfig;
+    }
+
+    /**
+     * Opens the first session. Reconnecting after a failure keeps going in the background either way.
+     *
+     * @return future completed when the first session opens, or completed exceptionally if the first
+     * attempt fails
+     */
+    public CompletableFuture<Void> connect() {
+        runOnSupervisor(new Runnable() {
+            @Override
+            public void run() {
+                attemptConnect();
+            }
+        });
+        return firstConnect;
+    }
+
+    public boolean isOpen() {
+        final SignalingServiceWebSocketClient client = current;
+        return client != null && client.isOpen();
+    }
+
+    /**
+     * @return smoothed heartbeat round trip of the current session in milliseconds, -1 if unknown
+     */
+    public long getSmoothedRttMillis() {
+        final SignalingServiceWebSocketClient client = current;
+        return client != null ? client.getSmoothedRttMillis() : -1;
+    }
+
+    public void sendSdpOffer(final Message offer) {
+        final SignalingServiceWebSocketClient client = current;
+        if (client != null) {
+            client.sendSdpOffer(offer);
+        } else {
+            Log.w(TAG, "Dropping offer, signaling is reconnecting");
+        }
+    }
+
+    public void sendSdpAnswer(final Message answer) {
+        final SignalingServiceWebSocketClient client = current;
+        if (client != null) {
+            client.sendSdpAnswer(answer);
+        } else {
+            Log.w(TAG, "Dropping answer, signaling is reconnecting");
+        }
+    }
+
+    public void sendIceCandidate(final Message candidate) {
+        final SignalingServiceWebSocketClient client = current;
+        if (client != null) {
+            client.sendIceCandidate(candidate);
+        } else {
+            Log.w(TAG, "Dropping ice candidate, signaling is reconnecting");
+        }
+    }
+
+    /**
+     * Drops the current session and reconnects, for callers that find out about a dead session first. Does nothing
+     * while a reconnect is already scheduled.
+     */
+    public void reconnect(final Throwable cause) {
+        runOnSupervisor(new Runnable() {
+            @Override
+            public void run() {
+                final SignalingServiceWebSocketClient client = current;
+                if (client == null || pendingReconnect != null) {
+                    Log.d(TAG, "Reconnect already scheduled");
+                    return;
+                }
+                scheduleReconnect(client, cause);
+            }
+        });
+    }
+
+    public void disconnect() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        firstConnect.cancel(false);
+        final SignalingServiceWebSocketClient client = current;
+        current = null;
+        if (client != null) {
+            client.disconnect();
+        }
+        try {
+            supervisor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (pendingReconnect != null) {
+                        pendingReconnect.cancel(false);
+                        pendingReconnect = null;
+                    }
+                    runtime.release();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            runtime.release();
+        }
+    }
+
+    // Supervisor thread only
+    private void attemptConnect() {
+        if (closed) {
+            return;
+        }
+
+        pendingReconnect = null;
+
+        final SignalingServiceWebSocketClient client;
+        try {
+            client = new SignalingServiceWebSocketClient(uriSupplier.get().toString(), signalingListener,
+                    SignalingRuntime.acquire(), transport);
+        } catch (final Exception e) {
+            onConnectFailed(null, e);
+            return;
+        }
+        current = client;
+
+        client.connect(connectTimeoutMillis, heartbeatConfig).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable throwable) {
+                runOnSupervisor(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (throwable == null) {
+                            onConnected(client);
+                        } else {
+                            onConnectFailed(client, throwable);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onConnected(final SignalingServiceWebSocketClient client) {
+        if (closed || client != current) {
+            // Replaced while connecting, nobody else holds on to it
+            client.disconnect();
+            return;
+        }
+
+        Log.d(TAG, (everConnected ? "Reconnected" : "Connected") + " to signaling service");
+        final boolean reconnected = everConnected;
+        everConnected = true;
+        backoff.reset();
+
+        client.closeFuture().whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable throwable) {
+                runOnSupervisor(new Runnable() {
+                    @Override
+                    public void run() {
+                        scheduleReconnect(client, throwable != null
+                                ? throwable : new IllegalStateException("Signaling session closed"));
+                    }
+                });
+            }
+        });
+
+        firstConnect.complete(null);
+        if (connectionListener != null) {
+            connectionListener.onConnected(reconnected);
+        }
+    }
+
+    private void onConnectFailed(final SignalingServiceWebSocketClient client, final Throwable cause) {
+        if (client != null && client != current) {
+            // Replaced while connecting, its runtime reference is still held
+            client.disconnect();
+            return;
+        }
+        firstConnect.completeExceptionally(cause);
+        scheduleReconnect(client, cause);
+    }
+
+    private void scheduleReconnect(final SignalingServiceWebSocketClient client, final Throwable cause) {
+        if (closed || client != current || pendingReconnect != null) {
+            // Already replaced, a reconnect for this session is scheduled or done
+            return;
+        }
+        current = null;
+        if (client != null) {
+            client.disconnect();
+        }
+
+        final long delayMillis = backoff.nextDelayMillis();
+        Log.w(TAG, "Signaling connection lost (" + cause.getMessage() + "), reconnect attempt "
+                + backoff.getAttempt() + " in " + delayMillis + " ms");
+        SignalingTrace.LOG.record(TraceLog.Level.INFO, "Reconnecting after", cause.getMessage(), delayMillis);
+        if (connectionListener != null) {
+            connectionListener.onReconnecting(backoff.getAttempt(), delayMillis, cause);
+        }
+
+        pendingReconnect = supervisor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                attemptConnect();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void runOnSupervisor(final Runnable runnable) {
+        if (!closed) {
+            try {
+                supervisor.execute(runnable);
+            } catch (final RejectedExecutionException e) {
+                Log.d(TAG, "Supervisor stopped, ignoring connection update");
+            }
+        }
+    }
+}
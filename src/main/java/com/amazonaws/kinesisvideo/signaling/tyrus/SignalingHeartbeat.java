@@ -0,0 +1,140 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketConnection;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pings one open connection on a fixed interval, measures the round trip of each pong and reports the connection
+ * dead once too many pings in a row go unanswered.
+ *
+ * Each ping carries a sequence number, only the pong echoing the latest one yields a round trip sample. Any pong
+ * still counts as a sign of life.
+ */
+class SignalingHeartbeat {
+
+    private static final String TAG = "SignalingHeartbeat";
+
+    // Weight of a new sample in the smoothed round trip, as for TCP's SRTT
+    private static final double RTT_SMOOTHING = 0.125;
+
+    interface DeadConnectionListener {
+
+        void onDead(TimeoutException cause);
+    }
+
+    private final WebSocketConnection connection;
+    private final HeartbeatConfig config;
+    private final DeadConnectionListener deadConnectionListener;
+
+    // Guarded by this
+    private ScheduledFuture<?> task;
+    private long sequence;
+    private long outstandingSequence = -1;
+    private long outstandingSentNanos;
+    private int missedPongs;
+    private long lastRttNanos = -1;
+    private double smoothedRttNanos = -1;
+
+    SignalingHeartbeat(final WebSocketConnection connection, final HeartbeatConfig config,
+                       final DeadConnectionListener deadConnectionListener) {
+        this.connection = connection;
+        this.config = config;
+        this.deadConnectionListener = deadConnectionListener;
+    }
+
+    synchronized void start(final ScheduledExecutorService scheduler) {
+        if (task != null || !config.isEnabled()) {
+            return;
+        }
+        try {
+            task = scheduler.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    tick();
+                }
+            }, config.getIntervalMillis(), config.getIntervalMillis(), TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            Log.w(TAG, "Signaling runtime stopped, no heartbeat");
+        }
+    }
+
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    void onPong(final byte[] payload) {
+        final long now = System.nanoTime();
+        synchronized (this) {
+            missedPongs = 0;
+            if (payload.length != Long.SIZE / Byte.SIZE
+                    || ByteBuffer.wrap(payload).getLong() != outstandingSequence) {
+                return;
+            }
+            outstandingSequence = -1;
+            lastRttNanos = now - outstandingSentNanos;
+            smoothedRttNanos = smoothedRttNanos < 0 ? lastRttNanos
+                    : smoothedRttNanos + RTT_SMOOTHING * (lastRttNanos - smoothedRttNanos);
+            SignalingTrace.LOG.record(TraceLog.Level.DEBUG, "Pong, rtt us", null,
+                    TimeUnit.NANOSECONDS.toMicros(lastRttNanos));
+        }
+    }
+
+    /**
+     * @return round trip of the latest answered ping, -1 before the first one
+     */
+    synchronized long getLastRttMillis() {
+        return lastRttNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(lastRttNanos);
+    }
+
+    /**
+     * @return exponentially smoothed round trip, -1 before the first answered ping
+     */
+    synchronized long getSmoothedRttMillis() {
+        return smoothedRttNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis((long) smoothedRttNanos);
+    }
+
+    synchronized int getMissedPongs() {
+        return missedPongs;
+    }
+
+    // Scheduler thread
+    private void tick() {
+        final byte[] payload;
+        synchronized (this) {
+            if (outstandingSequence >= 0) {
+                missedPongs++;
+                Log.w(TAG, "No pong for ping " + outstandingSequence + ", " + missedPongs + " of "
+                        + config.getMaxMissedPongs() + " missed");
+            }
+            if (missedPongs >= config.getMaxMissedPongs()) {
+                task.cancel(false);
+                payload = null;
+            } else {
+                outstandingSequence = sequence++;
+                outstandingSentNanos = System.nanoTime();
+                payload = ByteBuffer.allocate(Long.SIZE / Byte.SIZE).putLong(outstandingSequence).array();
+            }
+        }
+
+        if (payload == null) {
+            deadConnectionListener.onDead(new TimeoutException(config.getMaxMissedPongs() + " pings of "
+                    + config.getIntervalMillis() + " ms went unanswered"));
+        } else if (!connection.sendPing(payload)) {
+            Log.d(TAG, "Transport does not expose pings, relying on its own keep alive");
+            stop();
+        }
+    }
+}
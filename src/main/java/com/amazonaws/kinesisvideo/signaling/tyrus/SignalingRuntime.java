@@ -0,0 +1,143 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import android.util.Log;
+
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ClientProperties;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads shared by every signaling session in the process.
+ *
+ * Sessions hold a reference for as long as they live, see {@link #acquire()} and {@link #release()}. Connecting
+ * and disconnecting run on a small pool of named threads with a bounded queue, timers share one thread, and all
+ * sessions share one Tyrus client container, so starting and stopping casts or running several sessions at once
+ * does not add threads. The runtime shuts down when the last reference is released and a new one is created on
+ * the next acquire.
+ */
+public final class SignalingRuntime {
+
+    private static final String TAG = "SignalingRuntime";
+
+    private static final int IO_THREADS = 2;
+    private static final int IO_QUEUE_CAPACITY = 32;
+    private static final int CONTAINER_WORKER_THREADS = 2;
+    private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+    private static SignalingRuntime shared;
+
+    private final ThreadPoolExecutor ioExecutor;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    // Guarded by SignalingRuntime.class
+    private int references;
+
+    private SignalingRuntime() {
+        ioExecutor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(IO_QUEUE_CAPACITY), new NamedThreadFactory("signaling-io-"));
+        ioExecutor.allowCoreThreadTimeOut(true);
+        scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("signaling-timer-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return the process-wide runtime, with one reference taken that the caller has to {@link #release()}
+     */
+    public static synchronized SignalingRuntime acquire() {
+        if (shared == null) {
+            Log.d(TAG, "Starting signaling runtime");
+            shared = new SignalingRuntime();
+        }
+        shared.references++;
+        return shared;
+    }
+
+    /**
+     * Drops a reference taken with {@link #acquire()}. Tasks already queued still run before the threads exit.
+     */
+    public void release() {
+        synchronized (SignalingRuntime.class) {
+            if (references == 0) {
+                throw new IllegalStateException("Signaling runtime released more often than acquired");
+            }
+            if (--references > 0) {
+                return;
+            }
+            if (shared == this) {
+                shared = null;
+            }
+        }
+        Log.d(TAG, "Last signaling session released, shutting down");
+        ioExecutor.shutdown();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Waits for tasks queued before the last release, for callers that need the runtime fully stopped.
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return ioExecutor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * @return number of threads currently alive in the connect/disconnect pool
+     */
+    public int getPoolSize() {
+        return ioExecutor.getPoolSize();
+    }
+
+    ExecutorService ioExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * @return single timer thread for reconnect backoff and other short signaling bookkeeping, tasks must not
+     * block
+     */
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return a client manager backed by the shared client container, which stops by itself once idle
+     */
+    ClientManager createClientManager() {
+        final ClientManager clientManager = ClientManager.createClient();
+        clientManager.getProperties().put(ClientProperties.SHARED_CONTAINER, true);
+        clientManager.getProperties().put(ClientProperties.SHARED_CONTAINER_IDLE_TIMEOUT, (int) IDLE_TIMEOUT_SECONDS);
+        clientManager.getProperties().put(ClientProperties.WORKER_THREAD_POOL_CONFIG,
+                ThreadPoolConfig.defaultConfig()
+                        .setPoolName("signaling-worker")
+                        .setCorePoolSize(1)
+                        .setMaxPoolSize(CONTAINER_WORKER_THREADS)
+                        .setDaemon(true));
+        return clientManager;
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package com.amazonaws.kinesisvideo.signaling.tyrus;
 
-import android.util.Base64;
 import android.util.Log;
 import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
 
 import com.amazonaws.kinesisvideo.signaling.model.Message;
-import com.google.gson.Gson;
-import org.glassfish.tyrus.client.ClientManager;
+import com.amazonaws.kinesisvideo.signaling.model.MessageEncoder;
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketTransport;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Signaling service client based on websocket.
@@ -19,17 +22,73 @@ public class SignalingServiceWebSocketClient {
 
     private static final String TAG = "SignalingServiceWebSocketClient";
 
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+
     private final WebSocketClient websocketClient;
 
-    private final ExecutorService executorService;
+    private final SignalingRuntime runtime;
+
+    private final AtomicBoolean released = new AtomicBoolean();
 
-    private final Gson gson = new Gson();
+    /**
+     * Connects over Tyrus.
+     *
+     * @param runtime shared signaling threads, obtained from {@link SignalingRuntime#acquire()}. The client takes
+     *                over that reference and releases it on {@link #disconnect()}.
+     */
+    public SignalingServiceWebSocketClient(final String uri, final SignalingListener signalingListener,
+                                           final SignalingRuntime runtime) {
+        this(uri, signalingListener, runtime, new TyrusTransport(runtime));
+    }
 
+    /**
+     * @param runtime   as above
+     * @param transport WebSocket implementation to connect with
+     */
     public SignalingServiceWebSocketClient(final String uri, final SignalingListener signalingListener,
-                                           final ExecutorService executorService) {
-        Log.d(TAG, "Connecting to URI " + uri + " as master");
-        websocketClient = new WebSocketClient(uri, new ClientManager(), signalingListener, executorService);
-        this.executorService = executorService;
+                                           final SignalingRuntime runtime, final WebSocketTransport transport) {
+        websocketClient = new WebSocketClient(uri, transport, signalingListener, runtime.scheduler());
+        this.runtime = runtime;
+    }
+
+    /**
+     * Connects with {@link #DEFAULT_CONNECT_TIMEOUT_MILLIS}.
+     *
+     * @see #connect(long)
+     */
+    public CompletableFuture<Void> connect() {
+        return connect(DEFAULT_CONNECT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Connects with the {@link HeartbeatConfig#DEFAULT default heartbeat}.
+     *
+     * @see #connect(long, HeartbeatConfig)
+     */
+    public CompletableFuture<Void> connect(final long timeoutMillis) {
+        return connect(timeoutMillis, HeartbeatConfig.DEFAULT);
+    }
+
+    /**
+     * Starts connecting to the signaling service without blocking the caller.
+     *
+     * @param timeoutMillis   how long the websocket handshake may take
+     * @param heartbeatConfig pings sent while the session is open. When they go unanswered the session is closed
+     *                        and {@link #closeFuture()} fails with a {@link java.util.concurrent.TimeoutException}.
+     * @return future completed once the session is open and the listener is registered, or completed
+     * exceptionally if the connection could not be opened in time
+     */
+    public CompletableFuture<Void> connect(final long timeoutMillis, final HeartbeatConfig heartbeatConfig) {
+        Log.d(TAG, "Connecting to signaling service");
+        return websocketClient.connect(timeoutMillis, heartbeatConfig);
+    }
+
+    /**
+     * @return future completed when the session closes after having been opened, or completed exceptionally
+     * when it fails
+     */
+    public CompletableFuture<Void> closeFuture() {
+        return websocketClient.closeFuture();
     }
 
     public boolean isOpen() {
@@ -37,67 +96,78 @@ public class SignalingServiceWebSocketClient {
     }
 
     public void sendSdpOffer(final Message offer) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                if (offer.getAction().equalsIgnoreCase("SDP_OFFER")) {
-
-                    Log.d(TAG, "Sending Offer");
+        if (offer.getAction().equalsIgnoreCase("SDP_OFFER")) {
 
-                    send(offer);
-                }
-            }
-        });
+            send(offer);
+        }
     }
 
     public void sendSdpAnswer(final Message answer) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                if (answer.getAction().equalsIgnoreCase("SDP_ANSWER")) {
-
-                    Log.d(TAG, "Answer sent " + new String(Base64.decode(answer.getMessagePayload().getBytes(),
-                            Base64.NO_WRAP | Base64.NO_PADDING | Base64.URL_SAFE)));
+        if (answer.getAction().equalsIgnoreCase("SDP_ANSWER")) {
 
-                    send(answer);
-                }
-            }
-        });
+            send(answer);
+        }
     }
 
     public void sendIceCandidate(final Message candidate) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                if (candidate.getAction().equalsIgnoreCase("ICE_CANDIDATE")) {
+        if (candidate.getAction().equalsIgnoreCase("ICE_CANDIDATE")) {
 
-                    send(candidate);
-                }
+            send(candidate);
+        }
+    }
 
-                Log.d(TAG, "Sent Ice candidate message");
-            }
-        });
+    /**
+     * @return round trip of the latest answered heartbeat ping in milliseconds, -1 if none was answered yet
+     */
+    public long getLastRttMillis() {
+        final SignalingHeartbeat heartbeat = websocketClient.getHeartbeat();
+        return heartbeat != null ? heartbeat.getLastRttMillis() : -1;
     }
 
+    /**
+     * @return smoothed heartbeat round trip in milliseconds, -1 if no ping was answered yet
+     */
+    public long getSmoothedRttMillis() {
+        final SignalingHeartbeat heartbeat = websocketClient.getHeartbeat();
+        return heartbeat != null ? heartbeat.getSmoothedRttMillis() : -1;
+    }
+
+    /**
+     * @return depth, send latency and drop counts of the outbound queue
+     */
+    public OutboundQueueStats getOutboundStats() {
+        return websocketClient.getOutboundStats();
+    }
+
+    /**
+     * Closes the session in the background and releases the runtime reference. Safe to call more than once.
+     */
     public void disconnect() {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                websocketClient.disconnect();
-            }
-        });
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            executorService.awaitTermination(1, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Log.e(TAG, "Error in disconnect");
+            runtime.ioExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    websocketClient.disconnect();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            Log.w(TAG, "Signaling runtime is busy, disconnecting on caller thread");
+            websocketClient.disconnect();
         }
+        // Already queued tasks still run if this was the last reference
+        runtime.release();
     }
 
-    private void send(final Message message) {
-        String jsonMessage = gson.toJson(message);
-        Log.d(TAG, "Sending JSON Message= " + jsonMessage);
-        websocketClient.send(jsonMessage);
-        Log.d(TAG, "Sent JSON Message= " + jsonMessage);
+    // Messages are written in the order they are queued here, by a single writer per connection
+    CompletableFuture<Void> send(final Message message) {
+        String jsonMessage = MessageEncoder.forCurrentThread().encode(message);
+        SignalingTrace.LOG.record(TraceLog.Level.DEBUG, "Sending", message.getAction(),
+                message.getRecipientClientId(), jsonMessage.length());
+        SignalingTrace.LOG.record(TraceLog.Level.VERBOSE, "Sending", jsonMessage);
+        return websocketClient.send(jsonMessage);
     }
 
 }
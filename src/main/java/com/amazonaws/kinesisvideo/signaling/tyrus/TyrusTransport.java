@@ -0,0 +1,174 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketConnection;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketTransport;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ClientProperties;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.PongMessage;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+/**
+ * JSR356 transport on the Tyrus client, sharing one client container through the {@link SignalingRuntime}.
+ *
+ * Tyrus connects synchronously, so handshakes run on the runtime's I/O threads.
+ */
+public class TyrusTransport implements WebSocketTransport {
+
+    private static final String TAG = "TyrusTransport";
+
+    static final long DEFAULT_SEND_TIMEOUT_MILLIS = 10000;
+
+    private final SignalingRuntime runtime;
+
+    private final boolean logHttpUpgrade;
+
+    public TyrusTransport(final SignalingRuntime runtime) {
+        this(runtime, true);
+    }
+
+    /**
+     * @param logHttpUpgrade print the upgrade request and response, off for benchmarks
+     */
+    public TyrusTransport(final SignalingRuntime runtime, final boolean logHttpUpgrade) {
+        this.runtime = runtime;
+        this.logHttpUpgrade = logHttpUpgrade;
+    }
+
+    @Override
+    public String getName() {
+        return "tyrus";
+    }
+
+    @Override
+    public CompletableFuture<WebSocketConnection> connect(final URI uri,
+                                                          final WebSocketConnection.Listener listener,
+                                                          final long timeoutMillis,
+                                                          final HeartbeatConfig heartbeatConfig) {
+        final CompletableFuture<WebSocketConnection> opened = new CompletableFuture<>();
+
+        final ClientManager clientManager = runtime.createClientManager();
+        clientManager.getProperties().put(ClientProperties.LOG_HTTP_UPGRADE, logHttpUpgrade);
+        clientManager.getProperties().put(ClientProperties.HANDSHAKE_TIMEOUT, (int) timeoutMillis);
+
+        final Endpoint endpoint = new Endpoint() {
+
+            @Override
+            public void onOpen(final Session session, final EndpointConfig endpointConfig) {
+                Log.d(TAG, "Registering message handler");
+                session.addMessageHandler(new MessageHandler.Whole<String>() {
+                    @Override
+                    public void onMessage(final String message) {
+                        listener.onMessage(message);
+                    }
+                });
+                session.addMessageHandler(new MessageHandler.Whole<PongMessage>() {
+                    @Override
+                    public void onMessage(final PongMessage pong) {
+                        final ByteBuffer data = pong.getApplicationData();
+                        final byte[] payload = new byte[data.remaining()];
+                        data.get(payload);
+                        listener.onPong(payload);
+                    }
+                });
+                opened.complete(new TyrusConnection(session));
+            }
+
+            @Override
+            public void onClose(final Session session, final CloseReason closeReason) {
+                super.onClose(session, closeReason);
+                listener.onClosed(closeReason.getCloseCode().getCode(), closeReason.getReasonPhrase());
+            }
+
+            @Override
+            public void onError(final Session session, final Throwable thr) {
+                super.onError(session, thr);
+                Log.w(TAG, thr);
+                if (!opened.completeExceptionally(thr) && !session.isOpen()) {
+                    listener.onFailure(thr);
+                }
+            }
+        };
+
+        try {
+            runtime.ioExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        clientManager.connectToServer(endpoint, ClientEndpointConfig.Builder.create().build(), uri);
+                    } catch (final DeploymentException | IOException e) {
+                        opened.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            Log.e(TAG, "Signaling runtime is busy or stopped, not connecting");
+            opened.completeExceptionally(e);
+        }
+
+        return opened;
+    }
+
+    private static final class TyrusConnection implements WebSocketConnection {
+
+        private final Session session;
+
+        TyrusConnection(final Session session) {
+            this.session = session;
+            session.getAsyncRemote().setSendTimeout(DEFAULT_SEND_TIMEOUT_MILLIS);
+        }
+
+        @Override
+        public void sendText(final String message, final SendCallback callback) {
+            session.getAsyncRemote().sendText(message, new SendHandler() {
+                @Override
+                public void onResult(final SendResult result) {
+                    callback.onComplete(result.isOK() ? null : result.getException());
+                }
+            });
+        }
+
+        @Override
+        public boolean sendPing(final byte[] payload) {
+            try {
+                session.getAsyncRemote().sendPing(ByteBuffer.wrap(payload));
+            } catch (final IOException | IllegalStateException e) {
+                // The heartbeat counts the missing pong
+                Log.w(TAG, "Ping failed " + e.getMessage());
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return session.isOpen();
+        }
+
+        @Override
+        public void close() {
+            try {
+                session.close();
+            } catch (final IOException e) {
+                Log.e(TAG, "Exception" + e.getMessage());
+            }
+        }
+    }
+}
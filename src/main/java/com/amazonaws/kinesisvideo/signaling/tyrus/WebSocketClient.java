@@ -3,119 +3,212 @@ package com.amazonaws.kinesisvideo.signaling.tyrus;
 import android.util.Log;
 
 import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.SignalingTrace;
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketConnection;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketTransport;
+import com.amazonaws.kinesisvideo.utils.TraceLog;
 
-import org.glassfish.tyrus.client.ClientManager;
-import org.glassfish.tyrus.client.ClientProperties;
-
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
-
-import javax.websocket.ClientEndpointConfig;
-import javax.websocket.CloseReason;
-import javax.websocket.DeploymentException;
-import javax.websocket.Endpoint;
-import javax.websocket.EndpointConfig;
-import javax.websocket.Session;
-
-import static org.awaitility.Awaitility.await;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /**
- * A JSR356 based websocket client.
+ * A websocket client on top of a pluggable {@link WebSocketTransport}.
  */
 
 class WebSocketClient {
 
     private static final String TAG = "WebSocketClient";
 
-    private Session session;
+    private volatile WebSocketConnection connection;
 
-    private final ExecutorService executorService;
+    private final String uri;
 
-    WebSocketClient(final String uri, final ClientManager clientManager,
-                    final SignalingListener signalingListener,
-                    final ExecutorService executorService) {
+    private final WebSocketTransport transport;
 
-        this.executorService = executorService;
-        final ClientEndpointConfig cec = ClientEndpointConfig.Builder.create().build();
+    private final SignalingListener signalingListener;
 
-        clientManager.getProperties().put(ClientProperties.LOG_HTTP_UPGRADE, true);
+    private final CompletableFuture<Void> openFuture = new CompletableFuture<>();
 
+    private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
 
-        Endpoint endpoint = new Endpoint() {
+    private final OutboundMessageQueue outbound = new OutboundMessageQueue(OutboundMessageQueue.DEFAULT_CAPACITY);
 
-            @Override
-            public void onOpen(final Session session, final EndpointConfig endpointConfig) {
-                Log.d(TAG, "Registering message handler");
-                session.addMessageHandler(signalingListener.getMessageHandler());
-            }
+    private final WebSocketConnection.Listener connectionListener;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile SignalingHeartbeat heartbeat;
+
+    WebSocketClient(final String uri, final WebSocketTransport transport,
+                    final SignalingListener signalingListener, final ScheduledExecutorService scheduler) {
+
+        this.uri = uri;
+        this.transport = transport;
+        this.signalingListener = signalingListener;
+        this.scheduler = scheduler;
+
+        connectionListener = new WebSocketConnection.Listener() {
 
             @Override
-            public void onClose(final Session session, final CloseReason closeReason) {
-                super.onClose(session, closeReason);
-                Log.d(TAG, "Session " + session.getRequestURI() + " closed with reason " +
-                        closeReason.getReasonPhrase());
+            public void onMessage(final String message) {
+                signalingListener.onMessage(message);
             }
 
             @Override
-            public void onError(final Session session, final Throwable thr) {
-                super.onError(session, thr);
-                Log.w(TAG, thr);
+            public void onPong(final byte[] payload) {
+                final SignalingHeartbeat current = heartbeat;
+                if (current != null) {
+                    current.onPong(payload);
+                }
             }
 
-        };
-
-        executorService.submit(new Runnable() {
             @Override
-            public void run() {
-                try {
-                    session = clientManager.connectToServer(endpoint, cec, new URI(uri));
-                } catch (final DeploymentException | IOException | URISyntaxException e) {
-                    signalingListener.onException(e);
-                }
+            public void onClosed(final int code, final String reason) {
+                Log.d(TAG, "Session closed with code " + code + " reason " + reason + ", outbound "
+                        + outbound.getStats());
+                SignalingTrace.LOG.record(TraceLog.Level.INFO, "Session closed", reason, code);
+                stopHeartbeat();
+                outbound.close();
+                closeFuture.complete(null);
             }
-        });
 
-        await().atMost(10, TimeUnit.SECONDS).until(new Callable<Boolean>() {
             @Override
-            public Boolean call() {
-                return WebSocketClient.this.isOpen();
+            public void onFailure(final Throwable cause) {
+                Log.w(TAG, "Session failed, outbound " + outbound.getStats(), cause);
+                SignalingTrace.LOG.record(TraceLog.Level.WARN, "Session failed", cause);
+                stopHeartbeat();
+                outbound.close();
+                closeFuture.completeExceptionally(cause);
             }
-        });
+        };
     }
 
-    boolean isOpen() {
-        if (session != null) {
-            Log.d(TAG, " isOpen " + session.isOpen());
-            return session.isOpen();
+    /**
+     * Starts the opening handshake and returns without waiting for it.
+     *
+     * @param timeoutMillis   how long the handshake may take before the returned future fails
+     * @param heartbeatConfig pings sent once the session is open
+     * @return future completed when the session is open, or completed exceptionally if connecting fails
+     */
+    CompletableFuture<Void> connect(final long timeoutMillis, final HeartbeatConfig heartbeatConfig) {
 
-        } else {
-            return false;
+        final URI serverUri;
+        try {
+            serverUri = new URI(uri);
+        } catch (final URISyntaxException e) {
+            openFuture.completeExceptionally(e);
+            signalingListener.onException(e);
+            return openFuture;
         }
+
+        Log.d(TAG, "Connecting over " + transport.getName());
+        SignalingTrace.LOG.record(TraceLog.Level.INFO, "Connecting over", transport.getName());
+        transport.connect(serverUri, connectionListener, timeoutMillis, heartbeatConfig).whenComplete(
+                new BiConsumer<WebSocketConnection, Throwable>() {
+                    @Override
+                    public void accept(final WebSocketConnection opened, final Throwable throwable) {
+                        if (throwable != null) {
+                            openFuture.completeExceptionally(throwable);
+                            if (throwable instanceof Exception) {
+                                signalingListener.onException((Exception) throwable);
+                            }
+                            return;
+                        }
+                        connection = opened;
+                        outbound.open(opened);
+                        if (!openFuture.complete(null)) {
+                            // Disconnected while the handshake was in progress
+                            outbound.close();
+                            opened.close();
+                            return;
+                        }
+                        startHeartbeat(opened, heartbeatConfig);
+                    }
+                });
+
+        return openFuture;
     }
 
-    void send(final String message) {
-        try {
-            session.getBasicRemote().sendText(message);
-        } catch (final IOException e) {
+    /**
+     * @return future completed once an opened session is closed, or completed exceptionally if it failed
+     */
+    CompletableFuture<Void> closeFuture() {
+        return closeFuture;
+    }
 
-            Log.e(TAG, "Exception" + e.getMessage());
+    boolean isOpen() {
+        final WebSocketConnection current = connection;
+        return current != null && current.isOpen();
+    }
+
+    /**
+     * Queues the message behind any earlier ones without waiting for it to be written.
+     *
+     * @return future completed once the message is on the wire, or completed exceptionally if it was dropped
+     */
+    CompletableFuture<Void> send(final String message) {
+        final CompletableFuture<Void> sent = outbound.enqueue(message);
+        if (sent.isCompletedExceptionally()) {
+            Log.e(TAG, "Dropping message, connection is not open or outbound queue is full");
+            SignalingTrace.LOG.record(TraceLog.Level.WARN, "Dropped outbound message", null,
+                    outbound.getStats().getDepth());
         }
+        return sent;
+    }
+
+    OutboundQueueStats getOutboundStats() {
+        return outbound.getStats();
+    }
+
+    SignalingHeartbeat getHeartbeat() {
+        return heartbeat;
     }
 
     void disconnect() {
-        if (session.isOpen()) {
-            try {
-                session.close();
-                executorService.shutdownNow();
-            } catch (final IOException e) {
-                Log.e(TAG, "Exception" + e.getMessage());
-            }
+        stopHeartbeat();
+        outbound.close();
+        final WebSocketConnection current = connection;
+        if (current == null) {
+            Log.w(TAG, "Connection was never opened");
+            openFuture.cancel(false);
+        } else if (current.isOpen()) {
+            current.close();
         } else {
-            Log.w(TAG, "Connection already closed for " + session.getRequestURI());
+            Log.w(TAG, "Connection already closed");
+        }
+    }
+
+    private void startHeartbeat(final WebSocketConnection opened, final HeartbeatConfig heartbeatConfig) {
+        final SignalingHeartbeat started = new SignalingHeartbeat(opened, heartbeatConfig,
+                new SignalingHeartbeat.DeadConnectionListener() {
+                    @Override
+                    public void onDead(final TimeoutException cause) {
+                        // Half-open, the close handshake would not get through either. Failing the close future
+                        // hands the session to whoever reconnects.
+                        Log.w(TAG, "Signaling connection is dead: " + cause.getMessage());
+                        SignalingTrace.LOG.record(TraceLog.Level.WARN, "Connection dead", cause.getMessage());
+                        closeFuture.completeExceptionally(cause);
+                        outbound.close();
+                        opened.close();
+                    }
+                });
+        heartbeat = started;
+        started.start(scheduler);
+        if (closeFuture.isDone()) {
+            // Closed while the heartbeat was being set up
+            started.stop();
+        }
+    }
+
+    private void stopHeartbeat() {
+        final SignalingHeartbeat current = heartbeat;
+        if (current != null) {
+            current.stop();
         }
     }
 
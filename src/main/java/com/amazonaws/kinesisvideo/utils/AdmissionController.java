@@ -0,0 +1,131 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides whether a master takes on another viewer and how the device uplink is shared between viewers.
+ *
+ * Every viewer needs an encoder of its own and a share of the uplink. A viewer is rejected when all encoder
+ * slots are taken, the CPU is already loaded beyond the limit, or less than the minimum viewer bitrate is left
+ * of the uplink budget. Viewers are served in the order they were admitted: the earliest get up to the maximum
+ * viewer bitrate, a later one that only gets part of it is admitted degraded. Budget freed by a leaving viewer
+ * goes to the earliest degraded ones, and a lower budget is taken from the latest first, so viewers already
+ * watching keep their quality as others join.
+ */
+public final class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    public enum Decision {
+        ADMITTED,
+        DEGRADED,
+        REJECTED
+    }
+
+    private final int maxViewerBitrateBps;
+    private final int minViewerBitrateBps;
+    private final int encoderSlots;
+    private final double maxCpuLoad;
+
+    // Guarded by this
+    private long uplinkBudgetBps;
+    private double cpuLoad;
+    // Bitrate granted to each viewer, in admission order
+    private final LinkedHashMap<String, Integer> allocations = new LinkedHashMap<>();
+
+    /**
+     * @param maxCpuLoad share of all cores, from 0 to 1, above which no further viewer is admitted
+     */
+    public AdmissionController(final long uplinkBudgetBps, final int maxViewerBitrateBps,
+                               final int minViewerBitrateBps, final int encoderSlots, final double maxCpuLoad) {
+        if (minViewerBitrateBps > maxViewerBitrateBps) {
+            throw new IllegalArgumentException("Minimum viewer bitrate above the maximum");
+        }
+        this.uplinkBudgetBps = uplinkBudgetBps;
+        this.maxViewerBitrateBps = maxViewerBitrateBps;
+        this.minViewerBitrateBps = minViewerBitrateBps;
+        this.encoderSlots = encoderSlots;
+        this.maxCpuLoad = maxCpuLoad;
+    }
+
+    /**
+     * Called for every offer. A viewer already admitted, sending an offer again, keeps its share.
+     */
+    public synchronized Decision admit(final String viewerId) {
+        if (!allocations.containsKey(viewerId)) {
+            if (allocations.size() >= encoderSlots) {
+                logger.warn("Rejecting viewer {}, all {} encoder slots in use", viewerId, encoderSlots);
+                return Decision.REJECTED;
+            }
+            if (cpuLoad >= maxCpuLoad) {
+                logger.warn("Rejecting viewer {}, CPU load {} above {}", viewerId, cpuLoad, maxCpuLoad);
+                return Decision.REJECTED;
+            }
+            final long remaining = uplinkBudgetBps - allocatedBps();
+            if (remaining < minViewerBitrateBps) {
+                logger.warn("Rejecting viewer {}, {} bps of the uplink budget left", viewerId, remaining);
+                return Decision.REJECTED;
+            }
+            allocations.put(viewerId, 0);
+            rebalance();
+        }
+
+        final Decision decision = allocations.get(viewerId) < maxViewerBitrateBps
+                ? Decision.DEGRADED : Decision.ADMITTED;
+        logger.debug("Viewer {} {} with {} bps, {} viewer(s)", viewerId, decision, allocations.get(viewerId),
+                allocations.size());
+        return decision;
+    }
+
+    /**
+     * Frees the encoder slot and uplink share of a viewer that left or failed.
+     */
+    public synchronized void release(final String viewerId) {
+        if (allocations.remove(viewerId) != null) {
+            rebalance();
+        }
+    }
+
+    /**
+     * @return bitrate the viewer's sender is capped to, 0 if it is not admitted
+     */
+    public synchronized int getBitrateCapBps(final String viewerId) {
+        final Integer allocation = allocations.get(viewerId);
+        return allocation == null ? 0 : allocation;
+    }
+
+    public synchronized void setUplinkBudgetBps(final long uplinkBudgetBps) {
+        this.uplinkBudgetBps = uplinkBudgetBps;
+        rebalance();
+    }
+
+    public synchronized void setCpuLoad(final double cpuLoad) {
+        this.cpuLoad = cpuLoad;
+    }
+
+    public synchronized int getViewerCount() {
+        return allocations.size();
+    }
+
+    private long allocatedBps() {
+        long allocated = 0;
+        for (final int allocation : allocations.values()) {
+            allocated += allocation;
+        }
+        return allocated;
+    }
+
+    // Earliest viewers first, no one goes below the minimum even if the budget dropped under the total
+    private void rebalance() {
+        long remaining = uplinkBudgetBps;
+        for (final Map.Entry<String, Integer> entry : allocations.entrySet()) {
+            final int allocation = (int) Math.max(minViewerBitrateBps, Math.min(maxViewerBitrateBps, remaining));
+            entry.setValue(allocation);
+            remaining -= allocation;
+        }
+    }
+}
@@ -2,31 +2,22 @@ package com.amazonaws.kinesisvideo.utils;
 
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
-import com.google.common.collect.ImmutableMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
-import java.util.StringJoiner;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
-import static com.google.common.hash.Hashing.sha256;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
@@ -45,36 +36,106 @@ public class AwsV4Signer {
     private static final String X_AMZ_SECURITY_TOKEN = "X-Amz-Security-Token";
     private static final String X_AMZ_SIGNATURE = "X-Amz-Signature";
     private static final String X_AMZ_SIGNED_HEADERS = "X-Amz-SignedHeaders";
-    private static final String NEW_LINE_DELIMITER = "\n";
     private static final String DATE_PATTERN = "yyyyMMdd";
     private static final String TIME_PATTERN = "yyyyMMdd'T'HHmmss'Z'";
 
     private static final String METHOD = "GET";
     private static final String SIGNED_HEADERS = "host";
+    private static final String HMAC_SHA_256 = "HmacSHA256";
+    private static final String SHA_256 = "SHA-256";
+
+    // Lifetime of a presigned URL in seconds, sent as X-Amz-Expires
+    static final int EXPIRES_SECONDS = 299;
+    private static final String EXPIRES = String.valueOf(EXPIRES_SECONDS);
+
+    // Hex encoded SHA-256 of the empty request payload, which never changes for presigned GET requests
+    static final String EMPTY_PAYLOAD_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final SigningKeyCache signingKeyCache = new SigningKeyCache();
+
+    // Mac and MessageDigest are not thread safe but are expensive to look up, so keep one of each per thread
+    private static final ThreadLocal<Mac> threadMac = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                return Mac.getInstance(HMAC_SHA_256);
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<SigV4Canonicalizer> threadCanonicalizer = new ThreadLocal<SigV4Canonicalizer>() {
+        @Override
+        protected SigV4Canonicalizer initialValue() {
+            return new SigV4Canonicalizer();
+        }
+    };
+
+    private static final ThreadLocal<MessageDigest> threadDigest = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance(SHA_256);
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    };
 
     // Guide - https://docs.aws.amazon.com/general/latest/gr/sigv4_signing.html
     // Implementation based on https://docs.aws.amazon.com/general/latest/gr/sigv4-signed-request-examples.html#sig-v4-examples-get-query-string
     public static URI sign(final URI uri, final String accessKey, final String secretKey,
                            final String sessionToken, final URI wssUri, final String region) {
 
-        final long dateMilli = new Date().getTime();
+        return sign(uri, accessKey, secretKey, sessionToken, wssUri, region, new Date().getTime());
+    }
+
+    static URI sign(final URI uri, final String accessKey, final String secretKey,
+                    final String sessionToken, final URI wssUri, final String region, final long dateMilli) {
+
         final String amzDate = getTimeStamp(dateMilli);
         final String datestamp = getDateStamp(dateMilli);
+        final String credentialScope = createCredentialScope(region, datestamp);
+        final String canonicalUri = getCanonicalUri(uri);
+
+        final SigV4Canonicalizer canonicalizer = threadCanonicalizer.get().reset()
+                .addParam(X_AMZ_ALGORITHM, ALGORITHM_AWS4_HMAC_SHA_256)
+                .addParam(X_AMZ_CREDENTIAL, accessKey + "/" + credentialScope)
+                .addParam(X_AMZ_DATE, amzDate)
+                .addParam(X_AMZ_EXPIRES, EXPIRES)
+                .addParam(X_AMZ_SIGNED_HEADERS, SIGNED_HEADERS);
+
+        if (isNotEmpty(sessionToken)) {
+            canonicalizer.addParam(X_AMZ_SECURITY_TOKEN, sessionToken);
+        }
+
+        if (isNotEmpty(uri.getQuery())) {
+            canonicalizer.addQuery(uri.getQuery());
+        }
+
+        // The buffer holds the canonical query string, followed by scratch space for the canonical request
+        // and then the string to sign, which are hashed in place and dropped again
+        final int queryEnd = canonicalizer.appendCanonicalQuery();
+
+        canonicalizer.appendCanonicalRequest(METHOD, canonicalUri, canonicalizer.buffer(), 0, queryEnd,
+                uri.getHost(), SIGNED_HEADERS, EMPTY_PAYLOAD_HASH);
+        final byte[] canonicalRequestHash = canonicalizer.digest(threadDigest.get(), queryEnd);
+        canonicalizer.truncate(queryEnd);
+
+        canonicalizer.appendStringToSign(ALGORITHM_AWS4_HMAC_SHA_256, amzDate, credentialScope, canonicalRequestHash);
+        final byte[] signature = canonicalizer.mac(initMac(signingKeyCache.get(secretKey, datestamp, region, SERVICE)), queryEnd);
+        canonicalizer.truncate(queryEnd);
 
-        final Map<String, String> queryParamsMap = buildQueryParamsMap(uri, accessKey, sessionToken, region, amzDate, datestamp);
-        final String canonicalQuerystring = getCanonicalizedQueryString(queryParamsMap);
-        final String canonicalRequest = getCanonicalRequest(uri, canonicalQuerystring);
-        final String stringToSign = signString(amzDate, createCredentialScope(region, datestamp), canonicalRequest);
-        final byte[] signatureKey = getSignatureKey(secretKey, datestamp, region, SERVICE);
-        final String signature = BinaryUtils.toHex(hmacSha256(stringToSign, signatureKey));
-        final String signedCanonicalQueryString = canonicalQuerystring + "&" + X_AMZ_SIGNATURE + "=" + signature;
+        canonicalizer.append("&" + X_AMZ_SIGNATURE + "=");
+        canonicalizer.appendHex(signature);
 
         URI uriResult = null;
         try {
             uriResult = new URI(wssUri.getScheme(),
                     wssUri.getRawAuthority(),
-                    getCanonicalUri(uri),
-                    signedCanonicalQueryString,
+                    canonicalUri,
+                    canonicalizer.toString(),
                     null);
         } catch (URISyntaxException e) {
             logger.error(e.getMessage());
@@ -83,47 +144,15 @@ public class AwsV4Signer {
         return uriResult;
     }
 
-    private static Map<String, String> buildQueryParamsMap(URI uri, String accessKey, String sessionToken, String region, String amzDate, String datestamp) {
-        final ImmutableMap.Builder<String, String> queryParamsBuilder = ImmutableMap.<String, String>builder()
-                .put(X_AMZ_ALGORITHM, ALGORITHM_AWS4_HMAC_SHA_256)
-                .put(X_AMZ_CREDENTIAL, urlEncode(accessKey + "/" + createCredentialScope(region, datestamp)))
-                .put(X_AMZ_DATE, amzDate)
-                .put(X_AMZ_EXPIRES, "299")
-                .put(X_AMZ_SIGNED_HEADERS, SIGNED_HEADERS);
-
-        if (isNotEmpty(sessionToken)) {
-            queryParamsBuilder.put(X_AMZ_SECURITY_TOKEN, urlEncode(sessionToken));
-        }
-
-        if (isNotEmpty(uri.getQuery())) {
-            final String[] params = uri.getQuery().split("&");
-            for (final String param : params) {
-                final int index = param.indexOf('=');
-                if (index > 0) {
-                    queryParamsBuilder.put(param.substring(0, index), urlEncode(param.substring(index + 1)));
-                }
-            }
-        }
-        return queryParamsBuilder.build();
-    }
-
     private static String createCredentialScope(String region, String datestamp) {
-        return new StringJoiner("/").add(datestamp).add(region).add(SERVICE).add(AWS4_REQUEST_TYPE).toString();
+        return datestamp + "/" + region + "/" + SERVICE + "/" + AWS4_REQUEST_TYPE;
     }
 
     static String getCanonicalRequest(URI uri, String canonicalQuerystring) {
-        final String payloadHash = sha256().hashString(EMPTY, UTF_8).toString();
-        final String canonicalUri = getCanonicalUri(uri);
-        final String canonicalHeaders = "host:" + uri.getHost() + NEW_LINE_DELIMITER;
-        final String canonicalRequest = new StringJoiner(NEW_LINE_DELIMITER).add(METHOD)
-                .add(canonicalUri)
-                .add(canonicalQuerystring)
-                .add(canonicalHeaders)
-                .add(SIGNED_HEADERS)
-                .add(payloadHash)
-                .toString();
-
-       return canonicalRequest;
+        final SigV4Canonicalizer canonicalizer = threadCanonicalizer.get().reset();
+        canonicalizer.appendCanonicalRequest(METHOD, getCanonicalUri(uri), canonicalQuerystring, 0,
+                canonicalQuerystring.length(), uri.getHost(), SIGNED_HEADERS, EMPTY_PAYLOAD_HASH);
+        return canonicalizer.toString();
     }
 
     private static String getCanonicalUri(URI uri) {
@@ -131,33 +160,33 @@ public class AwsV4Signer {
     }
 
     static String signString(String amzDate, String credentialScope, String canonicalRequest) {
-        final String stringToSign = new StringJoiner(NEW_LINE_DELIMITER).add(ALGORITHM_AWS4_HMAC_SHA_256)
-                .add(amzDate)
-                .add(credentialScope)
-                .add(sha256().hashString(canonicalRequest, UTF_8).toString())
-                .toString();
-        return stringToSign;
+        final SigV4Canonicalizer canonicalizer = threadCanonicalizer.get().reset();
+        canonicalizer.append(canonicalRequest);
+        final byte[] canonicalRequestHash = canonicalizer.digest(threadDigest.get(), 0);
+        canonicalizer.truncate(0);
+        canonicalizer.appendStringToSign(ALGORITHM_AWS4_HMAC_SHA_256, amzDate, credentialScope, canonicalRequestHash);
+        return canonicalizer.toString();
     }
 
-    private static String urlEncode(final String str) {
+    private static Mac initMac(final byte[] key) {
+        final Mac mac = threadMac.get();
         try {
-            return URLEncoder.encode(str, UTF_8.name());
-        } catch (final UnsupportedEncodingException e) {
+            mac.init(new SecretKeySpec(key, HMAC_SHA_256));
+            return mac;
+        } catch (final InvalidKeyException e) {
             throw new IllegalArgumentException(e.getMessage(), e);
         }
     }
 
     //  https://docs.aws.amazon.com/general/latest/gr/signature-v4-examples.html#signature-v4-examples-java
     static byte[] hmacSha256(final String data, final byte[] key) {
-        final String algorithm = "HmacSHA256";
-        final Mac mac;
-        try {
-            mac = Mac.getInstance(algorithm);
-            mac.init(new SecretKeySpec(key, algorithm));
-            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        } catch (final NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new IllegalArgumentException(e.getMessage(), e);
-        }
+        return initMac(key).doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256Hex(final String data) {
+        final MessageDigest digest = threadDigest.get();
+        digest.reset();
+        return BinaryUtils.toHex(digest.digest(data.getBytes(StandardCharsets.UTF_8)));
     }
 
     //   https://docs.aws.amazon.com/general/latest/gr/signature-v4-examples.html#signature-v4-examples-java
@@ -183,18 +212,11 @@ public class AwsV4Signer {
     }
 
     static String getCanonicalizedQueryString(Map<String, String> queryParamsMap) {
-        final List<String> queryKeys = new ArrayList<>(queryParamsMap.keySet());
-        Collections.sort(queryKeys);
-
-        final StringBuilder builder = new StringBuilder();
-
-        for (int i = 0; i < queryKeys.size(); i++) {
-            builder.append(queryKeys.get(i)).append("=").append(queryParamsMap.get(queryKeys.get(i)));
-            if (queryKeys.size() - 1 > i) {
-                builder.append("&");
-            }
+        final SigV4Canonicalizer canonicalizer = threadCanonicalizer.get().reset();
+        for (final Map.Entry<String, String> param : queryParamsMap.entrySet()) {
+            canonicalizer.addParam(param.getKey(), param.getValue());
         }
-
-        return builder.toString();
+        canonicalizer.appendCanonicalQuery();
+        return canonicalizer.toString();
     }
 }
\ No newline at end of file
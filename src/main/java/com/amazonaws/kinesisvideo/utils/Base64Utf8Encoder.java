@@ -0,0 +1,74 @@
+package com.amazonaws.kinesisvideo.utils;
+
+/**
+ * Appends the URL safe, unpadded Base64 encoding of a text's UTF-8 bytes, without materializing the bytes.
+ *
+ * Produces the same output as {@code Base64.encode(text.getBytes(UTF_8), URL_SAFE | NO_PADDING | NO_WRAP)}, the
+ * encoding the signaling messages use for their payload. Unpaired surrogates are encoded as '?', as by
+ * {@link String#getBytes}.
+ */
+public final class Base64Utf8Encoder {
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private final StringBuilder out;
+
+    // Bytes of the current three byte group, most significant first
+    private int bits;
+    private int byteCount;
+
+    private Base64Utf8Encoder(final StringBuilder out) {
+        this.out = out;
+    }
+
+    public static void encodeUrlSafe(final CharSequence text, final StringBuilder out) {
+        final Base64Utf8Encoder encoder = new Base64Utf8Encoder(out);
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                encoder.write(c);
+            } else if (c < 0x800) {
+                encoder.write(0xC0 | (c >> 6));
+                encoder.write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                encoder.write(0xF0 | (codePoint >> 18));
+                encoder.write(0x80 | ((codePoint >> 12) & 0x3F));
+                encoder.write(0x80 | ((codePoint >> 6) & 0x3F));
+                encoder.write(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                encoder.write('?');
+            } else {
+                encoder.write(0xE0 | (c >> 12));
+                encoder.write(0x80 | ((c >> 6) & 0x3F));
+                encoder.write(0x80 | (c & 0x3F));
+            }
+        }
+        encoder.finish();
+    }
+
+    private void write(final int b) {
+        bits = (bits << 8) | b;
+        if (++byteCount == 3) {
+            out.append(ALPHABET[(bits >> 18) & 0x3F])
+                    .append(ALPHABET[(bits >> 12) & 0x3F])
+                    .append(ALPHABET[(bits >> 6) & 0x3F])
+                    .append(ALPHABET[bits & 0x3F]);
+            bits = 0;
+            byteCount = 0;
+        }
+    }
+
+    private void finish() {
+        if (byteCount == 1) {
+            out.append(ALPHABET[(bits >> 2) & 0x3F])
+                    .append(ALPHABET[(bits << 4) & 0x3F]);
+        } else if (byteCount == 2) {
+            out.append(ALPHABET[(bits >> 10) & 0x3F])
+                    .append(ALPHABET[(bits >> 4) & 0x3F])
+                    .append(ALPHABET[(bits << 2) & 0x3F]);
+        }
+    }
+}
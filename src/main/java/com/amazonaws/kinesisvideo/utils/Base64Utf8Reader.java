@@ -0,0 +1,155 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the UTF-8 text encoded in a Base64 string, decoding both on the fly.
+ *
+ * Lets a parser consume a Base64 payload without first copying it into a byte array and then into a string. Accepts
+ * the standard and the URL safe alphabet, skips whitespace and stops at the first padding character.
+ */
+public class Base64Utf8Reader extends Reader {
+
+    private static final int INVALID = -1;
+    private static final int SKIP = -2;
+    private static final int PAD = -3;
+
+    private static final int[] SEXTETS = new int[128];
+
+    static {
+        for (int i = 0; i < SEXTETS.length; i++) {
+            SEXTETS[i] = INVALID;
+        }
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            SEXTETS[alphabet.charAt(i)] = i;
+        }
+        SEXTETS['+'] = 62;
+        SEXTETS['-'] = 62;
+        SEXTETS['/'] = 63;
+        SEXTETS['_'] = 63;
+        SEXTETS['='] = PAD;
+        SEXTETS[' '] = SKIP;
+        SEXTETS['\t'] = SKIP;
+        SEXTETS['\r'] = SKIP;
+        SEXTETS['\n'] = SKIP;
+    }
+
+    private final CharSequence encoded;
+
+    private int position;
+    private boolean ended;
+
+    // Up to three decoded bytes not consumed yet
+    private final int[] bytes = new int[3];
+    private int byteCount;
+    private int byteIndex;
+
+    // Second half of a surrogate pair that did not fit into the caller's buffer
+    private int pendingLowSurrogate = -1;
+
+    public Base64Utf8Reader(final CharSequence encoded) {
+        this.encoded = encoded;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+        int count = 0;
+        while (count < length) {
+            if (pendingLowSurrogate >= 0) {
+                buffer[offset + count++] = (char) pendingLowSurrogate;
+                pendingLowSurrogate = -1;
+                continue;
+            }
+
+            final int lead = nextByte();
+            if (lead < 0) {
+                break;
+            }
+            if (lead < 0x80) {
+                buffer[offset + count++] = (char) lead;
+            } else if ((lead & 0xE0) == 0xC0) {
+                buffer[offset + count++] = (char) (((lead & 0x1F) << 6) | continuation());
+            } else if ((lead & 0xF0) == 0xE0) {
+                buffer[offset + count++] = (char) (((lead & 0x0F) << 12) | (continuation() << 6) | continuation());
+            } else if ((lead & 0xF8) == 0xF0) {
+                final int codePoint = ((lead & 0x07) << 18) | (continuation() << 12) | (continuation() << 6)
+                        | continuation();
+                if (!Character.isSupplementaryCodePoint(codePoint)) {
+                    throw new IOException("Invalid UTF-8 code point " + codePoint);
+                }
+                buffer[offset + count++] = Character.highSurrogate(codePoint);
+                pendingLowSurrogate = Character.lowSurrogate(codePoint);
+            } else {
+                throw new IOException("Invalid UTF-8 lead byte " + lead);
+            }
+        }
+        return count == 0 && length > 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() {
+        ended = true;
+        byteCount = 0;
+        pendingLowSurrogate = -1;
+    }
+
+    private int continuation() throws IOException {
+        final int next = nextByte();
+        if (next < 0 || (next & 0xC0) != 0x80) {
+            throw new IOException("Truncated UTF-8 sequence");
+        }
+        return next & 0x3F;
+    }
+
+    private int nextByte() throws IOException {
+        if (byteIndex == byteCount && !decodeQuantum()) {
+            return -1;
+        }
+        return bytes[byteIndex++];
+    }
+
+    // Decodes up to four characters into up to three bytes
+    private boolean decodeQuantum() throws IOException {
+        byteIndex = 0;
+        byteCount = 0;
+        int bits = 0;
+        int sextets = 0;
+        while (sextets < 4 && !ended && position < encoded.length()) {
+            final char c = encoded.charAt(position++);
+            final int sextet = c < SEXTETS.length ? SEXTETS[c] : INVALID;
+            if (sextet >= 0) {
+                bits = (bits << 6) | sextet;
+                sextets++;
+            } else if (sextet == PAD) {
+                ended = true;
+            } else if (sextet == INVALID) {
+                throw new IOException("Invalid Base64 character at " + (position - 1));
+            }
+        }
+
+        switch (sextets) {
+            case 4:
+                bytes[0] = (bits >> 16) & 0xFF;
+                bytes[1] = (bits >> 8) & 0xFF;
+                bytes[2] = bits & 0xFF;
+                byteCount = 3;
+                break;
+            case 3:
+                bytes[0] = (bits >> 10) & 0xFF;
+                bytes[1] = (bits >> 2) & 0xFF;
+                byteCount = 2;
+                break;
+            case 2:
+                bytes[0] = (bits >> 4) & 0xFF;
+                byteCount = 1;
+                break;
+            case 0:
+                return false;
+            default:
+                throw new IOException("Truncated Base64 input");
+        }
+        return true;
+    }
+}
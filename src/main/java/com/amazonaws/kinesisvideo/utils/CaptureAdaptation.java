@@ -0,0 +1,161 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Capture size and frame rate of a screen cast, derived from the display and adapted to the link.
+ *
+ * The formats keep the aspect ratio of the display, the largest one at its resolution up to a maximum long side.
+ * Under pressure the frame rate goes down first and the resolution only after, so text stays legible for as long as
+ * the link allows while frames stop piling up in the encoder. A format is dropped right away once the estimated
+ * bandwidth no longer carries it, or after several stats samples reporting the encoder limited by CPU or bandwidth.
+ * The next format up is taken after several samples in a row with room for it and no limitation.
+ *
+ * Not thread safe, update it from one thread.
+ */
+public final class CaptureAdaptation {
+
+    // Bits per pixel and frame screen content takes at a legible quality
+    static final double BITS_PER_PIXEL = 0.05;
+
+    // Share of the estimated bandwidth the capture may be sized for
+    static final double HEADROOM = 0.85;
+
+    static final int DOWN_SAMPLES = 2;
+    static final int UP_SAMPLES = 3;
+
+    // Resolution scale and share of the maximum frame rate, from the best format down
+    private static final double[][] STEPS = {
+            {1.0, 1.0},
+            {1.0, 0.5},
+            {0.75, 0.5},
+            {0.5, 1.0 / 3},
+            {0.5, 1.0 / 6},
+    };
+
+    public static final class Format {
+
+        private final int width;
+        private final int height;
+        private final int fps;
+
+        Format(final int width, final int height, final int fps) {
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getFps() {
+            return fps;
+        }
+
+        double bitrateBps() {
+            return (double) width * height * fps * BITS_PER_PIXEL;
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height + "@" + fps;
+        }
+    }
+
+    private final int maxLongSide;
+    private final int maxFps;
+
+    private List<Format> formats;
+    private int current;
+    private int limitedCount;
+    private int fitsAboveCount;
+
+    /**
+     * @param maxLongSide largest width or height captured, whatever the display resolution
+     */
+    public CaptureAdaptation(final int displayWidth, final int displayHeight, final int maxLongSide,
+                             final int maxFps) {
+        if (maxLongSide < 2 || maxFps < 1) {
+            throw new IllegalArgumentException("Invalid capture limits " + maxLongSide + "@" + maxFps);
+        }
+        this.maxLongSide = maxLongSide;
+        this.maxFps = maxFps;
+        setDisplaySize(displayWidth, displayHeight);
+    }
+
+    /**
+     * Follows a rotation or resize of the display, staying on the same step of the ladder.
+     */
+    public void setDisplaySize(final int displayWidth, final int displayHeight) {
+        if (displayWidth <= 0 || displayHeight <= 0) {
+            throw new IllegalArgumentException("Invalid display size " + displayWidth + "x" + displayHeight);
+        }
+        final double fit = Math.min(1.0, (double) maxLongSide / Math.max(displayWidth, displayHeight));
+        final List<Format> formats = new ArrayList<>(STEPS.length);
+        for (final double[] step : STEPS) {
+            formats.add(new Format(even(displayWidth * fit * step[0]), even(displayHeight * fit * step[0]),
+                    Math.max(1, (int) Math.round(maxFps * step[1]))));
+        }
+        this.formats = Collections.unmodifiableList(formats);
+    }
+
+    // Encoders want even dimensions for the chroma planes
+    private static int even(final double size) {
+        return Math.max(2, ((int) Math.round(size)) & ~1);
+    }
+
+    public List<Format> getFormats() {
+        return formats;
+    }
+
+    public Format getCurrent() {
+        return formats.get(current);
+    }
+
+    /**
+     * @param availableBitrateBps     estimated outgoing bandwidth, ignored if not positive
+     * @param qualityLimitationReason from the outbound video stats, "cpu" or "bandwidth" count as pressure, null or
+     *                                anything else as none
+     * @return the format to capture from now on
+     */
+    public Format update(final double availableBitrateBps, final String qualityLimitationReason) {
+        final boolean limited = "cpu".equals(qualityLimitationReason)
+                || "bandwidth".equals(qualityLimitationReason);
+        final double budget = availableBitrateBps > 0 ? availableBitrateBps * HEADROOM : Double.MAX_VALUE;
+
+        if (formats.get(current).bitrateBps() > budget) {
+            // Down right away, to the best format that fits or the lowest one
+            while (current < formats.size() - 1 && formats.get(current).bitrateBps() > budget) {
+                current++;
+            }
+            limitedCount = 0;
+            fitsAboveCount = 0;
+        } else if (limited) {
+            fitsAboveCount = 0;
+            if (++limitedCount >= DOWN_SAMPLES && current < formats.size() - 1) {
+                current++;
+                limitedCount = 0;
+            }
+        } else {
+            limitedCount = 0;
+            // Without an estimate there is no telling whether the next format fits
+            if (current > 0 && availableBitrateBps > 0 && formats.get(current - 1).bitrateBps() <= budget) {
+                if (++fitsAboveCount >= UP_SAMPLES) {
+                    current--;
+                    fitsAboveCount = 0;
+                }
+            } else {
+                fitsAboveCount = 0;
+            }
+        }
+
+        return getCurrent();
+    }
+}
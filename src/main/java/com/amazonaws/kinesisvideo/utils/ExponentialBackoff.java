@@ -0,0 +1,55 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with equal jitter.
+ *
+ * The n-th delay is picked uniformly from [cap / 2, cap] where cap = min(maxDelay, baseDelay * 2^n). Spreading the
+ * retries keeps many clients that lost the same connection at the same time from reconnecting in lockstep.
+ */
+public class ExponentialBackoff {
+
+    private static final int MAX_SHIFT = 30;
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Random random;
+
+    private int attempt;
+
+    public ExponentialBackoff(final long baseDelayMillis, final long maxDelayMillis) {
+        this(baseDelayMillis, maxDelayMillis, new Random());
+    }
+
+    ExponentialBackoff(final long baseDelayMillis, final long maxDelayMillis, final Random random) {
+        if (baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Invalid backoff range " + baseDelayMillis + "-" + maxDelayMillis);
+        }
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.random = random;
+    }
+
+    /**
+     * @return delay before the next attempt, growing with every call until {@link #reset()}
+     */
+    public synchronized long nextDelayMillis() {
+        final int shift = Math.min(attempt, MAX_SHIFT);
+        final long cap = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        attempt++;
+        final long half = cap / 2;
+        return half + (long) (random.nextDouble() * (cap - half));
+    }
+
+    /**
+     * @return number of delays handed out since the last reset
+     */
+    public synchronized int getAttempt() {
+        return attempt;
+    }
+
+    public synchronized void reset() {
+        attempt = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * FNV-1a style hash over the planes of a video frame, for {@link StaticFrameThrottle}.
+ *
+ * Every byte of a plane contributes, eight at a time. Each step is invertible for the same input that follows, so
+ * frames that differ in a single sample always hash differently. Row padding beyond the plane's width is left out,
+ * it is not part of the picture.
+ */
+public final class FrameContentHash {
+
+    public static final long SEED = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final int WORD_BYTES = Long.SIZE / Byte.SIZE;
+
+    private FrameContentHash() {
+    }
+
+    /**
+     * @param hash  hash of the planes before this one, {@link #SEED} for the first plane
+     * @param plane samples of the plane, rows of {@code width} bytes {@code stride} bytes apart, from index 0
+     * @return hash including this plane
+     */
+    public static long hashPlane(long hash, final ByteBuffer plane, final int stride, final int width,
+                                 final int height) {
+        for (int row = 0; row < height; row++) {
+            final int rowStart = row * stride;
+            final int rowEnd = rowStart + width;
+            int index = rowStart;
+            for (; index + WORD_BYTES <= rowEnd; index += WORD_BYTES) {
+                hash = (hash ^ plane.getLong(index)) * PRIME;
+            }
+            for (; index < rowEnd; index++) {
+                hash = (hash ^ (plane.get(index) & 0xff)) * PRIME;
+            }
+        }
+        return hash;
+    }
+}
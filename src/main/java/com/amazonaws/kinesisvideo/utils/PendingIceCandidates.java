@@ -0,0 +1,90 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Remote ICE candidates of one peer held back until its remote description is applied.
+ *
+ * Signaling delivers candidates as soon as the remote side gathers them, often before the offer or answer they
+ * belong to has been set, and a peer connection refuses candidates without a remote description. They are queued
+ * here while {@link #isReady()} is false and handed back in arrival order by {@link #release()} once the description
+ * is set. The queue is bounded, candidates beyond the capacity are dropped and counted.
+ *
+ * Not thread safe, each peer uses its own from its event loop.
+ *
+ * @param <T> candidate type
+ */
+public final class PendingIceCandidates<T> {
+
+    private final int capacity;
+
+    private final List<T> pending = new ArrayList<>();
+
+    private boolean ready;
+    private int held;
+    private int dropped;
+
+    public PendingIceCandidates(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return true once the remote description is applied, candidates can be added to the connection directly
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Queues a candidate that arrived before the remote description was applied.
+     *
+     * @return false if the queue is full and the candidate was dropped
+     */
+    public boolean hold(final T candidate) {
+        if (pending.size() >= capacity) {
+            dropped++;
+            return false;
+        }
+        pending.add(candidate);
+        held++;
+        return true;
+    }
+
+    /**
+     * Marks the remote description as applied.
+     *
+     * @return queued candidates in arrival order, to be added to the connection now
+     */
+    public List<T> release() {
+        ready = true;
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<T> released = new ArrayList<>(pending);
+        pending.clear();
+        return released;
+    }
+
+    /**
+     * Holds candidates again, for a new remote description of the same peer that is not applied yet.
+     */
+    public void reset() {
+        ready = false;
+    }
+
+    /**
+     * @return candidates queued so far, including released ones
+     */
+    public int getHeld() {
+        return held;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+}
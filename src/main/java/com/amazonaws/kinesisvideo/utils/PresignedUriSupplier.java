@@ -0,0 +1,250 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.amazonaws.auth.CognitoCredentialsProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps presigned master and viewer signaling URIs ready ahead of time.
+ *
+ * Credentials are fetched and both URIs are signed on a background thread, and signed again before either
+ * the URIs ({@link AwsV4Signer#EXPIRES_SECONDS}) or the session credentials expire. Connecting or reconnecting
+ * to the signaling channel then only reads the latest URI instead of waiting on a credentials round trip and
+ * signing.
+ *
+ * Credentials are fetched from the provider again for every refresh, which lets providers that do not tell their
+ * expiry, like AWSMobileClient, renew them before they run out. Cached credentials are only reused while their
+ * expiry is known and ahead.
+ */
+public class PresignedUriSupplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresignedUriSupplier.class);
+
+    private static final long URI_VALIDITY_MILLIS = TimeUnit.SECONDS.toMillis(AwsV4Signer.EXPIRES_SECONDS);
+
+    // Sign again this long before the URI or the credentials expire
+    private static final long REFRESH_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    // A URI closer than this to its expiry is not handed out, there would be no time left to connect with it
+    private static final long MIN_REMAINING_VALIDITY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final long MIN_REFRESH_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    // Retries after a failed refresh, or while the provider keeps returning credentials that are about to expire
+    private static final long MIN_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final AWSCredentialsProvider credentialsProvider;
+    private final URI wssUri;
+    private final URI masterUri;
+    private final URI viewerUri;
+    private final String region;
+
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    // URIs together with the credentials they were signed with, replaced as a whole
+    private volatile SignedUris current;
+
+    private final ExponentialBackoff retryBackoff = new ExponentialBackoff(MIN_RETRY_DELAY_MILLIS,
+            MAX_RETRY_DELAY_MILLIS);
+
+    private ScheduledFuture<?> refreshTask;
+
+    public PresignedUriSupplier(final AWSCredentialsProvider credentialsProvider, final String wssEndpoint,
+                                final String channelArn, final String clientId, final String region) {
+        this(credentialsProvider, wssEndpoint, channelArn, clientId, region,
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "PresignedUriSupplier");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }), true);
+    }
+
+    public PresignedUriSupplier(final AWSCredentialsProvider credentialsProvider, final String wssEndpoint,
+                                final String channelArn, final String clientId, final String region,
+                                final ScheduledExecutorService scheduler) {
+        this(credentialsProvider, wssEndpoint, channelArn, clientId, region, scheduler, false);
+    }
+
+    private PresignedUriSupplier(final AWSCredentialsProvider credentialsProvider, final String wssEndpoint,
+                                 final String channelArn, final String clientId, final String region,
+                                 final ScheduledExecutorService scheduler, final boolean ownsScheduler) {
+        this.credentialsProvider = credentialsProvider;
+        this.wssUri = URI.create(wssEndpoint);
+        this.masterUri = URI.create(wssEndpoint + "?X-Amz-ChannelARN=" + channelArn);
+        this.viewerUri = URI.create(wssEndpoint + "?X-Amz-ChannelARN=" + channelArn + "&X-Amz-ClientId=" + clientId);
+        this.region = region;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    /**
+     * Starts signing in the background. Returns immediately.
+     */
+    public synchronized void start() {
+        if (refreshTask == null) {
+            schedule(0);
+        }
+    }
+
+    public synchronized void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @param master true for the master URI, false for the viewer URI
+     * @return a presigned URI with enough validity left to connect with
+     */
+    public URI getSignedUri(final boolean master) {
+        final long now = System.currentTimeMillis();
+        SignedUris signedUris = current;
+        if (signedUris == null || !signedUris.isUsable(now)) {
+            // Background refresh has not caught up, sign in place. Without cached credentials that are known to
+            // be valid this is the only case that still pays for a credentials round trip on the caller's thread.
+            logger.warn("No usable presigned URI cached, signing on caller thread");
+            signedUris = signedUris != null && signedUris.hasValidCredentials(now)
+                    ? signWith(signedUris.credentials, signedUris.credentialsExpiresAt)
+                    : signWithFreshCredentials();
+        }
+        return master ? signedUris.master : signedUris.viewer;
+    }
+
+    public URI getMasterUri() {
+        return getSignedUri(true);
+    }
+
+    public URI getViewerUri() {
+        return getSignedUri(false);
+    }
+
+    /**
+     * @return delay until the next refresh
+     */
+    long refresh() {
+        long nextDelay;
+        try {
+            final SignedUris signedUris = signWithFreshCredentials();
+            final long now = System.currentTimeMillis();
+            if (signedUris.credentialsExpireBy(now + REFRESH_MARGIN_MILLIS)) {
+                // Asking again right away would most likely return the same credentials
+                nextDelay = retryBackoff.nextDelayMillis();
+                logger.warn("Credentials expire within the refresh margin, asking again in {} ms", nextDelay);
+            } else {
+                retryBackoff.reset();
+                nextDelay = Math.max(MIN_REFRESH_DELAY_MILLIS, signedUris.refreshAt - now);
+                logger.debug("Presigned signaling URIs refreshed, next refresh in {} ms", nextDelay);
+            }
+        } catch (final Exception e) {
+            nextDelay = retryBackoff.nextDelayMillis();
+            logger.error("Failed to refresh presigned signaling URIs: " + e.getMessage());
+        }
+        synchronized (this) {
+            if (refreshTask != null) {
+                schedule(nextDelay);
+            }
+        }
+        return nextDelay;
+    }
+
+    private void schedule(final long delayMillis) {
+        refreshTask = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private SignedUris signWithFreshCredentials() {
+        final AWSCredentials fetched = credentialsProvider.getCredentials();
+        final Date expiration = getCredentialsExpiration();
+        return signWith(fetched, expiration != null ? expiration.getTime() : 0);
+    }
+
+    private SignedUris signWith(final AWSCredentials creds, final long credentialsExpiresAt) {
+        final long signedAt = System.currentTimeMillis();
+        final String sessionToken = creds instanceof AWSSessionCredentials
+                ? ((AWSSessionCredentials) creds).getSessionToken() : "";
+
+        final URI signedMaster = AwsV4Signer.sign(masterUri, creds.getAWSAccessKeyId(), creds.getAWSSecretKey(),
+                sessionToken, wssUri, region, signedAt);
+        final URI signedViewer = AwsV4Signer.sign(viewerUri, creds.getAWSAccessKeyId(), creds.getAWSSecretKey(),
+                sessionToken, wssUri, region, signedAt);
+
+        // The URI is refused once the credentials it was signed with expire, even if X-Amz-Expires is not reached
+        long expiresAt = signedAt + URI_VALIDITY_MILLIS;
+        if (credentialsExpiresAt > 0) {
+            expiresAt = Math.min(expiresAt, credentialsExpiresAt);
+        }
+
+        final SignedUris signedUris = new SignedUris(signedMaster, signedViewer, expiresAt,
+                expiresAt - REFRESH_MARGIN_MILLIS, creds, credentialsExpiresAt);
+        current = signedUris;
+        return signedUris;
+    }
+
+    // Overridden in tests
+    Date getCredentialsExpiration() {
+        if (credentialsProvider instanceof CognitoCredentialsProvider) {
+            return ((CognitoCredentialsProvider) credentialsProvider).getSessionCredentitalsExpiration();
+        }
+        return null;
+    }
+
+    private static final class SignedUris {
+
+        private final URI master;
+        private final URI viewer;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AWSCredentials credentials;
+        // 0 when the provider does not tell
+        private final long credentialsExpiresAt;
+
+        SignedUris(final URI master, final URI viewer, final long expiresAt, final long refreshAt,
+                   final AWSCredentials credentials, final long credentialsExpiresAt) {
+            this.master = master;
+            this.viewer = viewer;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.credentials = credentials;
+            this.credentialsExpiresAt = credentialsExpiresAt;
+        }
+
+        boolean isUsable(final long now) {
+            return master != null && viewer != null && now < expiresAt - MIN_REMAINING_VALIDITY_MILLIS;
+        }
+
+        // Credentials of unknown expiry are never assumed valid
+        boolean hasValidCredentials(final long at) {
+            return credentialsExpiresAt - MIN_REMAINING_VALIDITY_MILLIS > at;
+        }
+
+        // Known to expire, credentials of unknown expiry are renewed by their provider
+        boolean credentialsExpireBy(final long at) {
+            return credentialsExpiresAt > 0 && credentialsExpiresAt - MIN_REMAINING_VALIDITY_MILLIS <= at;
+        }
+    }
+}
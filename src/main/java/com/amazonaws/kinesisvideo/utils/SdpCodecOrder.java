@@ -0,0 +1,119 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reorders the payload types of media sections in a session description, to put preferred codecs first.
+ *
+ * The first codec of a media section is the one the remote side is asked to use, and what it will send if it
+ * supports it. Retransmission payloads (rtx with an apt parameter) move along with the codec they protect, codecs
+ * without a preference keep their order after the preferred ones. Sections of other media are left alone.
+ */
+public final class SdpCodecOrder {
+
+    private SdpCodecOrder() {
+    }
+
+    /**
+     * @param media           media of the sections to reorder, "video" or "audio"
+     * @param preferredCodecs codec names as in a=rtpmap, from the most preferred, compared ignoring case
+     * @return the description with reordered sections, or the same one if nothing changed
+     */
+    public static String prefer(final String sdp, final String media, final List<String> preferredCodecs) {
+        if (preferredCodecs.isEmpty()) {
+            return sdp;
+        }
+        final String lineEnd = sdp.contains("\r\n") ? "\r\n" : "\n";
+        final List<String> lines = new ArrayList<>(Arrays.asList(sdp.split(lineEnd, -1)));
+
+        boolean changed = false;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith("m=" + media + " ")) {
+                final String reordered = reorder(lines, i, preferredCodecs);
+                if (!reordered.equals(lines.get(i))) {
+                    lines.set(i, reordered);
+                    changed = true;
+                }
+            }
+        }
+        return changed ? join(lines, lineEnd) : sdp;
+    }
+
+    // m=<media> <port> <proto> <payload types...>, the attributes of the section follow up to the next m= line
+    private static String reorder(final List<String> lines, final int mLine, final List<String> preferredCodecs) {
+        final String[] fields = lines.get(mLine).split(" ");
+        if (fields.length <= 4) {
+            return lines.get(mLine);
+        }
+
+        final Map<String, String> codecByPayload = new HashMap<>();
+        final Map<String, List<String>> rtxByPayload = new HashMap<>();
+        for (int i = mLine + 1; i < lines.size() && !lines.get(i).startsWith("m="); i++) {
+            final String line = lines.get(i);
+            if (line.startsWith("a=rtpmap:")) {
+                final int space = line.indexOf(' ');
+                final int slash = line.indexOf('/', space);
+                if (space > 0 && slash > space) {
+                    codecByPayload.put(line.substring("a=rtpmap:".length(), space),
+                            line.substring(space + 1, slash).toLowerCase(Locale.US));
+                }
+            } else if (line.startsWith("a=fmtp:")) {
+                final int space = line.indexOf(' ');
+                final int apt = line.indexOf("apt=", space);
+                if (space > 0 && apt > 0) {
+                    int end = line.indexOf(';', apt);
+                    if (end < 0) {
+                        end = line.length();
+                    }
+                    final String protectedPayload = line.substring(apt + "apt=".length(), end).trim();
+                    List<String> rtx = rtxByPayload.get(protectedPayload);
+                    if (rtx == null) {
+                        rtx = new ArrayList<>();
+                        rtxByPayload.put(protectedPayload, rtx);
+                    }
+                    rtx.add(line.substring("a=fmtp:".length(), space));
+                }
+            }
+        }
+
+        final List<String> payloads = Arrays.asList(fields).subList(3, fields.length);
+        final Set<String> ordered = new LinkedHashSet<>();
+        for (final String codec : preferredCodecs) {
+            for (final String payload : payloads) {
+                if (codec.toLowerCase(Locale.US).equals(codecByPayload.get(payload))) {
+                    ordered.add(payload);
+                    final List<String> rtx = rtxByPayload.get(payload);
+                    if (rtx != null) {
+                        ordered.addAll(rtx);
+                    }
+                }
+            }
+        }
+        ordered.addAll(payloads);
+
+        final StringBuilder line = new StringBuilder(fields[0]).append(' ').append(fields[1]).append(' ')
+                .append(fields[2]);
+        for (final String payload : ordered) {
+            line.append(' ').append(payload);
+        }
+        return line.toString();
+    }
+
+    private static String join(final List<String> lines, final String lineEnd) {
+        final StringBuilder sdp = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                sdp.append(lineEnd);
+            }
+            sdp.append(lines.get(i));
+        }
+        return sdp.toString();
+    }
+}
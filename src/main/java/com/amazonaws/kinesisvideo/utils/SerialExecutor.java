@@ -0,0 +1,218 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks one at a time, in the order they were submitted, on threads borrowed from another executor.
+ *
+ * Each peer connection gets its own instance as an event loop: signaling callbacks and WebRTC observer
+ * callbacks only enqueue, and all state of the peer is read and written from the tasks of its loop, so it needs
+ * no further locking. Submitting never blocks on a running task. Loops sharing a pool hand their thread back
+ * after a batch of tasks, so one busy peer does not starve the others. A task that throws is logged and the
+ * loop carries on with the next one.
+ */
+public final class SerialExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+
+    static final int BATCH_SIZE = 32;
+
+    private final String name;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private boolean scheduled;
+    private boolean running;
+    private boolean shutdown;
+    private Runnable finalTask;
+    private int maxPending;
+    private long dropped;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            runBatch();
+        }
+    };
+
+    public SerialExecutor(final String name, final Executor executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a task behind the ones already submitted. Once {@link #shutdown()} was called, or once the underlying
+     * executor no longer accepts the loop, tasks are dropped. Callers are WebRTC and signaling threads, which should
+     * not fail because the peer went away.
+     */
+    @Override
+    public void execute(final Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        synchronized (lock) {
+            if (shutdown) {
+                dropped++;
+                return;
+            }
+            tasks.add(task);
+            maxPending = Math.max(maxPending, tasks.size());
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Drops the tasks still queued and any submitted later. A task already running completes.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            dropped += tasks.size();
+            tasks.clear();
+        }
+    }
+
+    /**
+     * Waits for the task running at {@link #shutdown()}, so state owned by the loop can be released safely.
+     *
+     * @return false if the task is still running after the timeout
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (running || !shutdown) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Runs a task once the loop has terminated, to release state owned by it. Without a task running at
+     * {@link #shutdown()} it runs right away on the calling thread, otherwise on the loop's thread as soon as the
+     * running task completes, so the caller does not have to wait for it.
+     *
+     * @throws IllegalStateException if the loop was not shut down
+     */
+    public void runWhenTerminated(final Runnable task) {
+        synchronized (lock) {
+            if (!shutdown) {
+                throw new IllegalStateException("Event loop " + name + " is not shut down");
+            }
+            if (running) {
+                finalTask = task;
+                return;
+            }
+        }
+        task.run();
+    }
+
+    public boolean isShutdown() {
+        synchronized (lock) {
+            return shutdown;
+        }
+    }
+
+    /**
+     * @return number of tasks waiting behind the running one
+     */
+    public int getPending() {
+        synchronized (lock) {
+            return tasks.size();
+        }
+    }
+
+    /**
+     * @return largest number of tasks that were waiting at once
+     */
+    public int getMaxPending() {
+        synchronized (lock) {
+            return maxPending;
+        }
+    }
+
+    /**
+     * @return number of tasks discarded by or after {@link #shutdown()}
+     */
+    public long getDropped() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (lock) {
+                scheduled = false;
+                dropped += tasks.size();
+                tasks.clear();
+            }
+            logger.warn("Event loop " + name + " rejected by its executor, queued tasks dropped");
+        }
+    }
+
+    private void runBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final Runnable task;
+            synchronized (lock) {
+                task = tasks.poll();
+                if (task == null) {
+                    scheduled = false;
+                    return;
+                }
+                running = true;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Task in event loop " + name + " failed", e);
+            } finally {
+                final Runnable terminated;
+                synchronized (lock) {
+                    running = false;
+                    terminated = finalTask;
+                    finalTask = null;
+                    lock.notifyAll();
+                }
+                if (terminated != null) {
+                    runFinalTask(terminated);
+                }
+            }
+        }
+        synchronized (lock) {
+            if (tasks.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        // More work left, go to the back of the pool's queue so other loops get a turn
+        schedule();
+    }
+
+    private void runFinalTask(final Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Final task of event loop " + name + " failed", e);
+        }
+    }
+}
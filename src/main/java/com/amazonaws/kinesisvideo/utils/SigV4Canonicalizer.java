@@ -0,0 +1,250 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+
+/**
+ * Single pass builder for the SigV4 canonical query string, canonical request and string to sign.
+ *
+ * Everything is written into one reusable character buffer. Query parameters are kept sorted on insert and
+ * RFC 3986 encoded while they are written, and the canonical request and string to sign are hashed straight
+ * from the buffer, so signing does not materialize intermediate maps, lists, joiners or Strings.
+ *
+ * Instances are not thread safe, {@link AwsV4Signer} keeps one per thread.
+ */
+final class SigV4Canonicalizer {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] PERCENT_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final StringBuilder buffer = new StringBuilder(2048);
+
+    private String[] names = new String[8];
+    private String[] values = new String[8];
+    private int paramCount;
+
+    private byte[] utf8 = new byte[2048];
+
+    SigV4Canonicalizer reset() {
+        for (int i = 0; i < paramCount; i++) {
+            names[i] = null;
+            values[i] = null;
+        }
+        paramCount = 0;
+        buffer.setLength(0);
+        return this;
+    }
+
+    /**
+     * Adds a query parameter, keeping parameters sorted by name. The value is RFC 3986 encoded when written.
+     */
+    SigV4Canonicalizer addParam(final String name, final String value) {
+        if (paramCount == names.length) {
+            final String[] newNames = new String[paramCount * 2];
+            final String[] newValues = new String[paramCount * 2];
+            System.arraycopy(names, 0, newNames, 0, paramCount);
+            System.arraycopy(values, 0, newValues, 0, paramCount);
+            names = newNames;
+            values = newValues;
+        }
+
+        int index = paramCount;
+        while (index > 0) {
+            final int comparison = names[index - 1].compareTo(name);
+            if (comparison == 0) {
+                throw new IllegalArgumentException("Duplicate query parameter " + name);
+            }
+            if (comparison < 0) {
+                break;
+            }
+            names[index] = names[index - 1];
+            values[index] = values[index - 1];
+            index--;
+        }
+        names[index] = name;
+        values[index] = value;
+        paramCount++;
+        return this;
+    }
+
+    /**
+     * Splits a raw {@code name=value&name=value} query and adds every parameter with a non empty name.
+     */
+    SigV4Canonicalizer addQuery(final String query) {
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            final int separator = query.indexOf('=', start);
+            if (separator > start && separator < end) {
+                addParam(query.substring(start, separator), query.substring(separator + 1, end));
+            }
+            start = end + 1;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the sorted canonical query string at the end of the buffer.
+     *
+     * @return the buffer length after the query string
+     */
+    int appendCanonicalQuery() {
+        for (int i = 0; i < paramCount; i++) {
+            if (i > 0) {
+                buffer.append('&');
+            }
+            buffer.append(names[i]).append('=');
+            appendEncoded(values[i]);
+        }
+        return buffer.length();
+    }
+
+    /**
+     * Writes the canonical request for a presigned GET at the end of the buffer, copying the canonical query
+     * from {@code query[queryStart, queryEnd)}.
+     */
+    void appendCanonicalRequest(final String method, final String canonicalUri, final CharSequence query,
+                                final int queryStart, final int queryEnd, final String host,
+                                final String signedHeaders, final String payloadHash) {
+        buffer.append(method).append('\n')
+                .append(canonicalUri).append('\n')
+                .append(query, queryStart, queryEnd).append('\n')
+                .append("host:").append(host).append('\n')
+                .append('\n')
+                .append(signedHeaders).append('\n')
+                .append(payloadHash);
+    }
+
+    /**
+     * Writes the string to sign at the end of the buffer.
+     */
+    void appendStringToSign(final String algorithm, final String amzDate, final String credentialScope,
+                            final byte[] canonicalRequestHash) {
+        buffer.append(algorithm).append('\n')
+                .append(amzDate).append('\n')
+                .append(credentialScope).append('\n');
+        appendHex(canonicalRequestHash);
+    }
+
+    /**
+     * Hashes the buffer contents from {@code from} to the end.
+     */
+    byte[] digest(final MessageDigest digest, final int from) {
+        digest.reset();
+        digest.update(utf8, 0, encodeUtf8(from));
+        return digest.digest();
+    }
+
+    /**
+     * Feeds the buffer contents from {@code from} to the end into an initialized Mac.
+     */
+    byte[] mac(final Mac mac, final int from) {
+        mac.update(utf8, 0, encodeUtf8(from));
+        return mac.doFinal();
+    }
+
+    void appendHex(final byte[] bytes) {
+        for (final byte b : bytes) {
+            buffer.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+    }
+
+    void append(final String value) {
+        buffer.append(value);
+    }
+
+    void truncate(final int length) {
+        buffer.setLength(length);
+    }
+
+    int length() {
+        return buffer.length();
+    }
+
+    CharSequence buffer() {
+        return buffer;
+    }
+
+    String substring(final int from) {
+        return buffer.substring(from);
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+
+    // RFC 3986 percent encoding, only the unreserved characters are left as is
+    private void appendEncoded(final String value) {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                buffer.append(c);
+            } else if (c < 0x80) {
+                appendPercentEncoded(c);
+            } else if (c < 0x800) {
+                appendPercentEncoded(0xC0 | (c >> 6));
+                appendPercentEncoded(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendPercentEncoded(0xF0 | (codePoint >> 18));
+                appendPercentEncoded(0x80 | ((codePoint >> 12) & 0x3F));
+                appendPercentEncoded(0x80 | ((codePoint >> 6) & 0x3F));
+                appendPercentEncoded(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                appendPercentEncoded('?');
+            } else {
+                appendPercentEncoded(0xE0 | (c >> 12));
+                appendPercentEncoded(0x80 | ((c >> 6) & 0x3F));
+                appendPercentEncoded(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void appendPercentEncoded(final int b) {
+        buffer.append('%').append(PERCENT_HEX_DIGITS[(b >> 4) & 0xF]).append(PERCENT_HEX_DIGITS[b & 0xF]);
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.' || c == '~';
+    }
+
+    // Encodes buffer[from, length) into the reusable UTF-8 scratch array and returns the number of bytes written
+    private int encodeUtf8(final int from) {
+        final int length = buffer.length();
+        final int required = (length - from) * 3;
+        if (utf8.length < required) {
+            utf8 = new byte[Math.max(required, utf8.length * 2)];
+        }
+
+        int n = 0;
+        for (int i = from; i < length; i++) {
+            final char c = buffer.charAt(i);
+            if (c < 0x80) {
+                utf8[n++] = (byte) c;
+            } else if (c < 0x800) {
+                utf8[n++] = (byte) (0xC0 | (c >> 6));
+                utf8[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(buffer.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, buffer.charAt(++i));
+                utf8[n++] = (byte) (0xF0 | (codePoint >> 18));
+                utf8[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                utf8[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                utf8[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                utf8[n++] = (byte) '?';
+            } else {
+                utf8[n++] = (byte) (0xE0 | (c >> 12));
+                utf8[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                utf8[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,101 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of derived SigV4 signing keys.
+ *
+ * A signing key only depends on the secret key, the date stamp, the region and the service, so it can be
+ * reused for every request signed on the same UTC day. Entries derived for an older date stamp are dropped
+ * as soon as a key for a newer day is requested. Around midnight a request still signed with the previous day
+ * is served from the cache too, without evicting the keys of the newer day.
+ */
+class SigningKeyCache {
+
+    // Upper bound on distinct credentials/regions kept at once, rotated credentials should not grow the cache
+    private static final int MAX_ENTRIES = 16;
+
+    private final Map<CacheKey, byte[]> signingKeys = new ConcurrentHashMap<>();
+
+    private volatile String currentDateStamp;
+
+    byte[] get(final String secretKey, final String dateStamp, final String region, final String service) {
+        if (isNewer(dateStamp, currentDateStamp)) {
+            rollOver(dateStamp);
+        }
+
+        final CacheKey cacheKey = new CacheKey(secretKey, dateStamp, region, service);
+        byte[] signingKey = signingKeys.get(cacheKey);
+        if (signingKey == null) {
+            signingKey = AwsV4Signer.getSignatureKey(secretKey, dateStamp, region, service);
+            if (signingKeys.size() >= MAX_ENTRIES) {
+                signingKeys.clear();
+            }
+            signingKeys.put(cacheKey, signingKey);
+        }
+        return signingKey;
+    }
+
+    int size() {
+        return signingKeys.size();
+    }
+
+    // Date stamps are yyyyMMdd, so they order as strings
+    private static boolean isNewer(final String dateStamp, final String than) {
+        return than == null || dateStamp.compareTo(than) > 0;
+    }
+
+    private synchronized void rollOver(final String dateStamp) {
+        if (!isNewer(dateStamp, currentDateStamp)) {
+            return;
+        }
+        final Iterator<CacheKey> keys = signingKeys.keySet().iterator();
+        while (keys.hasNext()) {
+            if (isNewer(dateStamp, keys.next().dateStamp)) {
+                keys.remove();
+            }
+        }
+        currentDateStamp = dateStamp;
+    }
+
+    private static final class CacheKey {
+
+        private final String secretKey;
+        private final String dateStamp;
+        private final String region;
+        private final String service;
+
+        CacheKey(final String secretKey, final String dateStamp, final String region, final String service) {
+            this.secretKey = secretKey;
+            this.dateStamp = dateStamp;
+            this.region = region;
+            this.service = service;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) o;
+            return secretKey.equals(other.secretKey)
+                    && dateStamp.equals(other.dateStamp)
+                    && region.equals(other.region)
+                    && service.equals(other.service);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = secretKey.hashCode();
+            result = 31 * result + dateStamp.hashCode();
+            result = 31 * result + region.hashCode();
+            result = 31 * result + service.hashCode();
+            return result;
+        }
+    }
+}
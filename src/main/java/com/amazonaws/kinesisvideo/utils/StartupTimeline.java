@@ -0,0 +1,163 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time each step of bringing up a cast took, from the credentials to the first encoded frame.
+ *
+ * A step is either timed with {@link #begin(Stage)} and {@link #end(Stage)} or marked as an instant with
+ * {@link #mark(Stage)}. Only its first occurrence in a session is kept, so a reconnect or a second viewer does not
+ * overwrite how the session started. Times come from {@link System#nanoTime()}, which is monotonic, and are reported
+ * relative to the start of the session. Listeners are told about every completed step, on the thread completing it.
+ */
+public final class StartupTimeline {
+
+    public enum Stage {
+        MOBILE_CLIENT_INIT("AWSMobileClient initialize", true),
+        DESCRIBE_SIGNALING_CHANNEL("DescribeSignalingChannel", false),
+        GET_SIGNALING_CHANNEL_ENDPOINT("GetSignalingChannelEndpoint", false),
+        GET_ICE_SERVER_CONFIG("GetIceServerConfig", false),
+        SIGN_URI("Sign websocket URI", false),
+        WEBSOCKET_OPEN("Websocket open", false),
+        OFFER_RECEIVED("Offer received", false),
+        ANSWER_SENT("Answer sent", false),
+        FIRST_LOCAL_CANDIDATE("First local candidate", false),
+        ICE_CONNECTED("ICE connected", false),
+        FIRST_FRAME_ENCODED("First frame encoded", false);
+
+        private final String label;
+        private final boolean perProcess;
+
+        Stage(final String label, final boolean perProcess) {
+            this.label = label;
+            this.perProcess = perProcess;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public interface Listener {
+
+        /**
+         * @param offsetMillis   start of the step since the start of the session, negative for steps before it
+         * @param durationMillis 0 for an instant
+         */
+        void onStage(Stage stage, long offsetMillis, long durationMillis);
+    }
+
+    private static final class Entry {
+
+        final long startNanos;
+        long endNanos = -1;
+
+        Entry(final long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private final Map<Stage, Entry> entries = new EnumMap<>(Stage.class);
+    private long sessionStartNanos = System.nanoTime();
+
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts timing a new cast. Steps done once per process, like initializing the mobile client, are kept.
+     */
+    public synchronized void newSession() {
+        sessionStartNanos = System.nanoTime();
+        final List<Stage> stale = new ArrayList<>();
+        for (final Stage stage : entries.keySet()) {
+            if (!stage.perProcess) {
+                stale.add(stage);
+            }
+        }
+        entries.keySet().removeAll(stale);
+    }
+
+    public void begin(final Stage stage) {
+        final long now = System.nanoTime();
+        synchronized (this) {
+            if (!entries.containsKey(stage)) {
+                entries.put(stage, new Entry(now));
+            }
+        }
+    }
+
+    /**
+     * Completes a step started with {@link #begin(Stage)}, or marks it if it was never started.
+     *
+     * @return false if the step was completed before in this session
+     */
+    public boolean end(final Stage stage) {
+        final long now = System.nanoTime();
+        final long offsetNanos;
+        final long durationNanos;
+        synchronized (this) {
+            Entry entry = entries.get(stage);
+            if (entry == null) {
+                entry = new Entry(now);
+                entries.put(stage, entry);
+            } else if (entry.endNanos >= 0) {
+                return false;
+            }
+            entry.endNanos = now;
+            offsetNanos = entry.startNanos - sessionStartNanos;
+            durationNanos = now - entry.startNanos;
+        }
+        for (final Listener listener : listeners) {
+            listener.onStage(stage, TimeUnit.NANOSECONDS.toMillis(offsetNanos),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+        return true;
+    }
+
+    public boolean mark(final Stage stage) {
+        return end(stage);
+    }
+
+    /**
+     * @return steps of the session in the order of {@link Stage}, one line each
+     */
+    public synchronized List<String> snapshot() {
+        final List<String> lines = new ArrayList<>();
+        for (final Map.Entry<Stage, Entry> e : entries.entrySet()) {
+            final Entry entry = e.getValue();
+            if (entry.endNanos < 0) {
+                lines.add(String.format(Locale.US, "%-30s started at %+7d ms, not completed", e.getKey().label,
+                        TimeUnit.NANOSECONDS.toMillis(entry.startNanos - sessionStartNanos)));
+            } else {
+                lines.add(String.format(Locale.US, "%-30s started at %+7d ms, took %6d ms", e.getKey().label,
+                        TimeUnit.NANOSECONDS.toMillis(entry.startNanos - sessionStartNanos),
+                        TimeUnit.NANOSECONDS.toMillis(entry.endNanos - entry.startNanos)));
+            }
+        }
+        return lines;
+    }
+
+    public void writeTo(final Writer writer) throws IOException {
+        for (final String line : snapshot()) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,72 @@
+package com.amazonaws.kinesisvideo.utils;
+
+/**
+ * Decides which captured frames of a screen cast are worth encoding, from a hash of their content.
+ *
+ * A frame that differs from the previous one always passes, so motion goes out at the full capture rate without
+ * delay. While the content stays the same, one frame per refresh interval passes and the rest are skipped. The
+ * refreshes keep the encoders refining a static picture and give viewers that join during a static period their
+ * first frame within one interval. A caller that can tell a frame changed more cheaply than by hashing all of it
+ * reports it with {@link #acceptChanged(long)} instead.
+ *
+ * Not thread safe, call from the capture thread.
+ */
+public final class StaticFrameThrottle {
+
+    private final long refreshIntervalNanos;
+
+    // False until a hash is known and after a frame forwarded without one
+    private boolean hashKnown;
+    private long lastHash;
+    private long lastForwardedNanos;
+
+    private long forwarded;
+    private long skipped;
+
+    /**
+     * @param refreshIntervalNanos time between frames while the content does not change
+     */
+    public StaticFrameThrottle(final long refreshIntervalNanos) {
+        if (refreshIntervalNanos <= 0) {
+            throw new IllegalArgumentException("Invalid refresh interval " + refreshIntervalNanos);
+        }
+        this.refreshIntervalNanos = refreshIntervalNanos;
+    }
+
+    /**
+     * @param timestampNs capture time of the frame
+     * @param contentHash hash of the frame content, equal for frames showing the same picture
+     * @return true to encode the frame, false to skip it
+     */
+    public boolean accept(final long timestampNs, final long contentHash) {
+        if (!hashKnown || contentHash != lastHash || timestampNs - lastForwardedNanos >= refreshIntervalNanos) {
+            hashKnown = true;
+            lastHash = contentHash;
+            lastForwardedNanos = timestampNs;
+            forwarded++;
+            return true;
+        }
+        skipped++;
+        return false;
+    }
+
+    /**
+     * Passes a frame known to differ from the previous one, without its hash. The next frame given to
+     * {@link #accept(long, long)} passes too, as there is no hash to compare it with.
+     *
+     * @param timestampNs capture time of the frame
+     */
+    public void acceptChanged(final long timestampNs) {
+        hashKnown = false;
+        lastForwardedNanos = timestampNs;
+        forwarded++;
+    }
+
+    public long getForwarded() {
+        return forwarded;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,189 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed size in-memory trace of recent events, formatted only when dumped.
+ *
+ * An entry is an event name plus up to two object arguments and one number, stored by reference in preallocated
+ * slots. Recording below the level threshold returns before touching anything, recording above it allocates
+ * nothing either, as long as the caller passes objects it already has. Strings are built from the arguments only in
+ * {@link #snapshot()}, so arguments should be immutable. Once the buffer is full the oldest entries are overwritten.
+ *
+ * Events more verbose than {@link Level#INFO} can additionally be sampled, keeping one in every n.
+ */
+public class TraceLog {
+
+    public enum Level {
+        ERROR, WARN, INFO, DEBUG, VERBOSE
+    }
+
+    /**
+     * Marks an entry without a number.
+     */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private final int capacity;
+
+    private final long[] timesNanos;
+    private final Level[] levels;
+    private final String[] events;
+    private final Object[] firstArgs;
+    private final Object[] secondArgs;
+    private final long[] values;
+    private final String[] threads;
+
+    // Wall clock at construction, to print entries in the same time base as the platform log
+    private final long originMillis = System.currentTimeMillis();
+    private final long originNanos = System.nanoTime();
+
+    private volatile int threshold;
+    private volatile int sampleEvery = 1;
+
+    // Guarded by this
+    private long recorded;
+    private long sampleCounter;
+
+    /**
+     * @param capacity entries kept, older ones are overwritten
+     * @param level    most verbose level recorded
+     */
+    public TraceLog(final int capacity, final Level level) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid trace capacity " + capacity);
+        }
+        this.capacity = capacity;
+        timesNanos = new long[capacity];
+        levels = new Level[capacity];
+        events = new String[capacity];
+        firstArgs = new Object[capacity];
+        secondArgs = new Object[capacity];
+        values = new long[capacity];
+        threads = new String[capacity];
+        setLevel(level);
+    }
+
+    public void setLevel(final Level level) {
+        threshold = level.ordinal();
+    }
+
+    /**
+     * @param sampleEvery keep one in every this many events more verbose than {@link Level#INFO}, 1 keeps all
+     */
+    public void setSampling(final int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("Invalid sampling " + sampleEvery);
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    public boolean isEnabled(final Level level) {
+        return level.ordinal() <= threshold;
+    }
+
+    public void record(final Level level, final String event) {
+        record(level, event, null, null, NO_VALUE);
+    }
+
+    public void record(final Level level, final String event, final Object arg) {
+        record(level, event, arg, null, NO_VALUE);
+    }
+
+    public void record(final Level level, final String event, final Object arg, final long value) {
+        record(level, event, arg, null, value);
+    }
+
+    public void record(final Level level, final String event, final Object firstArg, final Object secondArg,
+                       final long value) {
+        if (level.ordinal() > threshold) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final String thread = Thread.currentThread().getName();
+        synchronized (this) {
+            if (level.ordinal() > Level.INFO.ordinal() && sampleCounter++ % sampleEvery != 0) {
+                return;
+            }
+            final int slot = (int) (recorded++ % capacity);
+            timesNanos[slot] = now;
+            levels[slot] = level;
+            events[slot] = event;
+            firstArgs[slot] = firstArg;
+            secondArgs[slot] = secondArg;
+            values[slot] = value;
+            threads[slot] = thread;
+        }
+    }
+
+    /**
+     * @return entries recorded since construction or the last {@link #clear()}, including overwritten ones
+     */
+    public synchronized long getRecorded() {
+        return recorded;
+    }
+
+    public synchronized void clear() {
+        recorded = 0;
+        for (int i = 0; i < capacity; i++) {
+            events[i] = null;
+            firstArgs[i] = null;
+            secondArgs[i] = null;
+            threads[i] = null;
+        }
+    }
+
+    /**
+     * @return the buffered entries formatted one per line, oldest first
+     */
+    public List<String> snapshot() {
+        final int count;
+        final long first;
+        final long[] copiedTimes;
+        final Level[] copiedLevels;
+        final String[] copiedEvents;
+        final Object[] copiedFirstArgs;
+        final Object[] copiedSecondArgs;
+        final long[] copiedValues;
+        final String[] copiedThreads;
+        synchronized (this) {
+            count = (int) Math.min(recorded, capacity);
+            first = recorded - count;
+            copiedTimes = timesNanos.clone();
+            copiedLevels = levels.clone();
+            copiedEvents = events.clone();
+            copiedFirstArgs = firstArgs.clone();
+            copiedSecondArgs = secondArgs.clone();
+            copiedValues = values.clone();
+            copiedThreads = threads.clone();
+        }
+
+        final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        final List<String> lines = new ArrayList<>(count);
+        final StringBuilder line = new StringBuilder();
+        for (long i = first; i < first + count; i++) {
+            final int slot = (int) (i % capacity);
+            line.setLength(0);
+            line.append(timeFormat.format(new Date(originMillis
+                    + TimeUnit.NANOSECONDS.toMillis(copiedTimes[slot] - originNanos))))
+                    .append(' ').append(copiedLevels[slot].name().charAt(0))
+                    .append(" [").append(copiedThreads[slot]).append("] ")
+                    .append(copiedEvents[slot]);
+            if (copiedFirstArgs[slot] != null) {
+                line.append(' ').append(copiedFirstArgs[slot]);
+            }
+            if (copiedSecondArgs[slot] != null) {
+                line.append(' ').append(copiedSecondArgs[slot]);
+            }
+            if (copiedValues[slot] != NO_VALUE) {
+                line.append(' ').append(copiedValues[slot]);
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
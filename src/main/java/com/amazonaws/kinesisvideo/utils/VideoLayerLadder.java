@@ -0,0 +1,151 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoding layers a video sender can switch between, from the highest quality down, and the choice of layer from
+ * a bandwidth estimate.
+ *
+ * Every viewer has a {@link Selector} of its own, so viewers on a slow link get a scaled down, lower bitrate
+ * encoding while the others keep the top layer. The selector steps down as soon as the current layer no longer
+ * fits the estimate and steps up one layer at a time once the next one has fit for several estimates in a row,
+ * so a noisy estimate does not make the encoder flap between sizes.
+ */
+public final class VideoLayerLadder {
+
+    // Share of the estimated bandwidth a layer may use, the rest is left for retransmissions and audio
+    static final double HEADROOM = 0.85;
+
+    static final int UP_SWITCH_SAMPLES = 3;
+
+    public static final class Layer {
+
+        private final String name;
+        private final double scaleResolutionDownBy;
+        private final int maxBitrateBps;
+
+        public Layer(final String name, final double scaleResolutionDownBy, final int maxBitrateBps) {
+            if (scaleResolutionDownBy < 1.0) {
+                throw new IllegalArgumentException("scaleResolutionDownBy must be at least 1");
+            }
+            this.name = name;
+            this.scaleResolutionDownBy = scaleResolutionDownBy;
+            this.maxBitrateBps = maxBitrateBps;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getScaleResolutionDownBy() {
+            return scaleResolutionDownBy;
+        }
+
+        public int getMaxBitrateBps() {
+            return maxBitrateBps;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (1/" + scaleResolutionDownBy + ", " + maxBitrateBps / 1000 + " kbps)";
+        }
+    }
+
+    private final List<Layer> layers;
+
+    /**
+     * @param layers from the highest bitrate down
+     */
+    public VideoLayerLadder(final Layer... layers) {
+        if (layers.length == 0) {
+            throw new IllegalArgumentException("At least one layer is required");
+        }
+        for (int i = 1; i < layers.length; i++) {
+            if (layers[i].maxBitrateBps >= layers[i - 1].maxBitrateBps) {
+                throw new IllegalArgumentException("Layers must be ordered by decreasing bitrate");
+            }
+        }
+        this.layers = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(layers)));
+    }
+
+    /**
+     * Full, half and quarter resolution of the captured screen.
+     */
+    public static VideoLayerLadder screenCast() {
+        return new VideoLayerLadder(
+                new Layer("high", 1.0, 1_200_000),
+                new Layer("medium", 2.0, 400_000),
+                new Layer("low", 4.0, 120_000));
+    }
+
+    public List<Layer> getLayers() {
+        return layers;
+    }
+
+    /**
+     * @return selector starting on the top layer
+     */
+    public Selector newSelector() {
+        return new Selector();
+    }
+
+    /**
+     * Layer choice for one viewer. Not thread safe, each viewer updates its own from one thread.
+     */
+    public final class Selector {
+
+        private int current;
+        private int fitsAboveCount;
+
+        private Selector() {
+        }
+
+        public Layer getCurrent() {
+            return layers.get(current);
+        }
+
+        /**
+         * @param availableBitrateBps estimated outgoing bandwidth to the viewer, ignored if not positive
+         * @return the layer to send from now on
+         */
+        public Layer update(final double availableBitrateBps) {
+            return update(availableBitrateBps, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param bitrateCapBps share of the uplink granted to the viewer, no layer above it is chosen
+         */
+        public Layer update(final double availableBitrateBps, final int bitrateCapBps) {
+            final double budget;
+            if (availableBitrateBps > 0) {
+                budget = Math.min(availableBitrateBps * HEADROOM, bitrateCapBps);
+            } else if (bitrateCapBps < Integer.MAX_VALUE) {
+                budget = bitrateCapBps;
+            } else {
+                return getCurrent();
+            }
+
+            if (layers.get(current).maxBitrateBps > budget) {
+                // Down right away, to the best layer that fits or the lowest one
+                int layer = current;
+                while (layer < layers.size() - 1 && layers.get(layer).maxBitrateBps > budget) {
+                    layer++;
+                }
+                current = layer;
+                fitsAboveCount = 0;
+            } else if (current > 0 && layers.get(current - 1).maxBitrateBps <= budget) {
+                if (++fitsAboveCount >= UP_SWITCH_SAMPLES) {
+                    current--;
+                    fitsAboveCount = 0;
+                }
+            } else {
+                fitsAboveCount = 0;
+            }
+
+            return getCurrent();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.amazonaws.kinesisvideo.webrtc;
+
+import org.webrtc.RtpParameters;
+
+/**
+ * Encoding limits of a video sender for one kind of content, applied to its {@link RtpParameters} without
+ * renegotiation.
+ *
+ * Only the bitrate range, frame rate and scale are applied, as fields of {@link RtpParameters.Encoding}. The
+ * WebRTC release this app is built with has no degradation preference or network priority in its Java API, so
+ * screen content is kept legible by spending more bits on fewer frames rather than by telling the encoder to keep
+ * the resolution. The limits are upper bounds combined with the viewer's layer and bitrate cap, see
+ * {@link VideoLayerController#setProfile(EncodingProfile)}.
+ */
+public final class EncodingProfile {
+
+    public static final EncodingProfile SCREEN_SHARE = new EncodingProfile("screen", 150_000, 2_500_000, 15, 1.0);
+
+    public static final EncodingProfile CAMERA = new EncodingProfile("camera", 100_000, 1_500_000, 30, 1.0);
+
+    private final String name;
+    private final int minBitrateBps;
+    private final int maxBitrateBps;
+    private final int maxFramerate;
+    private final double scaleResolutionDownBy;
+
+    public EncodingProfile(final String name, final int minBitrateBps, final int maxBitrateBps,
+                           final int maxFramerate, final double scaleResolutionDownBy) {
+        if (minBitrateBps < 0 || maxBitrateBps < minBitrateBps) {
+            throw new IllegalArgumentException("Invalid bitrate range " + minBitrateBps + "-" + maxBitrateBps);
+        }
+        if (maxFramerate < 1 || scaleResolutionDownBy < 1.0) {
+            throw new IllegalArgumentException("Invalid frame rate " + maxFramerate + " or scale "
+                    + scaleResolutionDownBy);
+        }
+        this.name = name;
+        this.minBitrateBps = minBitrateBps;
+        this.maxBitrateBps = maxBitrateBps;
+        this.maxFramerate = maxFramerate;
+        this.scaleResolutionDownBy = scaleResolutionDownBy;
+    }
+
+    /**
+     * @return the preset with this name, null if there is none
+     */
+    public static EncodingProfile forName(final String name) {
+        if (SCREEN_SHARE.name.equals(name)) {
+            return SCREEN_SHARE;
+        }
+        if (CAMERA.name.equals(name)) {
+            return CAMERA;
+        }
+        return null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMinBitrateBps() {
+        return minBitrateBps;
+    }
+
+    public int getMaxBitrateBps() {
+        return maxBitrateBps;
+    }
+
+    public int getMaxFramerate() {
+        return maxFramerate;
+    }
+
+    public double getScaleResolutionDownBy() {
+        return scaleResolutionDownBy;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + minBitrateBps / 1000 + "-" + maxBitrateBps / 1000 + " kbps, " + maxFramerate + " fps, 1/"
+                + scaleResolutionDownBy + ")";
+    }
+}
@@ -0,0 +1,95 @@
+package com.amazonaws.kinesisvideo.webrtc;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.webrtc.PeerConnection;
+import org.webrtc.RTCStatsCollectorCallback;
+import org.webrtc.RTCStatsReport;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Tells when a connection has encoded its first video frame.
+ *
+ * The Java API has no callback for it, so the stats of the connection are polled for framesEncoded until it turns
+ * positive or the watch times out. Polls run as tasks of the peer's event loop, which stops them once the peer is
+ * closed, the handler only provides the delay in between.
+ */
+public class FirstFrameWatcher {
+
+    public interface Callback {
+
+        /**
+         * @param report stats in which the first encoded frame showed up
+         */
+        void onFirstFrame(RTCStatsReport report);
+    }
+
+    private static final String TAG = "FirstFrameWatcher";
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final long TIMEOUT_MILLIS = 15000;
+
+    private final Handler handler;
+    private final Executor events;
+    private final PeerConnection connection;
+    private final Callback onFirstFrame;
+
+    private long startedAtMillis;
+
+    /**
+     * @param events       event loop of the peer owning the connection
+     * @param onFirstFrame run on the event loop once a frame has been encoded
+     */
+    public FirstFrameWatcher(final Handler handler, final Executor events, final PeerConnection connection,
+                             final Callback onFirstFrame) {
+        this.handler = handler;
+        this.events = events;
+        this.connection = connection;
+        this.onFirstFrame = onFirstFrame;
+    }
+
+    /**
+     * Starts polling, call from the event loop.
+     */
+    public void start() {
+        startedAtMillis = SystemClock.elapsedRealtime();
+        poll();
+    }
+
+    private void poll() {
+        connection.getStats(new RTCStatsCollectorCallback() {
+            @Override
+            public void onStatsDelivered(final RTCStatsReport rtcStatsReport) {
+                events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onStats(rtcStatsReport);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onStats(final RTCStatsReport report) {
+        if (PeerStats.framesEncoded(report) > 0) {
+            onFirstFrame.onFirstFrame(report);
+        } else if (SystemClock.elapsedRealtime() - startedAtMillis > TIMEOUT_MILLIS) {
+            Log.w(TAG, "No frame encoded " + TIMEOUT_MILLIS + " ms after connecting");
+        } else {
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            poll();
+                        }
+                    });
+                }
+            }, POLL_INTERVAL_MILLIS);
+        }
+    }
+}
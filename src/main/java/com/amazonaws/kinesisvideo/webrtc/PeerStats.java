@@ -0,0 +1,120 @@
+package com.amazonaws.kinesisvideo.webrtc;
+
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Values read from the stats report of a peer connection.
+ */
+public final class PeerStats {
+
+    private PeerStats() {
+    }
+
+    /**
+     * @return the candidate pair media is currently sent over, or null before ICE has selected one
+     */
+    public static RTCStats selectedCandidatePair(final RTCStatsReport report) {
+        final Map<String, RTCStats> statsMap = report.getStatsMap();
+        for (final RTCStats stats : statsMap.values()) {
+            if ("transport".equals(stats.getType())) {
+                final Object pairId = stats.getMembers().get("selectedCandidatePairId");
+                if (pairId != null && statsMap.containsKey(pairId.toString())) {
+                    return statsMap.get(pairId.toString());
+                }
+            }
+        }
+        // Older reports do not link the transport to its pair
+        for (final RTCStats stats : statsMap.values()) {
+            if ("candidate-pair".equals(stats.getType())
+                    && Boolean.TRUE.equals(stats.getMembers().get("nominated"))
+                    && "succeeded".equals(stats.getMembers().get("state"))) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return outgoing bandwidth estimated from the receiver's feedback in bits per second, 0 if not known yet
+     */
+    public static double availableOutgoingBitrate(final RTCStatsReport report) {
+        final RTCStats pair = selectedCandidatePair(report);
+        return pair == null ? 0 : number(pair, "availableOutgoingBitrate");
+    }
+
+    /**
+     * @return video frames encoded for all outbound video streams of the connection
+     */
+    public static long framesEncoded(final RTCStatsReport report) {
+        long frames = 0;
+        for (final RTCStats stats : report.getStatsMap().values()) {
+            if ("outbound-rtp".equals(stats.getType())
+                    && ("video".equals(stats.getMembers().get("kind"))
+                    || "video".equals(stats.getMembers().get("mediaType")))) {
+                frames += (long) number(stats, "framesEncoded");
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * @return what the encoder of the outbound video currently gives up quality for, "cpu", "bandwidth", "other" or
+     * "none", null if the stats do not report it
+     */
+    public static String qualityLimitationReason(final RTCStatsReport report) {
+        final RTCStats outbound = outboundVideo(report);
+        final Object reason = outbound == null ? null : outbound.getMembers().get("qualityLimitationReason");
+        return reason == null ? null : reason.toString();
+    }
+
+    /**
+     * @return name of the codec the outbound video is encoded with, like "VP8" or "H264", null before negotiation
+     */
+    public static String outboundVideoCodec(final RTCStatsReport report) {
+        final RTCStats outbound = outboundVideo(report);
+        if (outbound == null) {
+            return null;
+        }
+        final Object codecId = outbound.getMembers().get("codecId");
+        final RTCStats codec = codecId == null ? null : report.getStatsMap().get(codecId.toString());
+        final Object mimeType = codec == null ? null : codec.getMembers().get("mimeType");
+        if (mimeType == null) {
+            return null;
+        }
+        // video/VP8
+        final String name = mimeType.toString();
+        return name.substring(name.indexOf('/') + 1).toUpperCase(Locale.US);
+    }
+
+    /**
+     * @return encoder the outbound video is encoded with, like "libvpx" or "MediaCodec", null if not reported
+     */
+    public static String encoderImplementation(final RTCStatsReport report) {
+        final RTCStats outbound = outboundVideo(report);
+        final Object implementation = outbound == null ? null : outbound.getMembers().get("encoderImplementation");
+        return implementation == null ? null : implementation.toString();
+    }
+
+    private static RTCStats outboundVideo(final RTCStatsReport report) {
+        for (final RTCStats stats : report.getStatsMap().values()) {
+            if ("outbound-rtp".equals(stats.getType())
+                    && ("video".equals(stats.getMembers().get("kind"))
+                    || "video".equals(stats.getMembers().get("mediaType")))) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return numeric member of a stats object, 0 if it is missing
+     */
+    public static double number(final RTCStats stats, final String member) {
+        final Object value = stats.getMembers().get(member);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
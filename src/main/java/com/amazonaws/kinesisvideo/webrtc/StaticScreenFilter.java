@@ -0,0 +1,128 @@
+package com.amazonaws.kinesisvideo.webrtc;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.utils.FrameContentHash;
+import com.amazonaws.kinesisvideo.utils.StaticFrameThrottle;
+
+import org.webrtc.CapturerObserver;
+import org.webrtc.VideoFrame;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sits between a screen capturer and its video source and skips frames that repeat the previous picture.
+ *
+ * Thumbnails are scaled down on the GPU, cropping and scaling a texture buffer only changes its transform and the
+ * conversion to I420 renders the thumbnail and reads it back, and hashed with {@link FrameContentHash}. Every frame
+ * first gets a probe, the luma of a thumbnail an eighth of its width and height. A probe that differs from the one
+ * of the previous frame proves a change, which is the common case during motion and costs a 64th of the screen's
+ * pixels. Only a frame whose probe is unchanged is suspected static and hashed in full, from a thumbnail of half the
+ * width and height. At exactly half the size every bilinear sample falls between four source pixels and averages
+ * them, so every pixel of the screen contributes and a typed character or a moved cursor changes the hash, which the
+ * probe may miss. {@link StaticFrameThrottle} then decides from the full hash whether the frame reaches the encoders.
+ * Frames arrive on the capture thread, which is where all of this runs.
+ */
+public class StaticScreenFilter implements CapturerObserver {
+
+    private static final String TAG = "StaticScreenFilter";
+
+    // Each thumbnail pixel averages a square of this many pixels on a side, see the class comment
+    private static final int THUMBNAIL_SCALE = 2;
+
+    // Probes sample this many pixels on a side, enough to tell motion from a static screen
+    private static final int PROBE_SCALE = 8;
+
+    private static final long STATS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final CapturerObserver delegate;
+    private final StaticFrameThrottle throttle;
+
+    private boolean probed;
+    private long lastProbeHash;
+
+    private long statsStartNanos = -1;
+    private long statsForwarded;
+    private long statsSkipped;
+
+    /**
+     * @param refreshIntervalMillis time between frames while the screen does not change
+     */
+    public StaticScreenFilter(final CapturerObserver delegate, final long refreshIntervalMillis) {
+        this.delegate = delegate;
+        this.throttle = new StaticFrameThrottle(TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis));
+    }
+
+    @Override
+    public void onCapturerStarted(final boolean success) {
+        delegate.onCapturerStarted(success);
+    }
+
+    @Override
+    public void onCapturerStopped() {
+        delegate.onCapturerStopped();
+    }
+
+    @Override
+    public void onFrameCaptured(final VideoFrame frame) {
+        final long probeHash = probeHash(frame.getBuffer());
+        final boolean changed = !probed || probeHash != lastProbeHash;
+        probed = true;
+        lastProbeHash = probeHash;
+
+        if (changed) {
+            throttle.acceptChanged(frame.getTimestampNs());
+            delegate.onFrameCaptured(frame);
+        } else if (throttle.accept(frame.getTimestampNs(), contentHash(frame.getBuffer()))) {
+            delegate.onFrameCaptured(frame);
+        }
+        logStats(frame.getTimestampNs());
+    }
+
+    private static VideoFrame.I420Buffer thumbnail(final VideoFrame.Buffer buffer, final int scale) {
+        final VideoFrame.Buffer thumbnail = buffer.cropAndScale(0, 0, buffer.getWidth(), buffer.getHeight(),
+                Math.max(1, buffer.getWidth() / scale), Math.max(1, buffer.getHeight() / scale));
+        final VideoFrame.I420Buffer i420 = thumbnail.toI420();
+        thumbnail.release();
+        return i420;
+    }
+
+    private static long probeHash(final VideoFrame.Buffer buffer) {
+        final VideoFrame.I420Buffer i420 = thumbnail(buffer, PROBE_SCALE);
+        try {
+            return FrameContentHash.hashPlane(FrameContentHash.SEED, i420.getDataY(), i420.getStrideY(),
+                    i420.getWidth(), i420.getHeight());
+        } finally {
+            i420.release();
+        }
+    }
+
+    private static long contentHash(final VideoFrame.Buffer buffer) {
+        final VideoFrame.I420Buffer i420 = thumbnail(buffer, THUMBNAIL_SCALE);
+        try {
+            long hash = FrameContentHash.SEED;
+            hash = FrameContentHash.hashPlane(hash, i420.getDataY(), i420.getStrideY(), i420.getWidth(),
+                    i420.getHeight());
+            final int chromaWidth = (i420.getWidth() + 1) / 2;
+            final int chromaHeight = (i420.getHeight() + 1) / 2;
+            hash = FrameContentHash.hashPlane(hash, i420.getDataU(), i420.getStrideU(), chromaWidth, chromaHeight);
+            return FrameContentHash.hashPlane(hash, i420.getDataV(), i420.getStrideV(), chromaWidth, chromaHeight);
+        } finally {
+            i420.release();
+        }
+    }
+
+    private void logStats(final long timestampNs) {
+        if (statsStartNanos < 0) {
+            statsStartNanos = timestampNs;
+        } else if (timestampNs - statsStartNanos >= STATS_INTERVAL_NANOS) {
+            final long forwarded = throttle.getForwarded() - statsForwarded;
+            final long skipped = throttle.getSkipped() - statsSkipped;
+            Log.d(TAG, "Encoded " + forwarded + " and skipped " + skipped + " static frame(s) in the last "
+                    + TimeUnit.NANOSECONDS.toSeconds(timestampNs - statsStartNanos) + " s");
+            statsStartNanos = timestampNs;
+            statsForwarded = throttle.getForwarded();
+            statsSkipped = throttle.getSkipped();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.amazonaws.kinesisvideo.webrtc;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.text.TextUtils;
+import android.util.Log;
+
+import org.webrtc.RTCStatsReport;
+import org.webrtc.VideoCodecInfo;
+import org.webrtc.VideoEncoderFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Video codecs this device can encode, which of them in hardware, and the order to offer them in.
+ *
+ * Hardware H.264, then hardware VP8 and VP9 come first, software codecs after them. The encoder factory and the
+ * platform's MediaCodec list are probed once per device model and OS version, the result is kept in shared
+ * preferences since listing MediaCodecs takes a noticeable time on some devices.
+ */
+public class VideoCodecSupport {
+
+    private static final String TAG = "VideoCodecSupport";
+
+    private static final String PREFERENCES = "video_codec_support";
+    private static final String KEY_DEVICE = "device";
+    private static final String KEY_CODECS = "codecs";
+    private static final String KEY_HARDWARE_CODECS = "hardware_codecs";
+
+    // Preferred among equals, hardware or not
+    private static final List<String> CODEC_ORDER = Arrays.asList("H264", "VP8", "VP9");
+
+    private final List<String> preferredCodecs;
+    private final Set<String> hardwareCodecs;
+
+    private VideoCodecSupport(final List<String> preferredCodecs, final Set<String> hardwareCodecs) {
+        this.preferredCodecs = Collections.unmodifiableList(preferredCodecs);
+        this.hardwareCodecs = Collections.unmodifiableSet(hardwareCodecs);
+    }
+
+    /**
+     * @return support of this device, probed now or read from the result of an earlier probe
+     */
+    public static VideoCodecSupport probe(final Context context, final VideoEncoderFactory encoderFactory) {
+        final String device = Build.MANUFACTURER + " " + Build.MODEL + " API " + Build.VERSION.SDK_INT;
+        final SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+
+        if (device.equals(preferences.getString(KEY_DEVICE, null))) {
+            final VideoCodecSupport cached = new VideoCodecSupport(split(preferences.getString(KEY_CODECS, "")),
+                    new LinkedHashSet<>(split(preferences.getString(KEY_HARDWARE_CODECS, ""))));
+            Log.d(TAG, "Codecs of " + device + " from cache: " + cached);
+            return cached;
+        }
+
+        final Set<String> supported = new LinkedHashSet<>();
+        for (final VideoCodecInfo codec : encoderFactory.getSupportedCodecs()) {
+            supported.add(codec.name.toUpperCase(Locale.US));
+        }
+
+        final Set<String> hardware = new LinkedHashSet<>();
+        for (final String codec : supported) {
+            if (hasHardwareEncoder(mimeType(codec))) {
+                hardware.add(codec);
+            }
+        }
+
+        final List<String> order = new ArrayList<>();
+        for (final String codec : CODEC_ORDER) {
+            if (hardware.contains(codec)) {
+                order.add(codec);
+            }
+        }
+        for (final String codec : CODEC_ORDER) {
+            if (supported.contains(codec) && !order.contains(codec)) {
+                order.add(codec);
+            }
+        }
+        for (final String codec : supported) {
+            if (!order.contains(codec)) {
+                order.add(codec);
+            }
+        }
+
+        final VideoCodecSupport probed = new VideoCodecSupport(order, hardware);
+        preferences.edit()
+                .putString(KEY_DEVICE, device)
+                .putString(KEY_CODECS, TextUtils.join(",", order))
+                .putString(KEY_HARDWARE_CODECS, TextUtils.join(",", hardware))
+                .apply();
+        Log.i(TAG, "Probed codecs of " + device + ": " + probed);
+        return probed;
+    }
+
+    private static List<String> split(final String codecs) {
+        final List<String> list = new ArrayList<>();
+        for (final String codec : codecs.split(",")) {
+            if (!codec.isEmpty()) {
+                list.add(codec);
+            }
+        }
+        return list;
+    }
+
+    private static String mimeType(final String codec) {
+        switch (codec) {
+            case "H264":
+                return "video/avc";
+            case "VP8":
+                return "video/x-vnd.on2.vp8";
+            case "VP9":
+                return "video/x-vnd.on2.vp9";
+            default:
+                return null;
+        }
+    }
+
+    private static boolean hasHardwareEncoder(final String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        for (final MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+            if (!info.isEncoder() || !isHardware(info)) {
+                continue;
+            }
+            for (final String type : info.getSupportedTypes()) {
+                if (type.equalsIgnoreCase(mimeType)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHardware(final MediaCodecInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return info.isHardwareAccelerated();
+        }
+        // Software codecs of the platform before it could tell
+        final String name = info.getName().toLowerCase(Locale.US);
+        return !name.startsWith("omx.google.") && !name.startsWith("c2.android.") && !name.contains(".sw.");
+    }
+
+    /**
+     * @return codec names for {@link com.amazonaws.kinesisvideo.utils.SdpCodecOrder}, most preferred first
+     */
+    public List<String> getPreferredCodecs() {
+        return preferredCodecs;
+    }
+
+    public boolean isHardware(final String codec) {
+        return hardwareCodecs.contains(codec.toUpperCase(Locale.US));
+    }
+
+    /**
+     * Logs the codec the connection ended up sending with, warning if it is a software fallback from the preferred
+     * hardware codec.
+     */
+    public void reportSendCodec(final String peerId, final RTCStatsReport report) {
+        final String codec = PeerStats.outboundVideoCodec(report);
+        if (codec == null) {
+            Log.d(TAG, "Peer " + peerId + " has no video codec negotiated yet");
+            return;
+        }
+        final String implementation = PeerStats.encoderImplementation(report);
+        final boolean software = !isHardware(codec) || (implementation != null
+                && (implementation.startsWith("libvpx") || implementation.startsWith("OpenH264")));
+
+        if (software && !hardwareCodecs.isEmpty()) {
+            Log.w(TAG, "Peer " + peerId + " fell back to software " + codec
+                    + (implementation != null ? " (" + implementation + ")" : "") + ", preferred " + preferredCodecs);
+        } else {
+            Log.i(TAG, "Peer " + peerId + " sends " + codec + (software ? " in software" : " in hardware")
+                    + (implementation != null ? " (" + implementation + ")" : ""));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "preferred " + preferredCodecs + ", hardware " + hardwareCodecs;
+    }
+}
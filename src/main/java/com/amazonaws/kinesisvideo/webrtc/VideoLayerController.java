@@ -0,0 +1,116 @@
+package com.amazonaws.kinesisvideo.webrtc;
+
+import android.util.Log;
+
+import com.amazonaws.kinesisvideo.utils.VideoLayerLadder;
+
+import org.webrtc.RTCStatsReport;
+import org.webrtc.RtpParameters;
+import org.webrtc.RtpSender;
+
+/**
+ * Keeps the video sender of one viewer on the layer of a {@link VideoLayerLadder} its bandwidth allows.
+ *
+ * The layer is applied with {@link RtpSender#setParameters}, scaling down the shared source in this viewer's
+ * encoder and capping its bitrate, which takes effect without renegotiation. The bitrate is further capped to
+ * the viewer's share of the uplink, see {@link #setBitrateCap(int)}, and kept within the {@link EncodingProfile} of
+ * the content, see {@link #setProfile(EncodingProfile)}. Call from one thread, the peer's event loop.
+ */
+public class VideoLayerController {
+
+    private static final String TAG = "VideoLayerController";
+
+    private final String peerId;
+    private final RtpSender sender;
+    private final VideoLayerLadder.Selector selector;
+
+    private int bitrateCapBps = Integer.MAX_VALUE;
+    private double availableBitrateBps;
+    private EncodingProfile profile;
+
+    private VideoLayerLadder.Layer applied;
+    private int appliedBitrateBps;
+    private EncodingProfile appliedProfile;
+
+    public VideoLayerController(final String peerId, final RtpSender sender, final VideoLayerLadder ladder) {
+        this.peerId = peerId;
+        this.sender = sender;
+        this.selector = ladder.newSelector();
+        apply(selector.getCurrent());
+    }
+
+    /**
+     * Chooses the layer for the bandwidth in the latest stats of the connection.
+     */
+    public void onStats(final RTCStatsReport report) {
+        availableBitrateBps = PeerStats.availableOutgoingBitrate(report);
+        update();
+    }
+
+    /**
+     * @param bitrateCapBps most the viewer may be sent, in bits per second
+     */
+    public void setBitrateCap(final int bitrateCapBps) {
+        if (bitrateCapBps != this.bitrateCapBps) {
+            this.bitrateCapBps = bitrateCapBps;
+            update();
+        }
+    }
+
+    /**
+     * Switches the content profile, taking effect without renegotiation.
+     */
+    public void setProfile(final EncodingProfile profile) {
+        if (profile != this.profile) {
+            this.profile = profile;
+            update();
+        }
+    }
+
+    private void update() {
+        final VideoLayerLadder.Layer layer = selector.update(availableBitrateBps, bitrateCapBps);
+        // Also retries a layer that could not be applied before the sender was negotiated
+        if (layer != applied || maxBitrateBps(layer) != appliedBitrateBps || profile != appliedProfile) {
+            apply(layer);
+        }
+    }
+
+    private int maxBitrateBps(final VideoLayerLadder.Layer layer) {
+        final int maxBitrateBps = Math.min(layer.getMaxBitrateBps(), bitrateCapBps);
+        return profile != null ? Math.min(maxBitrateBps, profile.getMaxBitrateBps()) : maxBitrateBps;
+    }
+
+    /**
+     * @return layer currently configured on the sender, null until one could be applied
+     */
+    public VideoLayerLadder.Layer getApplied() {
+        return applied;
+    }
+
+    private void apply(final VideoLayerLadder.Layer layer) {
+        final RtpParameters parameters = sender.getParameters();
+        if (parameters == null || parameters.encodings.isEmpty()) {
+            return;
+        }
+        final int maxBitrateBps = maxBitrateBps(layer);
+        for (final RtpParameters.Encoding encoding : parameters.encodings) {
+            encoding.scaleResolutionDownBy = layer.getScaleResolutionDownBy();
+            encoding.maxBitrateBps = maxBitrateBps;
+            if (profile != null) {
+                encoding.scaleResolutionDownBy *= profile.getScaleResolutionDownBy();
+                // A floor above the cap would override the viewer's share of the uplink
+                encoding.minBitrateBps = Math.min(profile.getMinBitrateBps(), maxBitrateBps);
+                encoding.maxFramerate = profile.getMaxFramerate();
+            }
+        }
+        if (sender.setParameters(parameters)) {
+            Log.d(TAG, "Peer " + peerId + " switched from layer " + applied + " to " + layer + " capped to "
+                    + maxBitrateBps / 1000 + " kbps" + (profile != null ? ", profile " + profile : ""));
+            applied = layer;
+            appliedBitrateBps = maxBitrateBps;
+            appliedProfile = profile;
+        } else {
+            Log.w(TAG, "Failed to apply layer " + layer + " to peer " + peerId);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.amazonaws.kinesisvideo.signaling.model;
+
+import com.amazonaws.kinesisvideo.utils.Base64Utf8Reader;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static org.junit.Assert.*;
+
+public class MessageEncoderTest {
+
+    // What the client sent before MessageEncoder, and the same without escaping the HTML characters gson escapes
+    private static final Gson GSON = new Gson();
+    private static final Gson GSON_WITHOUT_HTML_ESCAPING = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static final String[] TRICKY = {
+            "",
+            "plain",
+            "v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\na=group:BUNDLE 0 1\r\n",
+            "quote \" and backslash \\ and \\\"",
+            "controls \u0000\u0001\b\t\n\u000b\f\r\u001b\u001f end",
+            "separators \u2028 and \u2029 in JavaScript",
+            "html <script>&'=</script>",
+            "unicode \u00e9\u4e2d\ud83d\ude00",
+    };
+
+    private final MessageEncoder encoder = MessageEncoder.forCurrentThread();
+
+    private static String read(final Reader reader) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        final char[] buffer = new char[7];
+        int count;
+        while ((count = reader.read(buffer, 0, buffer.length)) >= 0) {
+            text.append(buffer, 0, count);
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void envelopeMatchesGson() {
+
+        for (final String value : TRICKY) {
+            final Message message = new Message("SDP_OFFER", value, "viewer-" + value, value);
+            final String encoded = encoder.encode(message);
+
+            assertEquals(GSON_WITHOUT_HTML_ESCAPING.toJson(message), encoded);
+            assertEquals(JsonParser.parseString(GSON.toJson(message)), JsonParser.parseString(encoded));
+            assertEquals(value, GSON.fromJson(encoded, Message.class).getRecipientClientId());
+        }
+
+    }
+
+    @Test
+    public void envelopeLeavesOutNullFields() {
+
+        assertEquals("{}", encoder.encode(new Message()));
+
+        final Message message = new Message("ICE_CANDIDATE", null, "viewer", null);
+        assertEquals(GSON.toJson(message), encoder.encode(message));
+        assertEquals("{\"action\":\"ICE_CANDIDATE\",\"senderClientId\":\"viewer\"}", encoder.encode(message));
+
+    }
+
+    @Test
+    public void sdpPayloadRoundTrips() throws IOException {
+
+        for (final String sdp : TRICKY) {
+            final String payload = encoder.encodeSdpPayload("offer", sdp);
+            final String json = read(new Base64Utf8Reader(payload));
+
+            final JsonObject expected = new JsonObject();
+            expected.addProperty("type", "offer");
+            expected.addProperty("sdp", sdp);
+            assertEquals(GSON_WITHOUT_HTML_ESCAPING.toJson(expected), json);
+
+            final JsonObject decoded = JsonParser.parseReader(new Base64Utf8Reader(payload)).getAsJsonObject();
+            assertEquals("offer", decoded.get("type").getAsString());
+            assertEquals(sdp, decoded.get("sdp").getAsString());
+        }
+
+    }
+
+    @Test
+    public void iceCandidatePayloadRoundTrips() throws IOException {
+
+        for (final String candidate : TRICKY) {
+            final String payload = encoder.encodeIceCandidatePayload(candidate, "0", 1);
+
+            final JsonObject expected = new JsonObject();
+            expected.addProperty("candidate", candidate);
+            expected.addProperty("sdpMid", "0");
+            expected.addProperty("sdpMLineIndex", 1);
+            assertEquals(GSON_WITHOUT_HTML_ESCAPING.toJson(expected), read(new Base64Utf8Reader(payload)));
+        }
+
+        final JsonObject decoded = JsonParser.parseReader(new Base64Utf8Reader(
+                encoder.encodeIceCandidatePayload("candidate:1 1 udp", null, 0))).getAsJsonObject();
+        assertEquals("candidate:1 1 udp", decoded.get("candidate").getAsString());
+        assertTrue(decoded.get("sdpMid").isJsonNull());
+        assertEquals(0, decoded.get("sdpMLineIndex").getAsInt());
+
+    }
+}
@@ -0,0 +1,112 @@
+package com.amazonaws.kinesisvideo.signaling.tyrus;
+
+import com.amazonaws.kinesisvideo.signaling.SignalingListener;
+import com.amazonaws.kinesisvideo.signaling.model.Event;
+import com.amazonaws.kinesisvideo.signaling.transport.HeartbeatConfig;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketConnection;
+import com.amazonaws.kinesisvideo.signaling.transport.WebSocketTransport;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ReconnectingSignalingClientTest {
+
+    // Fails the first handshake and leaves every later one pending
+    private static class FailingOnceTransport implements WebSocketTransport {
+
+        final AtomicInteger connects = new AtomicInteger();
+        final CountDownLatch secondConnect = new CountDownLatch(1);
+
+        @Override
+        public String getName() {
+            return "failing-once";
+        }
+
+        @Override
+        public CompletableFuture<WebSocketConnection> connect(final URI uri,
+                                                              final WebSocketConnection.Listener listener,
+                                                              final long timeoutMillis,
+                                                              final HeartbeatConfig heartbeatConfig) {
+            final CompletableFuture<WebSocketConnection> future = new CompletableFuture<>();
+            if (connects.incrementAndGet() == 1) {
+                future.completeExceptionally(new IOException("Connection refused"));
+            } else {
+                secondConnect.countDown();
+            }
+            return future;
+        }
+    }
+
+    private static final SignalingListener LISTENER = new SignalingListener() {
+        @Override
+        public void onSdpOffer(final Event event) {
+        }
+
+        @Override
+        public void onSdpAnswer(final Event event) {
+        }
+
+        @Override
+        public void onIceCandidate(final Event event) {
+        }
+
+        @Override
+        public void onError(final Event errorEvent) {
+        }
+
+        @Override
+        public void onException(final Exception e) {
+        }
+    };
+
+    @Test
+    public void reconnectWhileBackingOffDoesNotScheduleAnotherAttempt() throws Exception {
+
+        final FailingOnceTransport transport = new FailingOnceTransport();
+        final CountDownLatch backingOff = new CountDownLatch(1);
+        final AtomicInteger reconnectsScheduled = new AtomicInteger();
+
+        final ReconnectingSignalingClient client = new ReconnectingSignalingClient(new Supplier<URI>() {
+            @Override
+            public URI get() {
+                return URI.create("wss://localhost/signaling");
+            }
+        }, LISTENER, SignalingRuntime.acquire(), transport, new ReconnectingSignalingClient.ConnectionListener() {
+            @Override
+            public void onConnected(final boolean reconnected) {
+            }
+
+            @Override
+            public void onReconnecting(final int attempt, final long delayMillis, final Throwable cause) {
+                reconnectsScheduled.incrementAndGet();
+                backingOff.countDown();
+            }
+        }, 1000, HeartbeatConfig.DISABLED);
+
+        try {
+            client.connect();
+            assertTrue(backingOff.await(5, TimeUnit.SECONDS));
+
+            // The first attempt failed and the next one is scheduled, nothing is connected meanwhile
+            client.reconnect(new IllegalStateException("Heartbeat lost"));
+
+            assertTrue(transport.secondConnect.await(5, TimeUnit.SECONDS));
+            // Longer than any first backoff delay, a second scheduled attempt would have connected by now
+            Thread.sleep(1000);
+
+            assertEquals(2, transport.connects.get());
+            assertEquals(1, reconnectsScheduled.get());
+        } finally {
+            client.disconnect();
+        }
+    }
+}
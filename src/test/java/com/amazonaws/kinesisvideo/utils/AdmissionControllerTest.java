@@ -0,0 +1,91 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControllerTest {
+
+    private static AdmissionController controller(long budget, int slots) {
+        return new AdmissionController(budget, 1_000_000, 200_000, slots, 0.8);
+    }
+
+    @Test
+    public void admitsAtFullBitrateThenDegradesThenRejects() {
+
+        AdmissionController admission = controller(2_500_000, 10);
+
+        assertEquals(AdmissionController.Decision.ADMITTED, admission.admit("a"));
+        assertEquals(AdmissionController.Decision.ADMITTED, admission.admit("b"));
+        assertEquals(AdmissionController.Decision.DEGRADED, admission.admit("c"));
+        assertEquals(500_000, admission.getBitrateCapBps("c"));
+        assertEquals(AdmissionController.Decision.REJECTED, admission.admit("d"));
+
+        assertEquals(1_000_000, admission.getBitrateCapBps("a"));
+        assertEquals(0, admission.getBitrateCapBps("d"));
+        assertEquals(3, admission.getViewerCount());
+
+    }
+
+    @Test
+    public void rejectsBeyondEncoderSlotsAndCpuLoad() {
+
+        AdmissionController admission = controller(100_000_000, 2);
+
+        assertEquals(AdmissionController.Decision.ADMITTED, admission.admit("a"));
+        admission.setCpuLoad(0.9);
+        assertEquals(AdmissionController.Decision.REJECTED, admission.admit("b"));
+        admission.setCpuLoad(0.1);
+        assertEquals(AdmissionController.Decision.ADMITTED, admission.admit("b"));
+        assertEquals(AdmissionController.Decision.REJECTED, admission.admit("c"));
+
+    }
+
+    @Test
+    public void viewerOfferingAgainKeepsItsShare() {
+
+        AdmissionController admission = controller(1_500_000, 2);
+
+        admission.admit("a");
+        admission.admit("b");
+        assertEquals(AdmissionController.Decision.DEGRADED, admission.admit("b"));
+        assertEquals(AdmissionController.Decision.ADMITTED, admission.admit("a"));
+        assertEquals(2, admission.getViewerCount());
+
+    }
+
+    @Test
+    public void freedBudgetGoesToEarliestDegradedViewer() {
+
+        AdmissionController admission = controller(2_400_000, 10);
+
+        admission.admit("a");
+        admission.admit("b");
+        admission.admit("c");
+        assertEquals(400_000, admission.getBitrateCapBps("c"));
+
+        admission.release("a");
+
+        assertEquals(1_000_000, admission.getBitrateCapBps("b"));
+        assertEquals(1_000_000, admission.getBitrateCapBps("c"));
+
+    }
+
+    @Test
+    public void lowerBudgetIsTakenFromLatestViewersFirst() {
+
+        AdmissionController admission = controller(3_000_000, 10);
+
+        admission.admit("a");
+        admission.admit("b");
+        admission.admit("c");
+
+        admission.setUplinkBudgetBps(1_500_000);
+
+        assertEquals(1_000_000, admission.getBitrateCapBps("a"));
+        assertEquals(500_000, admission.getBitrateCapBps("b"));
+        // Kept at the minimum rather than cut off
+        assertEquals(200_000, admission.getBitrateCapBps("c"));
+
+    }
+}
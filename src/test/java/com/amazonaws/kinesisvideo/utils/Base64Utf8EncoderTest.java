@@ -0,0 +1,36 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class Base64Utf8EncoderTest {
+
+    @Test
+    public void matchesUrlSafeUnpaddedEncodingOfUtf8Bytes() {
+
+        String text = "{\"candidate\":\"candidate:1 1 udp 2122260223 192.168.1.23 54321 typ host\"} caf\u00e9 \u20ac \ud83d\ude00 ??>>";
+
+        for (int length = 0; length <= text.length(); length++) {
+            String prefix = text.substring(0, length);
+            StringBuilder out = new StringBuilder();
+            Base64Utf8Encoder.encodeUrlSafe(prefix, out);
+            assertEquals(prefix, Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(prefix.getBytes(StandardCharsets.UTF_8)), out.toString());
+        }
+
+    }
+
+    @Test
+    public void appendsToExistingContent() {
+
+        StringBuilder out = new StringBuilder("payload=");
+        Base64Utf8Encoder.encodeUrlSafe("{}", out);
+
+        assertEquals("payload=e30", out.toString());
+
+    }
+}
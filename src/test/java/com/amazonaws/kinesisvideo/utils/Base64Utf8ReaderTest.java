@@ -0,0 +1,64 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class Base64Utf8ReaderTest {
+
+    @Test
+    public void decodesAsciiAndMultiByteText() throws IOException {
+
+        String text = "{\"sdp\":\"v=0\\r\\ns=caf\u00e9 \u20ac \ud83d\ude00 ok\"}";
+
+        for (int length = 0; length < 4; length++) {
+            String padded = text.substring(0, text.length() - length);
+            assertEquals(padded, readAll(new Base64Utf8Reader(encode(padded)), 1));
+            assertEquals(padded, readAll(new Base64Utf8Reader(encode(padded)), 1024));
+        }
+
+    }
+
+    @Test
+    public void acceptsUrlSafeAlphabetWhitespaceAndMissingPadding() throws IOException {
+
+        String text = "??>>~~";
+        String urlSafe = Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(text, readAll(new Base64Utf8Reader(urlSafe.substring(0, 4) + "\r\n" + urlSafe.substring(4)), 8));
+
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidCharacters() throws IOException {
+
+        readAll(new Base64Utf8Reader("e30*"), 8);
+
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedUtf8() throws IOException {
+
+        readAll(new Base64Utf8Reader(Base64.getEncoder().encodeToString(new byte[]{'a', (byte) 0xE2, (byte) 0x82})), 8);
+
+    }
+
+    private static String encode(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readAll(Reader reader, int chunk) throws IOException {
+        StringBuilder out = new StringBuilder();
+        char[] buffer = new char[chunk];
+        int read;
+        while ((read = reader.read(buffer, 0, chunk)) >= 0) {
+            out.append(buffer, 0, read);
+        }
+        return out.toString();
+    }
+}
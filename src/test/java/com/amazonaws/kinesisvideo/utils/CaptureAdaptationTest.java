@@ -0,0 +1,72 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CaptureAdaptationTest {
+
+    @Test
+    public void startsAtTheDisplayAspectRatioWithinTheMaximumSize() {
+
+        CaptureAdaptation adaptation = new CaptureAdaptation(1080, 2340, 1280, 30);
+
+        CaptureAdaptation.Format format = adaptation.getCurrent();
+        assertEquals(1280, format.getHeight());
+        assertEquals(590, format.getWidth());
+        assertEquals(30, format.getFps());
+
+        // Small displays are captured as they are
+        assertEquals("800x480@30", new CaptureAdaptation(800, 480, 1280, 30).getCurrent().toString());
+
+    }
+
+    @Test
+    public void lowersTheFrameRateBeforeTheResolution() {
+
+        CaptureAdaptation adaptation = new CaptureAdaptation(1280, 720, 1280, 30);
+
+        CaptureAdaptation.Format first = adaptation.getFormats().get(0);
+        CaptureAdaptation.Format second = adaptation.getFormats().get(1);
+        assertEquals(first.getWidth(), second.getWidth());
+        assertEquals(15, second.getFps());
+
+        for (int i = 0; i < CaptureAdaptation.DOWN_SAMPLES; i++) {
+            adaptation.update(0, "cpu");
+        }
+        assertEquals(second.toString(), adaptation.getCurrent().toString());
+
+    }
+
+    @Test
+    public void dropsRightAwayWhenTheEstimateNoLongerFitsAndClimbsBackSlowly() {
+
+        CaptureAdaptation adaptation = new CaptureAdaptation(1280, 720, 1280, 30);
+        int last = adaptation.getFormats().size() - 1;
+
+        assertEquals(adaptation.getFormats().get(last), adaptation.update(10_000, "bandwidth"));
+
+        for (int i = 1; i < CaptureAdaptation.UP_SAMPLES; i++) {
+            assertEquals(adaptation.getFormats().get(last), adaptation.update(50_000_000, "none"));
+        }
+        assertEquals(adaptation.getFormats().get(last - 1), adaptation.update(50_000_000, "none"));
+
+        // Without an estimate it stays put
+        for (int i = 0; i < CaptureAdaptation.UP_SAMPLES; i++) {
+            assertEquals(adaptation.getFormats().get(last - 1), adaptation.update(0, null));
+        }
+
+    }
+
+    @Test
+    public void rotationKeepsTheStep() {
+
+        CaptureAdaptation adaptation = new CaptureAdaptation(1280, 720, 1280, 30);
+        adaptation.update(10_000, null);
+
+        adaptation.setDisplaySize(720, 1280);
+
+        assertEquals("360x640@5", adaptation.getCurrent().toString());
+
+    }
+}
@@ -0,0 +1,39 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ExponentialBackoffTest {
+
+    @Test
+    public void delaysGrowWithinJitterBoundsUpToMax() {
+
+        ExponentialBackoff backoff = new ExponentialBackoff(500, 8000, new Random(42));
+
+        long[] caps = {500, 1000, 2000, 4000, 8000, 8000, 8000};
+        for (long cap : caps) {
+            long delay = backoff.nextDelayMillis();
+            assertTrue("delay " + delay + " outside [" + cap / 2 + ", " + cap + "]", delay >= cap / 2 && delay <= cap);
+        }
+        assertEquals(caps.length, backoff.getAttempt());
+
+    }
+
+    @Test
+    public void resetStartsOverFromBaseDelay() {
+
+        ExponentialBackoff backoff = new ExponentialBackoff(500, 8000, new Random(42));
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(backoff.nextDelayMillis() <= 8000);
+        }
+
+        backoff.reset();
+        assertEquals(0, backoff.getAttempt());
+        assertTrue(backoff.nextDelayMillis() <= 500);
+
+    }
+}
@@ -0,0 +1,86 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameContentHashTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    // A screen of text, light background with rows of dark glyph-like strokes
+    private static byte[] screen() {
+        final byte[] luma = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final boolean stroke = (y % 20) < 14 && (x % 9) < 2 && ((x / 9 + y / 20) % 3) != 0;
+                luma[y * WIDTH + x] = (byte) (stroke ? 30 : 235);
+            }
+        }
+        return luma;
+    }
+
+    // What the GPU renders at half the size, every sample averages the 2x2 pixels it falls between
+    private static ByteBuffer halfSize(final byte[] luma) {
+        final int width = WIDTH / 2;
+        final int height = HEIGHT / 2;
+        final ByteBuffer thumbnail = ByteBuffer.allocate(width * height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int sum = (luma[2 * y * WIDTH + 2 * x] & 0xff) + (luma[2 * y * WIDTH + 2 * x + 1] & 0xff)
+                        + (luma[(2 * y + 1) * WIDTH + 2 * x] & 0xff) + (luma[(2 * y + 1) * WIDTH + 2 * x + 1] & 0xff);
+                thumbnail.put(y * width + x, (byte) ((sum + 2) / 4));
+            }
+        }
+        return thumbnail;
+    }
+
+    private static long hash(final ByteBuffer plane, final int stride, final int width, final int height) {
+        return FrameContentHash.hashPlane(FrameContentHash.SEED, plane, stride, width, height);
+    }
+
+    @Test
+    public void smallLocalizedChangeChangesTheHash() {
+
+        final byte[] before = screen();
+        final long unchanged = hash(halfSize(before), WIDTH / 2, WIDTH / 2, HEIGHT / 2);
+        assertEquals(unchanged, hash(halfSize(screen()), WIDTH / 2, WIDTH / 2, HEIGHT / 2));
+
+        // A one pixel wide text cursor, 12 pixels high, at an odd column
+        final byte[] cursor = screen();
+        for (int y = 401; y < 413; y++) {
+            cursor[y * WIDTH + 641] = 0;
+        }
+        assertNotEquals(unchanged, hash(halfSize(cursor), WIDTH / 2, WIDTH / 2, HEIGHT / 2));
+
+        // A single pixel of a typed character
+        final byte[] typed = screen();
+        typed[333 * WIDTH + 1001] = 30;
+        assertNotEquals(unchanged, hash(halfSize(typed), WIDTH / 2, WIDTH / 2, HEIGHT / 2));
+
+    }
+
+    @Test
+    public void everySampleOfTheRowCounts() {
+
+        // Rows of 13 samples, not a multiple of the eight hashed at once
+        final ByteBuffer plane = ByteBuffer.allocate(16 * 4);
+        final long empty = hash(plane, 16, 13, 4);
+
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 13; column++) {
+                plane.put(row * 16 + column, (byte) 1);
+                assertNotEquals("row " + row + ", column " + column, empty, hash(plane, 16, 13, 4));
+                plane.put(row * 16 + column, (byte) 0);
+            }
+        }
+
+        // Padding at the end of the rows is not part of the picture
+        plane.put(14, (byte) 1);
+        assertEquals(empty, hash(plane, 16, 13, 4));
+
+    }
+}
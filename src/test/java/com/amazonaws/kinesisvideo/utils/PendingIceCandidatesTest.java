@@ -0,0 +1,56 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PendingIceCandidatesTest {
+
+    @Test
+    public void holdsCandidatesUntilReleasedInArrivalOrder() {
+
+        PendingIceCandidates<String> candidates = new PendingIceCandidates<>(8);
+
+        assertFalse(candidates.isReady());
+        assertTrue(candidates.hold("a"));
+        assertTrue(candidates.hold("b"));
+        assertTrue(candidates.hold("c"));
+
+        assertEquals(Arrays.asList("a", "b", "c"), candidates.release());
+        assertTrue(candidates.isReady());
+        assertEquals(Collections.<String>emptyList(), candidates.release());
+        assertEquals(3, candidates.getHeld());
+
+    }
+
+    @Test
+    public void dropsCandidatesBeyondCapacity() {
+
+        PendingIceCandidates<String> candidates = new PendingIceCandidates<>(2);
+
+        assertTrue(candidates.hold("a"));
+        assertTrue(candidates.hold("b"));
+        assertFalse(candidates.hold("c"));
+
+        assertEquals(Arrays.asList("a", "b"), candidates.release());
+        assertEquals(1, candidates.getDropped());
+
+    }
+
+    @Test
+    public void resetHoldsCandidatesForTheNextDescription() {
+
+        PendingIceCandidates<String> candidates = new PendingIceCandidates<>(8);
+        candidates.release();
+
+        candidates.reset();
+        assertFalse(candidates.isReady());
+        candidates.hold("d");
+
+        assertEquals(Collections.singletonList("d"), candidates.release());
+
+    }
+}
@@ -0,0 +1,127 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.BasicSessionCredentials;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class PresignedUriSupplierTest {
+
+    private static final String WSS_ENDPOINT = "wss://v-1234abcd.kinesisvideo.us-west-2.amazonaws.com";
+    private static final String CHANNEL_ARN = "arn:aws:kinesisvideo:us-west-2:123456789012:channel/demo-channel/1234567890123";
+
+    private static class CountingCredentialsProvider implements AWSCredentialsProvider {
+
+        int fetches = 0;
+
+        @Override
+        public AWSCredentials getCredentials() {
+            fetches++;
+            return new BasicSessionCredentials("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY", "token");
+        }
+
+        @Override
+        public void refresh() {
+        }
+    }
+
+    @Test
+    public void refreshedUrisAreServedWithoutFetchingCredentials() {
+
+        CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        PresignedUriSupplier supplier = new PresignedUriSupplier(credentialsProvider, WSS_ENDPOINT, CHANNEL_ARN,
+                "viewer-1", "us-west-2");
+
+        supplier.refresh();
+        assertEquals(1, credentialsProvider.fetches);
+
+        URI master = supplier.getMasterUri();
+        URI viewer = supplier.getViewerUri();
+
+        assertSame(master, supplier.getMasterUri());
+        assertEquals(1, credentialsProvider.fetches);
+
+        assertFalse(master.toString().contains("X-Amz-ClientId"));
+        assertTrue(viewer.toString().contains("X-Amz-ClientId=viewer-1"));
+        assertTrue(master.toString().contains("X-Amz-Signature="));
+
+        supplier.stop();
+    }
+
+    @Test
+    public void signsOnCallerThreadBeforeFirstRefresh() {
+
+        CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        PresignedUriSupplier supplier = new PresignedUriSupplier(credentialsProvider, WSS_ENDPOINT, CHANNEL_ARN,
+                "viewer-1", "us-west-2");
+
+        assertNotNull(supplier.getMasterUri());
+        assertEquals(1, credentialsProvider.fetches);
+
+        supplier.stop();
+    }
+
+    @Test
+    public void doesNotSignWithExpiredCredentials() {
+
+        CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        PresignedUriSupplier supplier = new PresignedUriSupplier(credentialsProvider, WSS_ENDPOINT, CHANNEL_ARN,
+                "viewer-1", "us-west-2") {
+            @Override
+            Date getCredentialsExpiration() {
+                return new Date(System.currentTimeMillis() - 1000);
+            }
+        };
+
+        supplier.refresh();
+        assertEquals(1, credentialsProvider.fetches);
+
+        // The URIs expired with the credentials, and the credentials are fetched again instead of reused
+        supplier.getMasterUri();
+        assertEquals(2, credentialsProvider.fetches);
+
+        supplier.stop();
+    }
+
+    @Test
+    public void backsOffWhileTheProviderReturnsExpiringCredentials() {
+
+        CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        PresignedUriSupplier supplier = new PresignedUriSupplier(credentialsProvider, WSS_ENDPOINT, CHANNEL_ARN,
+                "viewer-1", "us-west-2") {
+            @Override
+            Date getCredentialsExpiration() {
+                return new Date(System.currentTimeMillis() - 1000);
+            }
+        };
+
+        long delay = 0;
+        for (int i = 0; i < 5; i++) {
+            delay = supplier.refresh();
+        }
+        // The fifth retry waits between 8 and 16 s instead of refreshing every second
+        assertTrue(delay >= 8000);
+        assertEquals(5, credentialsProvider.fetches);
+
+        supplier.stop();
+    }
+
+    @Test
+    public void refreshesCredentialsOfUnknownExpiryOnTheUriSchedule() {
+
+        CountingCredentialsProvider credentialsProvider = new CountingCredentialsProvider();
+        PresignedUriSupplier supplier = new PresignedUriSupplier(credentialsProvider, WSS_ENDPOINT, CHANNEL_ARN,
+                "viewer-1", "us-west-2");
+
+        // A minute before the URIs expire
+        assertTrue(supplier.refresh() > (AwsV4Signer.EXPIRES_SECONDS - 61) * 1000L);
+
+        supplier.stop();
+    }
+}
@@ -0,0 +1,49 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SdpCodecOrderTest {
+
+    private static final String SDP = "v=0\r\n"
+            + "o=- 1 2 IN IP4 127.0.0.1\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 0\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "a=rtpmap:0 PCMU/8000\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:98 VP9/90000\r\n"
+            + "a=rtpmap:99 rtx/90000\r\n"
+            + "a=fmtp:99 apt=98\r\n"
+            + "a=rtpmap:100 H264/90000\r\n"
+            + "a=fmtp:100 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n"
+            + "a=rtpmap:101 rtx/90000\r\n"
+            + "a=fmtp:101 apt=100\r\n";
+
+    @Test
+    public void movesPreferredCodecsAndTheirRetransmissionsFirst() {
+
+        String sdp = SdpCodecOrder.prefer(SDP, "video", Arrays.asList("h264", "VP8"));
+
+        assertTrue(sdp.contains("\r\nm=video 9 UDP/TLS/RTP/SAVPF 100 101 96 97 98 99\r\n"));
+        // Other media and attributes are untouched
+        assertTrue(sdp.contains("\r\nm=audio 9 UDP/TLS/RTP/SAVPF 111 0\r\n"));
+        assertEquals(SDP.length(), sdp.length());
+
+    }
+
+    @Test
+    public void keepsTheDescriptionWhenNothingChanges() {
+
+        assertSame(SDP, SdpCodecOrder.prefer(SDP, "video", Collections.singletonList("VP8")));
+        assertSame(SDP, SdpCodecOrder.prefer(SDP, "video", Collections.singletonList("AV1")));
+        assertSame(SDP, SdpCodecOrder.prefer(SDP, "video", Collections.<String>emptyList()));
+
+    }
+}
@@ -0,0 +1,221 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void runsTasksInSubmissionOrderWithoutOverlap() throws Exception {
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        SerialExecutor loop = new SerialExecutor("peer", pool);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            final int index = i;
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (active.incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    order.add(index);
+                    active.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+        pool.shutdown();
+
+    }
+
+    @Test
+    public void failingTaskDoesNotStopTheLoop() throws Exception {
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor loop = new SerialExecutor("peer", pool);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("expected");
+            }
+        });
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+
+    }
+
+    @Test
+    public void busyLoopLeavesTheSharedThreadToOthers() throws Exception {
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor busy = new SerialExecutor("busy", pool);
+        SerialExecutor other = new SerialExecutor("other", pool);
+        final AtomicInteger busyRuns = new AtomicInteger();
+        final AtomicInteger busyRunsBeforeOther = new AtomicInteger(-1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        for (int i = 0; i < SerialExecutor.BATCH_SIZE * 4; i++) {
+            busy.execute(new Runnable() {
+                @Override
+                public void run() {
+                    busyRuns.incrementAndGet();
+                }
+            });
+        }
+        other.execute(new Runnable() {
+            @Override
+            public void run() {
+                busyRunsBeforeOther.set(busyRuns.get());
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(busyRunsBeforeOther.get() < SerialExecutor.BATCH_SIZE * 4);
+        pool.shutdown();
+
+    }
+
+    @Test
+    public void shutdownDropsQueuedTasksAndWaitsForTheRunningOne() throws Exception {
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor loop = new SerialExecutor("peer", pool);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                runs.incrementAndGet();
+            }
+        });
+        Runnable counting = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        loop.execute(counting);
+        loop.execute(counting);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        loop.shutdown();
+        loop.execute(counting);
+        assertFalse(loop.awaitTermination(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(3, loop.getDropped());
+        assertEquals(0, loop.getPending());
+        pool.shutdown();
+
+    }
+
+    @Test
+    public void finalTaskRunsOnceTheRunningTaskCompletes() throws Exception {
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor loop = new SerialExecutor("peer", pool);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch terminated = new CountDownLatch(1);
+        final AtomicInteger order = new AtomicInteger();
+        final AtomicInteger finalTaskOrder = new AtomicInteger();
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                order.incrementAndGet();
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        loop.shutdown();
+        loop.runWhenTerminated(new Runnable() {
+            @Override
+            public void run() {
+                finalTaskOrder.set(order.incrementAndGet());
+                terminated.countDown();
+            }
+        });
+        assertEquals(0, finalTaskOrder.get());
+
+        release.countDown();
+        assertTrue(terminated.await(5, TimeUnit.SECONDS));
+        assertEquals(2, finalTaskOrder.get());
+
+        // Nothing running anymore, a final task runs on the caller
+        final AtomicInteger runs = new AtomicInteger();
+        loop.runWhenTerminated(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        });
+        assertEquals(1, runs.get());
+        pool.shutdown();
+
+    }
+
+    @Test
+    public void dropsTasksOnceTheExecutorRejectsThem() {
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor loop = new SerialExecutor("peer", pool);
+        pool.shutdown();
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertEquals(1, loop.getDropped());
+        assertEquals(0, loop.getPending());
+
+    }
+}
@@ -0,0 +1,75 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StartupTimelineTest {
+
+    @Test
+    public void reportsEachStageOnceToListeners() {
+
+        StartupTimeline timeline = new StartupTimeline();
+        final List<StartupTimeline.Stage> reported = new ArrayList<>();
+        timeline.addListener(new StartupTimeline.Listener() {
+            @Override
+            public void onStage(StartupTimeline.Stage stage, long offsetMillis, long durationMillis) {
+                assertTrue(offsetMillis >= 0);
+                assertTrue(durationMillis >= 0);
+                reported.add(stage);
+            }
+        });
+
+        timeline.begin(StartupTimeline.Stage.WEBSOCKET_OPEN);
+        assertTrue(timeline.end(StartupTimeline.Stage.WEBSOCKET_OPEN));
+        assertFalse(timeline.end(StartupTimeline.Stage.WEBSOCKET_OPEN));
+        assertTrue(timeline.mark(StartupTimeline.Stage.OFFER_RECEIVED));
+        assertFalse(timeline.mark(StartupTimeline.Stage.OFFER_RECEIVED));
+
+        assertEquals(2, reported.size());
+        assertEquals(StartupTimeline.Stage.WEBSOCKET_OPEN, reported.get(0));
+        assertEquals(StartupTimeline.Stage.OFFER_RECEIVED, reported.get(1));
+
+    }
+
+    @Test
+    public void snapshotListsStagesInBringUpOrder() throws Exception {
+
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.Stage.ICE_CONNECTED);
+        timeline.begin(StartupTimeline.Stage.SIGN_URI);
+        timeline.mark(StartupTimeline.Stage.DESCRIBE_SIGNALING_CHANNEL);
+
+        List<String> lines = timeline.snapshot();
+
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("DescribeSignalingChannel"));
+        assertTrue(lines.get(1).startsWith("Sign websocket URI"));
+        assertTrue(lines.get(1).endsWith("not completed"));
+        assertTrue(lines.get(2).startsWith("ICE connected"));
+
+        StringWriter writer = new StringWriter();
+        timeline.writeTo(writer);
+        assertEquals(3, writer.toString().split("\n").length);
+
+    }
+
+    @Test
+    public void newSessionKeepsOnlyPerProcessStages() {
+
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.Stage.MOBILE_CLIENT_INIT);
+        timeline.mark(StartupTimeline.Stage.OFFER_RECEIVED);
+
+        timeline.newSession();
+
+        List<String> lines = timeline.snapshot();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("AWSMobileClient initialize"));
+
+    }
+}
@@ -0,0 +1,59 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StaticFrameThrottleTest {
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void skipsRepeatedFramesUntilTheRefreshInterval() {
+
+        StaticFrameThrottle throttle = new StaticFrameThrottle(REFRESH_NANOS);
+
+        assertTrue(throttle.accept(0, 42));
+        long time = 0;
+        while ((time += FRAME_NANOS) < REFRESH_NANOS) {
+            assertFalse(throttle.accept(time, 42));
+        }
+        assertTrue(throttle.accept(time, 42));
+
+        assertEquals(2, throttle.getForwarded());
+        assertEquals(30, throttle.getSkipped());
+
+    }
+
+    @Test
+    public void passesChangedContentRightAway() {
+
+        StaticFrameThrottle throttle = new StaticFrameThrottle(REFRESH_NANOS);
+
+        assertTrue(throttle.accept(0, 1));
+        assertFalse(throttle.accept(FRAME_NANOS, 1));
+        assertTrue(throttle.accept(2 * FRAME_NANOS, 2));
+        assertTrue(throttle.accept(3 * FRAME_NANOS, 3));
+        assertFalse(throttle.accept(4 * FRAME_NANOS, 3));
+
+    }
+
+    @Test
+    public void comparesAgainForwardingAFrameWithoutItsHash() {
+
+        StaticFrameThrottle throttle = new StaticFrameThrottle(REFRESH_NANOS);
+
+        assertTrue(throttle.accept(0, 1));
+        throttle.acceptChanged(FRAME_NANOS);
+        // Back to the first picture, which differs from the unhashed frame the encoders got last
+        assertTrue(throttle.accept(2 * FRAME_NANOS, 1));
+        assertFalse(throttle.accept(3 * FRAME_NANOS, 1));
+
+        assertEquals(3, throttle.getForwarded());
+        assertEquals(1, throttle.getSkipped());
+
+    }
+}
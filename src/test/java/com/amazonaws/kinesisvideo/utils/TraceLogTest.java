@@ -0,0 +1,74 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraceLogTest {
+
+    @Test
+    public void keepsNewestEntriesOldestFirst() {
+
+        TraceLog trace = new TraceLog(3, TraceLog.Level.DEBUG);
+
+        for (int i = 0; i < 5; i++) {
+            trace.record(TraceLog.Level.DEBUG, "event", "arg", i);
+        }
+
+        List<String> lines = trace.snapshot();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0), lines.get(0).endsWith("event arg 2"));
+        assertTrue(lines.get(2), lines.get(2).endsWith("event arg 4"));
+        assertEquals(5, trace.getRecorded());
+
+    }
+
+    @Test
+    public void skipsLevelsAboveThreshold() {
+
+        TraceLog trace = new TraceLog(8, TraceLog.Level.INFO);
+
+        trace.record(TraceLog.Level.DEBUG, "debug");
+        trace.record(TraceLog.Level.WARN, "warn", "cause");
+        assertFalse(trace.isEnabled(TraceLog.Level.DEBUG));
+
+        List<String> lines = trace.snapshot();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).contains(" W [") && lines.get(0).endsWith("warn cause"));
+
+        trace.setLevel(TraceLog.Level.VERBOSE);
+        trace.record(TraceLog.Level.DEBUG, "debug");
+        assertEquals(2, trace.getRecorded());
+
+    }
+
+    @Test
+    public void samplesOnlyVerboseLevels() {
+
+        TraceLog trace = new TraceLog(64, TraceLog.Level.VERBOSE);
+        trace.setSampling(4);
+
+        for (int i = 0; i < 20; i++) {
+            trace.record(TraceLog.Level.DEBUG, "message");
+        }
+        trace.record(TraceLog.Level.ERROR, "failure");
+
+        assertEquals(6, trace.getRecorded());
+
+    }
+
+    @Test
+    public void clearDropsEntries() {
+
+        TraceLog trace = new TraceLog(4, TraceLog.Level.INFO);
+
+        trace.record(TraceLog.Level.INFO, "connected");
+        trace.clear();
+
+        assertEquals(0, trace.getRecorded());
+        assertTrue(trace.snapshot().isEmpty());
+
+    }
+}
@@ -0,0 +1,84 @@
+package com.amazonaws.kinesisvideo.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VideoLayerLadderTest {
+
+    @Test
+    public void startsOnTopLayerAndIgnoresMissingEstimates() {
+
+        VideoLayerLadder.Selector selector = VideoLayerLadder.screenCast().newSelector();
+
+        assertEquals("high", selector.getCurrent().getName());
+        assertEquals("high", selector.update(0).getName());
+        assertEquals("high", selector.update(-1).getName());
+
+    }
+
+    @Test
+    public void stepsDownRightAwayToTheBestFittingLayer() {
+
+        VideoLayerLadder.Selector selector = VideoLayerLadder.screenCast().newSelector();
+
+        assertEquals("low", selector.update(200_000).getName());
+
+        selector = VideoLayerLadder.screenCast().newSelector();
+        assertEquals("medium", selector.update(1_000_000).getName());
+
+        // Below every layer the lowest one is kept
+        assertEquals("low", selector.update(50_000).getName());
+
+    }
+
+    @Test
+    public void stepsUpOneLayerAfterConsecutiveFittingEstimates() {
+
+        VideoLayerLadder.Selector selector = VideoLayerLadder.screenCast().newSelector();
+        selector.update(100_000);
+
+        for (int i = 1; i < VideoLayerLadder.UP_SWITCH_SAMPLES; i++) {
+            assertEquals("low", selector.update(5_000_000).getName());
+        }
+        assertEquals("medium", selector.update(5_000_000).getName());
+
+        for (int i = 1; i < VideoLayerLadder.UP_SWITCH_SAMPLES; i++) {
+            assertEquals("medium", selector.update(5_000_000).getName());
+        }
+        assertEquals("high", selector.update(5_000_000).getName());
+
+    }
+
+    @Test
+    public void estimateBelowNextLayerResetsTheUpSwitch() {
+
+        VideoLayerLadder.Selector selector = VideoLayerLadder.screenCast().newSelector();
+        selector.update(1_000_000);
+
+        for (int i = 1; i < VideoLayerLadder.UP_SWITCH_SAMPLES; i++) {
+            selector.update(5_000_000);
+        }
+        assertEquals("medium", selector.update(1_000_000).getName());
+        assertEquals("medium", selector.update(5_000_000).getName());
+
+    }
+
+    @Test
+    public void bitrateCapBoundsTheLayerWithOrWithoutEstimate() {
+
+        VideoLayerLadder.Selector selector = VideoLayerLadder.screenCast().newSelector();
+
+        assertEquals("medium", selector.update(0, 500_000).getName());
+        assertEquals("low", selector.update(5_000_000, 200_000).getName());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLayersNotOrderedByBitrate() {
+
+        new VideoLayerLadder(new VideoLayerLadder.Layer("a", 2.0, 100_000),
+                new VideoLayerLadder.Layer("b", 1.0, 500_000));
+
+    }
+}